@@ -10,6 +10,9 @@ public class ApiResponse<T> {
     private T data;
     private String error;
     
+    // Total matches of a paged list or search; omitted from other responses
+    private TotalCountDTO totalCount;
+    
     // Private constructor to enforce factory methods
     private ApiResponse() {}
     
@@ -74,6 +77,10 @@ public class ApiResponse<T> {
         return error;
     }
     
+    public TotalCountDTO getTotalCount() {
+        return totalCount;
+    }
+    
     // Setters (for JSON serialization)
     public void setSuccess(boolean success) {
         this.success = success;
@@ -90,4 +97,8 @@ public class ApiResponse<T> {
     public void setError(String error) {
         this.error = error;
     }
+    
+    public void setTotalCount(TotalCountDTO totalCount) {
+        this.totalCount = totalCount;
+    }
 }
@@ -0,0 +1,48 @@
+package com.library.dto;
+
+/**
+ * Data Transfer Object for the copies of a book and how many can be checked out
+ */
+public class AvailabilityDTO {
+    
+    private Long bookId;
+    private long totalCopies;
+    private long available;
+    private long onLoan;
+    
+    // Default constructor
+    public AvailabilityDTO() {}
+    
+    // Getters and Setters
+    public Long getBookId() {
+        return bookId;
+    }
+    
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+    
+    public long getTotalCopies() {
+        return totalCopies;
+    }
+    
+    public void setTotalCopies(long totalCopies) {
+        this.totalCopies = totalCopies;
+    }
+    
+    public long getAvailable() {
+        return available;
+    }
+    
+    public void setAvailable(long available) {
+        this.available = available;
+    }
+    
+    public long getOnLoan() {
+        return onLoan;
+    }
+    
+    public void setOnLoan(long onLoan) {
+        this.onLoan = onLoan;
+    }
+}
@@ -31,6 +31,10 @@ public class BookDTO {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     
+    // Set by the cover upload endpoint only; ignored on create and update
+    private String coverHash;
+    private String coverContentType;
+    
     // Default constructor
     public BookDTO() {}
     
@@ -53,6 +57,13 @@ public class BookDTO {
         this.updatedAt = updatedAt;
     }
     
+    // Copy constructor
+    public BookDTO(BookDTO other) {
+        this(other.id, other.title, other.author, other.publicationYear, other.isbn, other.createdAt, other.updatedAt);
+        this.coverHash = other.coverHash;
+        this.coverContentType = other.coverContentType;
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -109,4 +120,20 @@ public class BookDTO {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    public String getCoverHash() {
+        return coverHash;
+    }
+    
+    public void setCoverHash(String coverHash) {
+        this.coverHash = coverHash;
+    }
+    
+    public String getCoverContentType() {
+        return coverContentType;
+    }
+    
+    public void setCoverContentType(String coverContentType) {
+        this.coverContentType = coverContentType;
+    }
 }
@@ -0,0 +1,99 @@
+package com.library.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object for one recorded version of a book
+ */
+public class BookHistoryDTO {
+    
+    private Long id;
+    private Long bookId;
+    private String operation;
+    private String title;
+    private String author;
+    private Integer publicationYear;
+    private String isbn;
+    private LocalDateTime recordedAt;
+    
+    // Default constructor
+    public BookHistoryDTO() {}
+    
+    // Full constructor
+    public BookHistoryDTO(Long id, Long bookId, String operation, String title, String author,
+                          Integer publicationYear, String isbn, LocalDateTime recordedAt) {
+        this.id = id;
+        this.bookId = bookId;
+        this.operation = operation;
+        this.title = title;
+        this.author = author;
+        this.publicationYear = publicationYear;
+        this.isbn = isbn;
+        this.recordedAt = recordedAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getBookId() {
+        return bookId;
+    }
+    
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+    
+    public String getOperation() {
+        return operation;
+    }
+    
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+    
+    public String getTitle() {
+        return title;
+    }
+    
+    public void setTitle(String title) {
+        this.title = title;
+    }
+    
+    public String getAuthor() {
+        return author;
+    }
+    
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+    
+    public Integer getPublicationYear() {
+        return publicationYear;
+    }
+    
+    public void setPublicationYear(Integer publicationYear) {
+        this.publicationYear = publicationYear;
+    }
+    
+    public String getIsbn() {
+        return isbn;
+    }
+    
+    public void setIsbn(String isbn) {
+        this.isbn = isbn;
+    }
+    
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+    
+    public void setRecordedAt(LocalDateTime recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+}
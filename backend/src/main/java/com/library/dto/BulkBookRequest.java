@@ -0,0 +1,83 @@
+package com.library.dto;
+
+import java.util.List;
+
+/**
+ * Request body for bulk book operations.
+ * Books are selected either by an explicit list of IDs or by a filter
+ * (author and/or publication year range), never both.
+ */
+public class BulkBookRequest {
+    
+    private List<Long> ids;
+    
+    // Filter: exact author name (case-insensitive) and inclusive year range
+    private String author;
+    private Integer fromYear;
+    private Integer toYear;
+    
+    // Fields to set on every selected book (bulk update only); null fields are left unchanged
+    private BookDTO changes;
+    
+    // Optional override of the configured chunk size
+    private Integer chunkSize;
+    
+    // Default constructor
+    public BulkBookRequest() {}
+    
+    /**
+     * Whether any filter criterion has been supplied
+     */
+    public boolean hasFilter() {
+        return (author != null && !author.trim().isEmpty()) || fromYear != null || toYear != null;
+    }
+    
+    // Getters and Setters
+    public List<Long> getIds() {
+        return ids;
+    }
+    
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+    
+    public String getAuthor() {
+        return author;
+    }
+    
+    public void setAuthor(String author) {
+        this.author = author;
+    }
+    
+    public Integer getFromYear() {
+        return fromYear;
+    }
+    
+    public void setFromYear(Integer fromYear) {
+        this.fromYear = fromYear;
+    }
+    
+    public Integer getToYear() {
+        return toYear;
+    }
+    
+    public void setToYear(Integer toYear) {
+        this.toYear = toYear;
+    }
+    
+    public BookDTO getChanges() {
+        return changes;
+    }
+    
+    public void setChanges(BookDTO changes) {
+        this.changes = changes;
+    }
+    
+    public Integer getChunkSize() {
+        return chunkSize;
+    }
+    
+    public void setChunkSize(Integer chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+}
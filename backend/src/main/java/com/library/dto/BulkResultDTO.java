@@ -0,0 +1,87 @@
+package com.library.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a bulk book operation: affected row count and per-ID failures
+ */
+public class BulkResultDTO {
+    
+    private long affected;
+    private int chunks;
+    private List<Failure> failures = new ArrayList<>();
+    
+    // Default constructor
+    public BulkResultDTO() {}
+    
+    public void addAffected(long count) {
+        this.affected += count;
+    }
+    
+    public void addChunk() {
+        this.chunks++;
+    }
+    
+    public void addFailure(Long id, String error) {
+        this.failures.add(new Failure(id, error));
+    }
+    
+    // Getters and Setters
+    public long getAffected() {
+        return affected;
+    }
+    
+    public void setAffected(long affected) {
+        this.affected = affected;
+    }
+    
+    public int getChunks() {
+        return chunks;
+    }
+    
+    public void setChunks(int chunks) {
+        this.chunks = chunks;
+    }
+    
+    public List<Failure> getFailures() {
+        return failures;
+    }
+    
+    public void setFailures(List<Failure> failures) {
+        this.failures = failures;
+    }
+    
+    /**
+     * A single book that could not be processed
+     */
+    public static class Failure {
+        
+        private Long id;
+        private String error;
+        
+        // Default constructor
+        public Failure() {}
+        
+        public Failure(Long id, String error) {
+            this.id = id;
+            this.error = error;
+        }
+        
+        public Long getId() {
+            return id;
+        }
+        
+        public void setId(Long id) {
+            this.id = id;
+        }
+        
+        public String getError() {
+            return error;
+        }
+        
+        public void setError(String error) {
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.library.dto;
+
+/**
+ * Data Transfer Object for book cache and cross-node coherence metrics
+ */
+public class CacheStatsDTO {
+    
+    private String nodeId;
+    private boolean listenerConnected;
+    private boolean cacheEnabled;
+    private int cacheSize;
+    private long hits;
+    private long misses;
+    private long notificationsReceived;
+    private long remoteInvalidations;
+    private long reconnects;
+    
+    // Time from a change being published on another node to its invalidation here
+    private long lastLagMs;
+    private long maxLagMs;
+    private double averageLagMs;
+    
+    // Default constructor
+    public CacheStatsDTO() {}
+    
+    // Getters and Setters
+    public String getNodeId() {
+        return nodeId;
+    }
+    
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+    
+    public boolean isListenerConnected() {
+        return listenerConnected;
+    }
+    
+    public void setListenerConnected(boolean listenerConnected) {
+        this.listenerConnected = listenerConnected;
+    }
+    
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+    
+    public void setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+    }
+    
+    public int getCacheSize() {
+        return cacheSize;
+    }
+    
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+    
+    public long getHits() {
+        return hits;
+    }
+    
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+    
+    public long getMisses() {
+        return misses;
+    }
+    
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+    
+    public long getNotificationsReceived() {
+        return notificationsReceived;
+    }
+    
+    public void setNotificationsReceived(long notificationsReceived) {
+        this.notificationsReceived = notificationsReceived;
+    }
+    
+    public long getRemoteInvalidations() {
+        return remoteInvalidations;
+    }
+    
+    public void setRemoteInvalidations(long remoteInvalidations) {
+        this.remoteInvalidations = remoteInvalidations;
+    }
+    
+    public long getReconnects() {
+        return reconnects;
+    }
+    
+    public void setReconnects(long reconnects) {
+        this.reconnects = reconnects;
+    }
+    
+    public long getLastLagMs() {
+        return lastLagMs;
+    }
+    
+    public void setLastLagMs(long lastLagMs) {
+        this.lastLagMs = lastLagMs;
+    }
+    
+    public long getMaxLagMs() {
+        return maxLagMs;
+    }
+    
+    public void setMaxLagMs(long maxLagMs) {
+        this.maxLagMs = maxLagMs;
+    }
+    
+    public double getAverageLagMs() {
+        return averageLagMs;
+    }
+    
+    public void setAverageLagMs(double averageLagMs) {
+        this.averageLagMs = averageLagMs;
+    }
+}
@@ -0,0 +1,75 @@
+package com.library.dto;
+
+/**
+ * Data Transfer Object for the status of a synthetic catalog generation
+ */
+public class CatalogGenerationDTO {
+    
+    private String status;
+    private long rows;
+    private long seed;
+    private long rowsWritten;
+    private long elapsedMs;
+    private long rowsPerMinute;
+    private String error;
+    
+    // Default constructor
+    public CatalogGenerationDTO() {}
+    
+    // Getters and Setters
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public long getRows() {
+        return rows;
+    }
+    
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+    
+    public long getSeed() {
+        return seed;
+    }
+    
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+    
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+    
+    public void setRowsWritten(long rowsWritten) {
+        this.rowsWritten = rowsWritten;
+    }
+    
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+    
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+    
+    public long getRowsPerMinute() {
+        return rowsPerMinute;
+    }
+    
+    public void setRowsPerMinute(long rowsPerMinute) {
+        this.rowsPerMinute = rowsPerMinute;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+}
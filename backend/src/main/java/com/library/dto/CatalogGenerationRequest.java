@@ -0,0 +1,79 @@
+package com.library.dto;
+
+/**
+ * Request body for generating a synthetic catalog; omitted fields use defaults
+ */
+public class CatalogGenerationRequest {
+    
+    private Long rows;
+    private Long seed;
+    private Integer producers;
+    private Integer authors;
+    private Double zipf;
+    
+    // Delete all existing books first
+    private boolean truncate;
+    
+    // Drop secondary indexes during the load and rebuild them after
+    private boolean deferIndexes;
+    
+    // Default constructor
+    public CatalogGenerationRequest() {}
+    
+    // Getters and Setters
+    public Long getRows() {
+        return rows;
+    }
+    
+    public void setRows(Long rows) {
+        this.rows = rows;
+    }
+    
+    public Long getSeed() {
+        return seed;
+    }
+    
+    public void setSeed(Long seed) {
+        this.seed = seed;
+    }
+    
+    public Integer getProducers() {
+        return producers;
+    }
+    
+    public void setProducers(Integer producers) {
+        this.producers = producers;
+    }
+    
+    public Integer getAuthors() {
+        return authors;
+    }
+    
+    public void setAuthors(Integer authors) {
+        this.authors = authors;
+    }
+    
+    public Double getZipf() {
+        return zipf;
+    }
+    
+    public void setZipf(Double zipf) {
+        this.zipf = zipf;
+    }
+    
+    public boolean isTruncate() {
+        return truncate;
+    }
+    
+    public void setTruncate(boolean truncate) {
+        this.truncate = truncate;
+    }
+    
+    public boolean isDeferIndexes() {
+        return deferIndexes;
+    }
+    
+    public void setDeferIndexes(boolean deferIndexes) {
+        this.deferIndexes = deferIndexes;
+    }
+}
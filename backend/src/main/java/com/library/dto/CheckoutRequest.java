@@ -0,0 +1,30 @@
+package com.library.dto;
+
+/**
+ * Request body for checking out a copy of a book
+ */
+public class CheckoutRequest {
+    
+    private Long bookId;
+    private String patronId;
+    
+    // Default constructor
+    public CheckoutRequest() {}
+    
+    // Getters and Setters
+    public Long getBookId() {
+        return bookId;
+    }
+    
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+    
+    public String getPatronId() {
+        return patronId;
+    }
+    
+    public void setPatronId(String patronId) {
+        this.patronId = patronId;
+    }
+}
@@ -0,0 +1,97 @@
+package com.library.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object for the status and progress of a duplicate detection job
+ */
+public class DedupeJobDTO {
+    
+    private Long id;
+    private String status;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private Long booksScanned;
+    private Long pairsFound;
+    private String error;
+    
+    // Live progress, only present while the job runs on this node
+    private String currentPass;
+    private Double progressPercent;
+    
+    // Default constructor
+    public DedupeJobDTO() {}
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+    
+    public Long getBooksScanned() {
+        return booksScanned;
+    }
+    
+    public void setBooksScanned(Long booksScanned) {
+        this.booksScanned = booksScanned;
+    }
+    
+    public Long getPairsFound() {
+        return pairsFound;
+    }
+    
+    public void setPairsFound(Long pairsFound) {
+        this.pairsFound = pairsFound;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+    
+    public String getCurrentPass() {
+        return currentPass;
+    }
+    
+    public void setCurrentPass(String currentPass) {
+        this.currentPass = currentPass;
+    }
+    
+    public Double getProgressPercent() {
+        return progressPercent;
+    }
+    
+    public void setProgressPercent(Double progressPercent) {
+        this.progressPercent = progressPercent;
+    }
+}
@@ -0,0 +1,48 @@
+package com.library.dto;
+
+/**
+ * Data Transfer Object for a pair of books reported as likely duplicates
+ */
+public class DuplicateCandidateDTO {
+    
+    private Long bookIdA;
+    private Long bookIdB;
+    private Double score;
+    private String reason;
+    
+    // Default constructor
+    public DuplicateCandidateDTO() {}
+    
+    // Getters and Setters
+    public Long getBookIdA() {
+        return bookIdA;
+    }
+    
+    public void setBookIdA(Long bookIdA) {
+        this.bookIdA = bookIdA;
+    }
+    
+    public Long getBookIdB() {
+        return bookIdB;
+    }
+    
+    public void setBookIdB(Long bookIdB) {
+        this.bookIdB = bookIdB;
+    }
+    
+    public Double getScore() {
+        return score;
+    }
+    
+    public void setScore(Double score) {
+        this.score = score;
+    }
+    
+    public String getReason() {
+        return reason;
+    }
+    
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,77 @@
+package com.library.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object for a loan of a book copy
+ */
+public class LoanDTO {
+    
+    private Long id;
+    private Long copyId;
+    private Long bookId;
+    private String patronId;
+    private LocalDateTime checkedOutAt;
+    private LocalDateTime dueAt;
+    private LocalDateTime returnedAt;
+    
+    // Default constructor
+    public LoanDTO() {}
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getCopyId() {
+        return copyId;
+    }
+    
+    public void setCopyId(Long copyId) {
+        this.copyId = copyId;
+    }
+    
+    public Long getBookId() {
+        return bookId;
+    }
+    
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+    
+    public String getPatronId() {
+        return patronId;
+    }
+    
+    public void setPatronId(String patronId) {
+        this.patronId = patronId;
+    }
+    
+    public LocalDateTime getCheckedOutAt() {
+        return checkedOutAt;
+    }
+    
+    public void setCheckedOutAt(LocalDateTime checkedOutAt) {
+        this.checkedOutAt = checkedOutAt;
+    }
+    
+    public LocalDateTime getDueAt() {
+        return dueAt;
+    }
+    
+    public void setDueAt(LocalDateTime dueAt) {
+        this.dueAt = dueAt;
+    }
+    
+    public LocalDateTime getReturnedAt() {
+        return returnedAt;
+    }
+    
+    public void setReturnedAt(LocalDateTime returnedAt) {
+        this.returnedAt = returnedAt;
+    }
+}
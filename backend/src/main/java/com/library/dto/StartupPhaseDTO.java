@@ -0,0 +1,47 @@
+package com.library.dto;
+
+/**
+ * Data Transfer Object for a timed application startup phase
+ */
+public class StartupPhaseDTO {
+    
+    private String phase;
+    private long durationMs;
+    
+    // JVM uptime when the phase completed
+    private long completedAtUptimeMs;
+    
+    // Default constructor
+    public StartupPhaseDTO() {}
+    
+    public StartupPhaseDTO(String phase, long durationMs, long completedAtUptimeMs) {
+        this.phase = phase;
+        this.durationMs = durationMs;
+        this.completedAtUptimeMs = completedAtUptimeMs;
+    }
+    
+    // Getters and Setters
+    public String getPhase() {
+        return phase;
+    }
+    
+    public void setPhase(String phase) {
+        this.phase = phase;
+    }
+    
+    public long getDurationMs() {
+        return durationMs;
+    }
+    
+    public void setDurationMs(long durationMs) {
+        this.durationMs = durationMs;
+    }
+    
+    public long getCompletedAtUptimeMs() {
+        return completedAtUptimeMs;
+    }
+    
+    public void setCompletedAtUptimeMs(long completedAtUptimeMs) {
+        this.completedAtUptimeMs = completedAtUptimeMs;
+    }
+}
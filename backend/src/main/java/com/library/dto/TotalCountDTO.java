@@ -0,0 +1,54 @@
+package com.library.dto;
+
+/**
+ * Data Transfer Object for the total number of matches of a list or search request
+ */
+public class TotalCountDTO {
+    
+    public static final String SOURCE_PAGE = "page";
+    public static final String SOURCE_COUNT = "count";
+    public static final String SOURCE_COUNTER = "counter";
+    public static final String SOURCE_PLANNER = "planner";
+    
+    private long total;
+    
+    // False when the total is an estimate
+    private boolean exact;
+    
+    // How the total was obtained: page, count, counter or planner
+    private String source;
+    
+    // Default constructor
+    public TotalCountDTO() {}
+    
+    public TotalCountDTO(long total, boolean exact, String source) {
+        this.total = total;
+        this.exact = exact;
+        this.source = source;
+    }
+    
+    // Getters and Setters
+    public long getTotal() {
+        return total;
+    }
+    
+    public void setTotal(long total) {
+        this.total = total;
+    }
+    
+    public boolean isExact() {
+        return exact;
+    }
+    
+    public void setExact(boolean exact) {
+        this.exact = exact;
+    }
+    
+    public String getSource() {
+        return source;
+    }
+    
+    public void setSource(String source) {
+        this.source = source;
+    }
+}
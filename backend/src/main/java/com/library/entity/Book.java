@@ -13,6 +13,7 @@ import java.util.Objects;
 @NamedQueries({
     @NamedQuery(name = "Book.findAll", query = "SELECT b FROM Book b ORDER BY b.title"),
     @NamedQuery(name = "Book.findByIsbn", query = "SELECT b FROM Book b WHERE b.isbn = :isbn"),
+    @NamedQuery(name = "Book.findIdByIsbn", query = "SELECT b.id FROM Book b WHERE b.isbn = :isbn"),
     @NamedQuery(name = "Book.findByAuthor", query = "SELECT b FROM Book b WHERE LOWER(b.author) LIKE LOWER(:author) ORDER BY b.title")
 })
 public class Book {
@@ -49,6 +50,13 @@ public class Book {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // SHA-256 of the cover image in the cover store, null when the book has no cover
+    @Column(name = "cover_hash", length = 64)
+    private String coverHash;
+    
+    @Column(name = "cover_content_type", length = 32)
+    private String coverContentType;
+    
     // Default constructor
     public Book() {}
     
@@ -128,6 +136,22 @@ public class Book {
         this.updatedAt = updatedAt;
     }
     
+    public String getCoverHash() {
+        return coverHash;
+    }
+    
+    public void setCoverHash(String coverHash) {
+        this.coverHash = coverHash;
+    }
+    
+    public String getCoverContentType() {
+        return coverContentType;
+    }
+    
+    public void setCoverContentType(String coverContentType) {
+        this.coverContentType = coverContentType;
+    }
+    
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -151,6 +175,7 @@ public class Book {
                 ", isbn='" + isbn + '\'' +
                 ", createdAt=" + createdAt +
                 ", updatedAt=" + updatedAt +
+                ", coverHash='" + coverHash + '\'' +
                 '}';
     }
 }
@@ -0,0 +1,79 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A physical copy of a book that can be lent out
+ */
+@Entity
+@Table(name = "book_copies")
+@NamedQueries({
+    @NamedQuery(name = "BookCopy.countByBookAndStatus",
+                query = "SELECT c.status, COUNT(c) FROM BookCopy c WHERE c.bookId = :bookId GROUP BY c.status")
+})
+public class BookCopy {
+    
+    public static final String AVAILABLE = "AVAILABLE";
+    public static final String ON_LOAN = "ON_LOAN";
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+    
+    @Column(nullable = false)
+    private String status;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    // Default constructor
+    public BookCopy() {}
+    
+    // Constructor for adding a new copy
+    public BookCopy(Long bookId) {
+        this.bookId = bookId;
+        this.status = AVAILABLE;
+    }
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getBookId() {
+        return bookId;
+    }
+    
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,97 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One run of the duplicate detection job; rows are written by DuplicateDetectionService
+ */
+@Entity
+@Table(name = "dedupe_jobs")
+@NamedQueries({
+    @NamedQuery(name = "DedupeJob.findRecent", query = "SELECT j FROM DedupeJob j ORDER BY j.id DESC")
+})
+public class DedupeJob {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private String status;
+    
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+    
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+    
+    @Column(name = "books_scanned", nullable = false)
+    private Long booksScanned;
+    
+    @Column(name = "pairs_found", nullable = false)
+    private Long pairsFound;
+    
+    @Column
+    private String error;
+    
+    // Default constructor
+    public DedupeJob() {}
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+    
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+    
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+    
+    public Long getBooksScanned() {
+        return booksScanned;
+    }
+    
+    public void setBooksScanned(Long booksScanned) {
+        this.booksScanned = booksScanned;
+    }
+    
+    public Long getPairsFound() {
+        return pairsFound;
+    }
+    
+    public void setPairsFound(Long pairsFound) {
+        this.pairsFound = pairsFound;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+}
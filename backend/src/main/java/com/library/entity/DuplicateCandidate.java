@@ -0,0 +1,89 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * A pair of books reported as likely duplicates by a dedupe job (book_id_a < book_id_b)
+ */
+@Entity
+@Table(name = "dedupe_candidates")
+@NamedQueries({
+    @NamedQuery(name = "DuplicateCandidate.findByJob",
+                query = "SELECT c FROM DuplicateCandidate c WHERE c.jobId = :jobId AND c.score >= :minScore "
+                        + "ORDER BY c.score DESC, c.id"),
+    @NamedQuery(name = "DuplicateCandidate.countByJob",
+                query = "SELECT COUNT(c) FROM DuplicateCandidate c WHERE c.jobId = :jobId AND c.score >= :minScore")
+})
+public class DuplicateCandidate {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+    
+    @Column(name = "book_id_a", nullable = false)
+    private Long bookIdA;
+    
+    @Column(name = "book_id_b", nullable = false)
+    private Long bookIdB;
+    
+    @Column(nullable = false)
+    private Double score;
+    
+    @Column(nullable = false)
+    private String reason;
+    
+    // Default constructor
+    public DuplicateCandidate() {}
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getJobId() {
+        return jobId;
+    }
+    
+    public void setJobId(Long jobId) {
+        this.jobId = jobId;
+    }
+    
+    public Long getBookIdA() {
+        return bookIdA;
+    }
+    
+    public void setBookIdA(Long bookIdA) {
+        this.bookIdA = bookIdA;
+    }
+    
+    public Long getBookIdB() {
+        return bookIdB;
+    }
+    
+    public void setBookIdB(Long bookIdB) {
+        this.bookIdB = bookIdB;
+    }
+    
+    public Double getScore() {
+        return score;
+    }
+    
+    public void setScore(Double score) {
+        this.score = score;
+    }
+    
+    public String getReason() {
+        return reason;
+    }
+    
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+}
@@ -0,0 +1,109 @@
+package com.library.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A loan of one book copy to a patron; open while returnedAt is null
+ */
+@Entity
+@Table(name = "loans")
+@NamedQueries({
+    @NamedQuery(name = "Loan.findOpenByPatron",
+                query = "SELECT l FROM Loan l WHERE l.patronId = :patronId AND l.returnedAt IS NULL ORDER BY l.dueAt"),
+    @NamedQuery(name = "Loan.countOpenByPatron",
+                query = "SELECT COUNT(l) FROM Loan l WHERE l.patronId = :patronId AND l.returnedAt IS NULL")
+})
+public class Loan {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "copy_id", nullable = false)
+    private Long copyId;
+    
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+    
+    @Column(name = "patron_id", nullable = false)
+    private String patronId;
+    
+    @Column(name = "checked_out_at", nullable = false)
+    private LocalDateTime checkedOutAt;
+    
+    @Column(name = "due_at", nullable = false)
+    private LocalDateTime dueAt;
+    
+    @Column(name = "returned_at")
+    private LocalDateTime returnedAt;
+    
+    // Default constructor
+    public Loan() {}
+    
+    // Constructor for a new checkout
+    public Loan(Long copyId, Long bookId, String patronId, LocalDateTime checkedOutAt, LocalDateTime dueAt) {
+        this.copyId = copyId;
+        this.bookId = bookId;
+        this.patronId = patronId;
+        this.checkedOutAt = checkedOutAt;
+        this.dueAt = dueAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getCopyId() {
+        return copyId;
+    }
+    
+    public void setCopyId(Long copyId) {
+        this.copyId = copyId;
+    }
+    
+    public Long getBookId() {
+        return bookId;
+    }
+    
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+    
+    public String getPatronId() {
+        return patronId;
+    }
+    
+    public void setPatronId(String patronId) {
+        this.patronId = patronId;
+    }
+    
+    public LocalDateTime getCheckedOutAt() {
+        return checkedOutAt;
+    }
+    
+    public void setCheckedOutAt(LocalDateTime checkedOutAt) {
+        this.checkedOutAt = checkedOutAt;
+    }
+    
+    public LocalDateTime getDueAt() {
+        return dueAt;
+    }
+    
+    public void setDueAt(LocalDateTime dueAt) {
+        this.dueAt = dueAt;
+    }
+    
+    public LocalDateTime getReturnedAt() {
+        return returnedAt;
+    }
+    
+    public void setReturnedAt(LocalDateTime returnedAt) {
+        this.returnedAt = returnedAt;
+    }
+}
@@ -0,0 +1,85 @@
+package com.library.event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A book change announced between application nodes over PostgreSQL NOTIFY.
+ * Payload format: {@code nodeId|operation|publishedAtMillis|id,id,...}
+ */
+public class BookChangeNotification {
+    
+    public static final String CHANNEL = "book_changes";
+    
+    // PostgreSQL rejects payloads of 8000 bytes or more
+    public static final int MAX_PAYLOAD_LENGTH = 7900;
+    
+    private final String nodeId;
+    private final BookChangedEvent.Operation operation;
+    private final long publishedAtMillis;
+    private final List<Long> bookIds;
+    
+    public BookChangeNotification(String nodeId, BookChangedEvent.Operation operation, long publishedAtMillis,
+                                  List<Long> bookIds) {
+        this.nodeId = nodeId;
+        this.operation = operation;
+        this.publishedAtMillis = publishedAtMillis;
+        this.bookIds = bookIds;
+    }
+    
+    /**
+     * Encode as one or more payloads, each below the NOTIFY size limit
+     */
+    public List<String> toPayloads() {
+        String header = nodeId + "|" + operation.name() + "|" + publishedAtMillis + "|";
+        List<String> payloads = new ArrayList<>();
+        StringBuilder sb = new StringBuilder(header);
+        for (Long id : bookIds) {
+            String token = id.toString();
+            if (sb.length() > header.length() && sb.length() + token.length() + 1 > MAX_PAYLOAD_LENGTH) {
+                payloads.add(sb.toString());
+                sb = new StringBuilder(header);
+            }
+            if (sb.length() > header.length()) {
+                sb.append(',');
+            }
+            sb.append(token);
+        }
+        payloads.add(sb.toString());
+        return payloads;
+    }
+    
+    /**
+     * Parse a payload produced by {@link #toPayloads()}
+     */
+    public static BookChangeNotification parse(String payload) {
+        String[] parts = payload.split("\\|", 4);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Malformed book change notification: " + payload);
+        }
+        List<Long> ids = new ArrayList<>();
+        for (String id : parts[3].split(",")) {
+            if (!id.isEmpty()) {
+                ids.add(Long.parseLong(id));
+            }
+        }
+        return new BookChangeNotification(parts[0], BookChangedEvent.Operation.valueOf(parts[1]),
+                                          Long.parseLong(parts[2]), ids);
+    }
+    
+    public String getNodeId() {
+        return nodeId;
+    }
+    
+    public BookChangedEvent.Operation getOperation() {
+        return operation;
+    }
+    
+    public long getPublishedAtMillis() {
+        return publishedAtMillis;
+    }
+    
+    public List<Long> getBookIds() {
+        return bookIds;
+    }
+}
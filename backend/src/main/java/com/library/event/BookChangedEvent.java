@@ -0,0 +1,38 @@
+package com.library.event;
+
+import com.library.dto.BookDTO;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * CDI event fired by the services whenever books are created, updated or deleted.
+ * Carries a snapshot of each affected book: the new state for CREATED/UPDATED and
+ * the last state for DELETED. Observers that must only see committed changes use
+ * {@code @Observes(during = TransactionPhase.AFTER_SUCCESS)}.
+ */
+public class BookChangedEvent {
+    
+    public enum Operation {
+        CREATED, UPDATED, DELETED
+    }
+    
+    private final Operation operation;
+    private final List<BookDTO> books;
+    
+    public BookChangedEvent(Operation operation, List<BookDTO> books) {
+        this.operation = operation;
+        this.books = Collections.unmodifiableList(books);
+    }
+    
+    public static BookChangedEvent of(Operation operation, BookDTO book) {
+        return new BookChangedEvent(operation, List.of(book));
+    }
+    
+    public Operation getOperation() {
+        return operation;
+    }
+    
+    public List<BookDTO> getBooks() {
+        return books;
+    }
+}
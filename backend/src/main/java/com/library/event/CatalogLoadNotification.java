@@ -0,0 +1,60 @@
+package com.library.event;
+
+/**
+ * Start or end of a bulk catalog load, announced to every node on the book change channel.
+ * Loaded books arrive by COPY without change events, so nodes must not trust anything
+ * derived from the books table about the reserved ID range until the load has finished
+ * and they have re-read the table.
+ * Payload format: {@code catalog-load|STARTED|firstId|lastId} (or {@code FINISHED})
+ */
+public class CatalogLoadNotification {
+
+    private static final String PREFIX = "catalog-load|";
+    private static final String STARTED = "STARTED";
+    private static final String FINISHED = "FINISHED";
+
+    private final boolean finished;
+    private final long firstId;
+    private final long lastId;
+
+    public CatalogLoadNotification(boolean finished, long firstId, long lastId) {
+        this.finished = finished;
+        this.firstId = firstId;
+        this.lastId = lastId;
+    }
+
+    public String toPayload() {
+        return PREFIX + (finished ? FINISHED : STARTED) + "|" + firstId + "|" + lastId;
+    }
+
+    /**
+     * Whether a payload on the book change channel is a catalog load notification
+     */
+    public static boolean isPayload(String payload) {
+        return payload.startsWith(PREFIX);
+    }
+
+    /**
+     * Parse a payload produced by {@link #toPayload()}
+     */
+    public static CatalogLoadNotification parse(String payload) {
+        String[] parts = payload.split("\\|");
+        if (parts.length != 4 || !(STARTED.equals(parts[1]) || FINISHED.equals(parts[1]))) {
+            throw new IllegalArgumentException("Malformed catalog load notification: " + payload);
+        }
+        return new CatalogLoadNotification(FINISHED.equals(parts[1]), Long.parseLong(parts[2]),
+                                           Long.parseLong(parts[3]));
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public long getFirstId() {
+        return firstId;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+}
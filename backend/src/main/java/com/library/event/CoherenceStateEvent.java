@@ -0,0 +1,19 @@
+package com.library.event;
+
+/**
+ * CDI event fired when the cross-node change channel connects or disconnects.
+ * While disconnected, changes made on other nodes are not seen; node-local structures
+ * derived from the books table must stop trusting themselves and rebuild on reconnect.
+ */
+public class CoherenceStateEvent {
+    
+    private final boolean connected;
+    
+    public CoherenceStateEvent(boolean connected) {
+        this.connected = connected;
+    }
+    
+    public boolean isConnected() {
+        return connected;
+    }
+}
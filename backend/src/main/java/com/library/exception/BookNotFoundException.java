@@ -1,12 +1,14 @@
 package com.library.exception;
 
 /**
- * Custom exception for book not found scenarios
+ * Custom exception for book not found scenarios.
+ * Not-found is an expected outcome (crawlers probe many missing IDs), so the exception
+ * is created without a stack trace.
  */
 public class BookNotFoundException extends RuntimeException {
     
     public BookNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
     
     public BookNotFoundException(String message, Throwable cause) {
@@ -14,6 +16,6 @@ public class BookNotFoundException extends RuntimeException {
     }
     
     public BookNotFoundException(Long id) {
-        super("Book not found with ID: " + id);
+        super("Book not found with ID: " + id, null, false, false);
     }
 }
@@ -0,0 +1,12 @@
+package com.library.exception;
+
+/**
+ * Custom exception for circulation requests that cannot be served in the current state
+ * (no copy available, patron at the loan limit, loan already returned)
+ */
+public class CirculationConflictException extends RuntimeException {
+    
+    public CirculationConflictException(String message) {
+        super(message);
+    }
+}
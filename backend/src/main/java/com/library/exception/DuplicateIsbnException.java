@@ -5,15 +5,11 @@ package com.library.exception;
  */
 public class DuplicateIsbnException extends RuntimeException {
     
-    public DuplicateIsbnException(String message) {
-        super(message);
-    }
-    
-    public DuplicateIsbnException(String message, Throwable cause) {
-        super(message, cause);
-    }
-    
     public DuplicateIsbnException(String isbn) {
         super("Book with ISBN '" + isbn + "' already exists");
     }
+    
+    public DuplicateIsbnException(String isbn, Throwable cause) {
+        super("Book with ISBN '" + isbn + "' already exists", cause);
+    }
 }
@@ -0,0 +1,12 @@
+package com.library.exception;
+
+/**
+ * Custom exception for features the configured storage engine does not provide
+ * (change history with library.storage=offheap)
+ */
+public class FeatureUnavailableException extends RuntimeException {
+    
+    public FeatureUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.library.exception;
+
+/**
+ * Custom exception for requests that conflict with the state of a background job
+ * (starting a job while one is running, cancelling a job that already finished)
+ */
+public class JobConflictException extends RuntimeException {
+    
+    public JobConflictException(String message) {
+        super(message);
+    }
+}
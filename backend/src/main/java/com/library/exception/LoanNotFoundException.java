@@ -0,0 +1,11 @@
+package com.library.exception;
+
+/**
+ * Custom exception for loan not found scenarios
+ */
+public class LoanNotFoundException extends RuntimeException {
+    
+    public LoanNotFoundException(Long id) {
+        super("Loan not found with ID: " + id);
+    }
+}
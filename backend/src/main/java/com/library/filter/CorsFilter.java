@@ -27,9 +27,11 @@ public class CorsFilter implements Filter {
         
         // Set CORS headers
         httpResponse.setHeader("Access-Control-Allow-Origin", "*");
-        httpResponse.setHeader("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
+        httpResponse.setHeader("Access-Control-Allow-Methods", "GET, POST, PUT, PATCH, DELETE, OPTIONS");
         httpResponse.setHeader("Access-Control-Allow-Headers", 
-            "Origin, Content-Type, Accept, Authorization, X-Requested-With");
+            "Origin, Content-Type, Accept, Authorization, X-Requested-With, Range, If-Range, If-None-Match");
+        httpResponse.setHeader("Access-Control-Expose-Headers",
+            "X-Total-Count, X-Total-Count-Exact, ETag, Content-Range, Accept-Ranges, Content-Length");
         httpResponse.setHeader("Access-Control-Allow-Credentials", "true");
         httpResponse.setHeader("Access-Control-Max-Age", "3600");
         
@@ -0,0 +1,38 @@
+package com.library.filter;
+
+import com.library.service.StartupTimings;
+import jakarta.ejb.EJB;
+import jakarta.servlet.*;
+import jakarta.servlet.annotation.WebFilter;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Filter that records the duration of the first request served after deployment
+ * as the final startup phase
+ */
+@WebFilter("/*")
+public class FirstRequestFilter implements Filter {
+    
+    private final AtomicBoolean firstRequest = new AtomicBoolean(true);
+    
+    @EJB
+    private StartupTimings startupTimings;
+    
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        
+        if (!firstRequest.get() || !firstRequest.compareAndSet(true, false)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            startupTimings.record("first request", System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.library.filter;
+
+import com.library.dto.ApiResponse;
+import com.library.store.StorageMode;
+import jakarta.json.bind.Jsonb;
+import jakarta.json.bind.JsonbBuilder;
+import jakarta.servlet.*;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * Filter answering 501 Not Implemented for the endpoints that need PostgreSQL when the
+ * books are kept in the off-heap store (library.storage=offheap)
+ */
+@WebFilter("/api/*")
+public class StorageModeFilter implements Filter {
+
+    private static final Pattern DATABASE_ONLY = Pattern.compile(
+        "/api/(circulation|dedupe|admin/catalog)(/.*)?|/api/books/(bulk|[^/]+/history)/?");
+
+    private static final Jsonb JSONB = JsonbBuilder.create();
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        if (!StorageMode.isOffHeap()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        String path = httpRequest.getRequestURI().substring(httpRequest.getContextPath().length());
+        // Preflight requests are left to CorsFilter
+        if ("OPTIONS".equalsIgnoreCase(httpRequest.getMethod()) || !DATABASE_ONLY.matcher(path).matches()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        httpResponse.setStatus(HttpServletResponse.SC_NOT_IMPLEMENTED);
+        httpResponse.setContentType("application/json");
+        httpResponse.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        httpResponse.getWriter().write(JSONB.toJson(ApiResponse.error(
+            "Not available", "This feature needs the jpa storage engine (library.storage=" + StorageMode.get() + ")")));
+    }
+}
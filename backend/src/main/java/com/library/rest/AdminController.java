@@ -0,0 +1,145 @@
+package com.library.rest;
+
+import com.library.dto.ApiResponse;
+import com.library.dto.CacheStatsDTO;
+import com.library.dto.CatalogGenerationDTO;
+import com.library.dto.CatalogGenerationRequest;
+import com.library.dto.StartupPhaseDTO;
+import com.library.exception.JobConflictException;
+import com.library.service.BookCacheCoherenceListener;
+import com.library.service.CatalogGeneratorService;
+import com.library.service.StartupTimings;
+import jakarta.ejb.EJB;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+/**
+ * REST Controller for operational/administrative endpoints
+ */
+@Path("/admin")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class AdminController {
+    
+    private static final Logger LOGGER = Logger.getLogger(AdminController.class.getName());
+    
+    @EJB
+    private StartupTimings startupTimings;
+    
+    @EJB
+    private BookCacheCoherenceListener coherenceListener;
+    
+    @EJB
+    private CatalogGeneratorService catalogGeneratorService;
+    
+    /**
+     * Get the timings of the startup phases
+     * GET /api/admin/startup
+     */
+    @GET
+    @Path("/startup")
+    public Response getStartupTimings() {
+        try {
+            List<StartupPhaseDTO> phases = startupTimings.getPhases();
+            
+            return Response.ok(ApiResponse.success(phases, "Startup timings retrieved successfully"))
+                          .build();
+                          
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error fetching startup timings: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to fetch startup timings"))
+                          .build();
+        }
+    }
+    
+    /**
+     * Get book cache and cross-node invalidation metrics for this node
+     * GET /api/admin/cache
+     */
+    @GET
+    @Path("/cache")
+    public Response getCacheStats() {
+        try {
+            CacheStatsDTO stats = coherenceListener.getStats();
+            
+            return Response.ok(ApiResponse.success(stats, "Cache statistics retrieved successfully"))
+                          .build();
+                          
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error fetching cache statistics: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to fetch cache statistics"))
+                          .build();
+        }
+    }
+    
+    /**
+     * Generate a synthetic catalog in the background (requires library.generator.enabled)
+     * POST /api/admin/catalog/generate
+     */
+    @POST
+    @Path("/catalog/generate")
+    public Response generateCatalog(CatalogGenerationRequest request) {
+        try {
+            if (!catalogGeneratorService.isEnabled()) {
+                return Response.status(Response.Status.FORBIDDEN)
+                              .entity(ApiResponse.error("Generator disabled",
+                                                        "Set library.generator.enabled=true to allow catalog generation"))
+                              .build();
+            }
+            LOGGER.info("REST: Starting catalog generation");
+            CatalogGenerationDTO status = catalogGeneratorService.start(request);
+            
+            return Response.status(Response.Status.ACCEPTED)
+                          .entity(ApiResponse.success(status, "Catalog generation started"))
+                          .build();
+                          
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                          .entity(ApiResponse.error("Invalid request", e.getMessage()))
+                          .build();
+                          
+        } catch (JobConflictException e) {
+            return Response.status(Response.Status.CONFLICT)
+                          .entity(ApiResponse.error("Job conflict", e.getMessage()))
+                          .build();
+                          
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error starting catalog generation: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to start catalog generation"))
+                          .build();
+        }
+    }
+    
+    /**
+     * Get the status of the latest catalog generation on this node
+     * GET /api/admin/catalog/generate
+     */
+    @GET
+    @Path("/catalog/generate")
+    public Response getCatalogGeneration() {
+        try {
+            CatalogGenerationDTO status = catalogGeneratorService.getStatus();
+            if (status == null) {
+                return Response.status(Response.Status.NOT_FOUND)
+                              .entity(ApiResponse.error("Not found", "No catalog generation has run on this node"))
+                              .build();
+            }
+            
+            return Response.ok(ApiResponse.success(status, "Catalog generation status retrieved successfully"))
+                          .build();
+                          
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error fetching catalog generation status: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to fetch catalog generation status"))
+                          .build();
+        }
+    }
+}
\ No newline at end of file
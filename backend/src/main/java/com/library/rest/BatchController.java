@@ -0,0 +1,67 @@
+package com.library.rest;
+
+import com.library.dto.ApiResponse;
+import com.library.service.BookBatchService;
+import jakarta.ejb.EJB;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.InputStream;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+/**
+ * REST Controller for executing many book operations in one request
+ */
+@Path("/batch")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class BatchController {
+    
+    private static final Logger LOGGER = Logger.getLogger(BatchController.class.getName());
+    
+    @EJB
+    private BookBatchService bookBatchService;
+    
+    /**
+     * Execute an ordered list of book operations
+     * POST /api/batch?transaction=shared|independent
+     *
+     * The response status is sent before the first operation runs, so it is 200 whenever the
+     * batch starts. Failures after that are reported inside the stream: per operation in its
+     * result's status and error, and for the batch as a whole (malformed request, server
+     * error) in the top-level "error" and "committed" fields.
+     */
+    @POST
+    public Response executeBatch(@QueryParam("transaction") @DefaultValue("independent") String transaction,
+                                 InputStream body) {
+        try {
+            LOGGER.info("REST: Executing batch with " + transaction + " transaction");
+            boolean shared;
+            if ("shared".equalsIgnoreCase(transaction)) {
+                shared = true;
+            } else if ("independent".equalsIgnoreCase(transaction)) {
+                shared = false;
+            } else {
+                throw new IllegalArgumentException("transaction must be 'shared' or 'independent'");
+            }
+            
+            // Operations are read and results written while the response streams
+            StreamingOutput output = out -> bookBatchService.execute(body, out, shared);
+            return Response.ok(output).build();
+                          
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Invalid batch request: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                          .entity(ApiResponse.error("Invalid request", e.getMessage()))
+                          .build();
+                          
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error executing batch: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to execute batch"))
+                          .build();
+        }
+    }
+}
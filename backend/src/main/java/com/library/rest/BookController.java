@@ -2,14 +2,27 @@ package com.library.rest;
 
 import com.library.dto.ApiResponse;
 import com.library.dto.BookDTO;
+import com.library.dto.BookHistoryDTO;
+import com.library.dto.BulkBookRequest;
+import com.library.dto.BulkResultDTO;
+import com.library.dto.TotalCountDTO;
 import com.library.exception.BookNotFoundException;
+import com.library.exception.CirculationConflictException;
 import com.library.exception.DuplicateIsbnException;
+import com.library.exception.FeatureUnavailableException;
+import com.library.service.BookBulkService;
+import com.library.service.BookCountService;
 import com.library.service.BookService;
 import jakarta.ejb.EJB;
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import java.io.InputStream;
 import java.util.List;
 import java.util.logging.Logger;
 import java.util.logging.Level;
@@ -24,9 +37,17 @@ public class BookController {
     
     private static final Logger LOGGER = Logger.getLogger(BookController.class.getName());
     
+    public static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+    
     @EJB
     private BookService bookService;
     
+    @EJB
+    private BookBulkService bookBulkService;
+    
+    @EJB
+    private BookCountService bookCountService;
+    
     /**
      * Create a new book
      * POST /api/books
@@ -68,16 +89,23 @@ public class BookController {
     }
     
     /**
-     * Get all books
-     * GET /api/books
+     * Get all books ordered by title, optionally one page at a time. Titles sort in the
+     * database collation, or by code point ("C" collation) once books is partitioned.
+     * GET /api/books?offset=0&limit=50
      */
     @GET
-    public Response getAllBooks() {
+    public Response getAllBooks(@QueryParam("offset") Integer offset, @QueryParam("limit") Integer limit) {
         try {
             LOGGER.info("REST: Fetching all books");
-            List<BookDTO> books = bookService.getAllBooks();
+            List<BookDTO> books = bookService.getAllBooks(offset, limit);
+            TotalCountDTO totalCount = bookCountService.countAll(offset, limit, books.size());
             
-            return Response.ok(ApiResponse.success(books, "Books retrieved successfully"))
+            return withTotalCount(ApiResponse.success(books, "Books retrieved successfully"), totalCount);
+                          
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Invalid paging parameter: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                          .entity(ApiResponse.error("Invalid request", e.getMessage()))
                           .build();
                           
         } catch (Exception e) {
@@ -122,6 +150,46 @@ public class BookController {
         }
     }
     
+    /**
+     * Get the change history of a book
+     * GET /api/books/{id}/history
+     */
+    @GET
+    @Path("/{id}/history")
+    public Response getBookHistory(@PathParam("id") Long id) {
+        try {
+            LOGGER.info("REST: Fetching history of book with ID: " + id);
+            List<BookHistoryDTO> history = bookService.getBookHistory(id);
+            
+            return Response.ok(ApiResponse.success(history, "Book history retrieved successfully"))
+                          .build();
+                          
+        } catch (BookNotFoundException e) {
+            LOGGER.log(Level.WARNING, "Book not found for history: " + e.getMessage());
+            return Response.status(Response.Status.NOT_FOUND)
+                          .entity(ApiResponse.error("Book not found", e.getMessage()))
+                          .build();
+                          
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Invalid book ID for history: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                          .entity(ApiResponse.error("Invalid request", e.getMessage()))
+                          .build();
+                          
+        } catch (FeatureUnavailableException e) {
+            LOGGER.log(Level.WARNING, "Book history not available: " + e.getMessage());
+            return Response.status(Response.Status.NOT_IMPLEMENTED)
+                          .entity(ApiResponse.error("Not available", e.getMessage()))
+                          .build();
+                          
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error fetching history of book with ID " + id + ": " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to fetch book history"))
+                          .build();
+        }
+    }
+    
     /**
      * Update an existing book
      * PUT /api/books/{id}
@@ -168,6 +236,59 @@ public class BookController {
         }
     }
     
+    /**
+     * Change some properties of a book with a JSON Merge Patch
+     * PATCH /api/books/{id}
+     */
+    @PATCH
+    @Path("/{id}")
+    @Consumes(MERGE_PATCH_JSON)
+    public Response patchBook(@PathParam("id") Long id, InputStream body) {
+        try {
+            LOGGER.info("REST: Patching book with ID: " + id);
+            JsonObject patch;
+            try (JsonReader reader = Json.createReader(body)) {
+                patch = reader.readObject();
+            } catch (JsonException e) {
+                throw new IllegalArgumentException("Patch must be a JSON object: " + e.getMessage());
+            }
+            BookDTO updatedBook = bookService.patchBook(id, patch);
+            
+            return Response.ok(ApiResponse.success(updatedBook, "Book updated successfully"))
+                          .build();
+                          
+        } catch (BookNotFoundException e) {
+            LOGGER.log(Level.WARNING, "Book not found for patch: " + e.getMessage());
+            return Response.status(Response.Status.NOT_FOUND)
+                          .entity(ApiResponse.error("Book not found", e.getMessage()))
+                          .build();
+                          
+        } catch (ConstraintViolationException e) {
+            LOGGER.log(Level.WARNING, "Validation error patching book: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                          .entity(ApiResponse.error("Validation failed", e.getMessage()))
+                          .build();
+                          
+        } catch (DuplicateIsbnException e) {
+            LOGGER.log(Level.WARNING, "Duplicate ISBN error on patch: " + e.getMessage());
+            return Response.status(Response.Status.CONFLICT)
+                          .entity(ApiResponse.error("Duplicate ISBN", e.getMessage()))
+                          .build();
+                          
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Invalid argument for patch: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                          .entity(ApiResponse.error("Invalid request", e.getMessage()))
+                          .build();
+                          
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error patching book with ID " + id + ": " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to update book"))
+                          .build();
+        }
+    }
+    
     /**
      * Delete a book
      * DELETE /api/books/{id}
@@ -194,6 +315,12 @@ public class BookController {
                           .entity(ApiResponse.error("Invalid request", e.getMessage()))
                           .build();
                           
+        } catch (CirculationConflictException e) {
+            LOGGER.log(Level.WARNING, "Book not deleted: " + e.getMessage());
+            return Response.status(Response.Status.CONFLICT)
+                          .entity(ApiResponse.error("Book cannot be deleted", e.getMessage()))
+                          .build();
+                          
         } catch (Exception e) {
             LOGGER.log(Level.SEVERE, "Error deleting book with ID " + id + ": " + e.getMessage(), e);
             return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
@@ -203,18 +330,20 @@ public class BookController {
     }
     
     /**
-     * Search books by author
-     * GET /api/books/search/author?q={author}
+     * Search books by author, ordered by title like getAllBooks, optionally one page at a time
+     * GET /api/books/search/author?q={author}&offset=0&limit=50
      */
     @GET
     @Path("/search/author")
-    public Response searchBooksByAuthor(@QueryParam("q") String author) {
+    public Response searchBooksByAuthor(@QueryParam("q") String author,
+                                        @QueryParam("offset") Integer offset,
+                                        @QueryParam("limit") Integer limit) {
         try {
             LOGGER.info("REST: Searching books by author: " + author);
-            List<BookDTO> books = bookService.searchBooksByAuthor(author);
+            List<BookDTO> books = bookService.searchBooksByAuthor(author, offset, limit);
+            TotalCountDTO totalCount = bookCountService.countByAuthor(author, offset, limit, books.size());
             
-            return Response.ok(ApiResponse.success(books, "Books search completed"))
-                          .build();
+            return withTotalCount(ApiResponse.success(books, "Books search completed"), totalCount);
                           
         } catch (IllegalArgumentException e) {
             LOGGER.log(Level.WARNING, "Invalid search parameter: " + e.getMessage());
@@ -229,4 +358,89 @@ public class BookController {
                           .build();
         }
     }
+    
+    /**
+     * Update many books at once, selected by IDs or by filter
+     * PATCH /api/books/bulk
+     */
+    @PATCH
+    @Path("/bulk")
+    public Response bulkUpdateBooks(BulkBookRequest request) {
+        try {
+            LOGGER.info("REST: Bulk updating books");
+            BulkResultDTO result = bookBulkService.bulkUpdate(request);
+            
+            return Response.ok(ApiResponse.success(result, bulkMessage("updated", result)))
+                          .build();
+                          
+        } catch (ConstraintViolationException e) {
+            LOGGER.log(Level.WARNING, "Validation error in bulk update: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                          .entity(ApiResponse.error("Validation failed", e.getMessage()))
+                          .build();
+                          
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Invalid bulk update request: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                          .entity(ApiResponse.error("Invalid request", e.getMessage()))
+                          .build();
+                          
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error in bulk update: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to bulk update books"))
+                          .build();
+        }
+    }
+    
+    /**
+     * Delete many books at once, selected by IDs or by filter
+     * DELETE /api/books/bulk
+     */
+    @DELETE
+    @Path("/bulk")
+    public Response bulkDeleteBooks(BulkBookRequest request) {
+        try {
+            LOGGER.info("REST: Bulk deleting books");
+            BulkResultDTO result = bookBulkService.bulkDelete(request);
+            
+            return Response.ok(ApiResponse.success(result, bulkMessage("deleted", result)))
+                          .build();
+                          
+        } catch (IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, "Invalid bulk delete request: " + e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST)
+                          .entity(ApiResponse.error("Invalid request", e.getMessage()))
+                          .build();
+                          
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error in bulk delete: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to bulk delete books"))
+                          .build();
+        }
+    }
+    
+    /**
+     * Build a 200 response carrying the total count in the body and in the
+     * X-Total-Count / X-Total-Count-Exact headers (omitted if it could not be determined)
+     */
+    private Response withTotalCount(ApiResponse<List<BookDTO>> body, TotalCountDTO totalCount) {
+        if (totalCount == null) {
+            return Response.ok(body).build();
+        }
+        body.setTotalCount(totalCount);
+        return Response.ok(body)
+                      .header("X-Total-Count", totalCount.getTotal())
+                      .header("X-Total-Count-Exact", totalCount.isExact())
+                      .build();
+    }
+    
+    private static String bulkMessage(String action, BulkResultDTO result) {
+        String message = result.getAffected() + " books " + action;
+        if (!result.getFailures().isEmpty()) {
+            message += ", " + result.getFailures().size() + " failed";
+        }
+        return message;
+    }
 }
@@ -0,0 +1,243 @@
+package com.library.rest;
+
+import com.library.dto.ApiResponse;
+import com.library.dto.BookDTO;
+import com.library.exception.BookNotFoundException;
+import com.library.service.BookService;
+import com.library.service.CoverService;
+import com.library.util.ByteRange;
+import com.library.util.CoverStore;
+import jakarta.ejb.EJB;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.CacheControl;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Request;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+/**
+ * REST Controller for book cover images
+ */
+@Path("/books/{id}/cover")
+@Produces(MediaType.APPLICATION_JSON)
+public class BookCoverController {
+
+    private static final Logger LOGGER = Logger.getLogger(BookCoverController.class.getName());
+
+    private static final int ONE_YEAR_SECONDS = 365 * 24 * 60 * 60;
+
+    @EJB
+    private BookService bookService;
+
+    @EJB
+    private CoverService coverService;
+
+    /**
+     * Upload or replace the cover of a book
+     * PUT /api/books/{id}/cover with the image as the request body
+     */
+    @PUT
+    @Consumes({"image/jpeg", "image/png", "image/gif", "image/webp"})
+    public Response uploadCover(@PathParam("id") Long id, InputStream body) {
+        try {
+            LOGGER.info("REST: Uploading cover of book " + id);
+            bookService.getBookById(id); // Fail before storing anything for a missing book
+
+            CoverStore.StoredImage stored = coverService.store(body);
+            BookDTO book = bookService.updateCover(id, stored.getHash(), stored.getContentType());
+
+            return Response.ok(ApiResponse.success(book, "Cover uploaded successfully"))
+                          .build();
+
+        } catch (BookNotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                          .entity(ApiResponse.error("Book not found", e.getMessage()))
+                          .build();
+
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                          .entity(ApiResponse.error("Invalid cover image", e.getMessage()))
+                          .build();
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error uploading cover: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to upload cover"))
+                          .build();
+        }
+    }
+
+    /**
+     * Download the cover of a book, whole or as a byte range
+     * GET /api/books/{id}/cover?size=original|thumbnail&v={coverHash}
+     *
+     * With v set to the book's current coverHash the response may be cached for a year,
+     * since that URL always names the same image. Without it the cover is revalidated
+     * with its ETag, which is cheap: unchanged covers answer 304 Not Modified.
+     */
+    @GET
+    @Produces(MediaType.WILDCARD)
+    public Response downloadCover(@PathParam("id") Long id,
+                                  @QueryParam("size") @DefaultValue("original") String size,
+                                  @QueryParam("v") String version,
+                                  @HeaderParam("Range") String range,
+                                  @HeaderParam("If-Range") String ifRange,
+                                  @Context Request request) {
+        try {
+            boolean thumbnail;
+            if ("thumbnail".equalsIgnoreCase(size)) {
+                thumbnail = true;
+            } else if ("original".equalsIgnoreCase(size)) {
+                thumbnail = false;
+            } else {
+                throw new IllegalArgumentException("size must be 'original' or 'thumbnail'");
+            }
+
+            BookDTO book = bookService.getBookById(id);
+            String hash = book.getCoverHash();
+            if (hash == null) {
+                return jsonError(Response.Status.NOT_FOUND, "Cover not found", "Book " + id + " has no cover");
+            }
+
+            java.nio.file.Path file = thumbnail ? coverService.getThumbnail(hash) : null;
+            String contentType = CoverStore.THUMBNAIL_CONTENT_TYPE;
+            EntityTag etag = new EntityTag(hash + "-t" + coverService.getThumbnailWidth());
+            boolean pendingThumbnail = thumbnail && file == null;
+            if (file == null) {
+                file = coverService.getOriginal(hash);
+                contentType = book.getCoverContentType();
+                etag = new EntityTag(hash);
+            }
+
+            CacheControl cacheControl = new CacheControl();
+            if (pendingThumbnail) {
+                cacheControl.setMaxAge(60); // Stand-in until the thumbnail is rendered
+            } else if (hash.equals(version)) {
+                cacheControl.setMaxAge(ONE_YEAR_SECONDS);
+                cacheControl.getCacheExtension().put("immutable", null);
+            } else {
+                cacheControl.setNoCache(true);
+            }
+
+            Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+            if (notModified != null) {
+                return notModified.tag(etag).cacheControl(cacheControl).build();
+            }
+
+            long length = Files.size(file);
+            // A range only applies to the representation the client already has part of
+            ByteRange byteRange = ifRange == null || ifRange.equals(strongTag(etag)) ? ByteRange.parse(range, length) : null;
+            if (byteRange == ByteRange.UNSATISFIABLE) {
+                return Response.status(Response.Status.REQUESTED_RANGE_NOT_SATISFIABLE)
+                              .header("Content-Range", byteRange.toContentRange(length))
+                              .header("Accept-Ranges", "bytes")
+                              .build();
+            }
+
+            long start = byteRange != null ? byteRange.getStart() : 0;
+            long count = byteRange != null ? byteRange.getLength() : length;
+            Response.ResponseBuilder builder = byteRange != null
+                ? Response.status(Response.Status.PARTIAL_CONTENT).header("Content-Range", byteRange.toContentRange(length))
+                : Response.ok();
+            return builder.entity(transfer(file, start, count))
+                          .type(contentType)
+                          .header(HttpHeaders.CONTENT_LENGTH, count)
+                          .header("Accept-Ranges", "bytes")
+                          .tag(etag)
+                          .cacheControl(cacheControl)
+                          .build();
+
+        } catch (BookNotFoundException e) {
+            return jsonError(Response.Status.NOT_FOUND, "Book not found", e.getMessage());
+
+        } catch (IllegalArgumentException e) {
+            return jsonError(Response.Status.BAD_REQUEST, "Invalid request", e.getMessage());
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error downloading cover: " + e.getMessage(), e);
+            return jsonError(Response.Status.INTERNAL_SERVER_ERROR, "Internal server error", "Failed to download cover");
+        }
+    }
+
+    /**
+     * Remove the cover of a book
+     * DELETE /api/books/{id}/cover
+     */
+    @DELETE
+    public Response deleteCover(@PathParam("id") Long id) {
+        try {
+            LOGGER.info("REST: Removing cover of book " + id);
+            BookDTO book = bookService.updateCover(id, null, null);
+
+            return Response.ok(ApiResponse.success(book, "Cover removed successfully"))
+                          .build();
+
+        } catch (BookNotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                          .entity(ApiResponse.error("Book not found", e.getMessage()))
+                          .build();
+
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                          .entity(ApiResponse.error("Invalid request", e.getMessage()))
+                          .build();
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error removing cover: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to remove cover"))
+                          .build();
+        }
+    }
+
+    /**
+     * The header form of a strong entity tag. If-Range uses the strong comparison, so a weak
+     * tag (W/"...") never matches.
+     */
+    private static String strongTag(EntityTag etag) {
+        return etag.isWeak() ? null : '"' + etag.getValue() + '"';
+    }
+
+    /**
+     * Stream part of a file with FileChannel.transferTo. The target wraps the servlet output
+     * stream, which is not a file or socket channel, so this is not zero-copy: the JDK reads
+     * the file through a small buffer of its own. It only keeps the whole image out of the
+     * heap. Real sendfile would need the container's native API (Undertow), not JAX-RS.
+     */
+    private static StreamingOutput transfer(java.nio.file.Path file, long start, long count) {
+        return out -> {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(out);
+                long position = start;
+                long remaining = count;
+                while (remaining > 0) {
+                    long sent = channel.transferTo(position, remaining, target);
+                    if (sent <= 0) {
+                        throw new IOException("Cover file " + file + " ended early");
+                    }
+                    position += sent;
+                    remaining -= sent;
+                }
+            }
+        };
+    }
+
+    private static Response jsonError(Response.Status status, String message, String error) {
+        return Response.status(status)
+                      .type(MediaType.APPLICATION_JSON_TYPE)
+                      .entity(ApiResponse.error(message, error))
+                      .build();
+    }
+}
@@ -0,0 +1,194 @@
+package com.library.rest;
+
+import com.library.dto.ApiResponse;
+import com.library.dto.AvailabilityDTO;
+import com.library.dto.CheckoutRequest;
+import com.library.dto.LoanDTO;
+import com.library.exception.BookNotFoundException;
+import com.library.exception.CirculationConflictException;
+import com.library.exception.LoanNotFoundException;
+import com.library.service.CirculationService;
+import jakarta.ejb.EJB;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+/**
+ * REST Controller for book copies, checkouts and returns
+ */
+@Path("/circulation")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class CirculationController {
+
+    private static final Logger LOGGER = Logger.getLogger(CirculationController.class.getName());
+
+    @EJB
+    private CirculationService circulationService;
+
+    /**
+     * Add copies of a book
+     * POST /api/circulation/books/{bookId}/copies?count=3
+     */
+    @POST
+    @Path("/books/{bookId}/copies")
+    public Response addCopies(@PathParam("bookId") Long bookId, @QueryParam("count") @DefaultValue("1") int count) {
+        try {
+            LOGGER.info("REST: Adding " + count + " copies of book " + bookId);
+            AvailabilityDTO availability = circulationService.addCopies(bookId, count);
+
+            return Response.status(Response.Status.CREATED)
+                          .entity(ApiResponse.success(availability, "Copies added successfully"))
+                          .build();
+
+        } catch (BookNotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                          .entity(ApiResponse.error("Book not found", e.getMessage()))
+                          .build();
+
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                          .entity(ApiResponse.error("Invalid request", e.getMessage()))
+                          .build();
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error adding copies: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to add copies"))
+                          .build();
+        }
+    }
+
+    /**
+     * Get how many copies of a book exist and are available
+     * GET /api/circulation/books/{bookId}/availability
+     */
+    @GET
+    @Path("/books/{bookId}/availability")
+    public Response getAvailability(@PathParam("bookId") Long bookId) {
+        try {
+            AvailabilityDTO availability = circulationService.getAvailability(bookId);
+
+            return Response.ok(ApiResponse.success(availability, "Availability retrieved successfully"))
+                          .build();
+
+        } catch (BookNotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                          .entity(ApiResponse.error("Book not found", e.getMessage()))
+                          .build();
+
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                          .entity(ApiResponse.error("Invalid request", e.getMessage()))
+                          .build();
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error fetching availability: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to fetch availability"))
+                          .build();
+        }
+    }
+
+    /**
+     * Check out any available copy of a book
+     * POST /api/circulation/checkout
+     */
+    @POST
+    @Path("/checkout")
+    public Response checkout(CheckoutRequest request) {
+        try {
+            LoanDTO loan = circulationService.checkout(request);
+
+            return Response.status(Response.Status.CREATED)
+                          .entity(ApiResponse.success(loan, "Book checked out successfully"))
+                          .build();
+
+        } catch (BookNotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                          .entity(ApiResponse.error("Book not found", e.getMessage()))
+                          .build();
+
+        } catch (CirculationConflictException e) {
+            return Response.status(Response.Status.CONFLICT)
+                          .entity(ApiResponse.error("Checkout not possible", e.getMessage()))
+                          .build();
+
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                          .entity(ApiResponse.error("Invalid request", e.getMessage()))
+                          .build();
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error checking out book: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to check out book"))
+                          .build();
+        }
+    }
+
+    /**
+     * Return a loaned copy
+     * POST /api/circulation/loans/{loanId}/return
+     */
+    @POST
+    @Path("/loans/{loanId}/return")
+    public Response returnLoan(@PathParam("loanId") Long loanId) {
+        try {
+            LoanDTO loan = circulationService.returnLoan(loanId);
+
+            return Response.ok(ApiResponse.success(loan, "Book returned successfully"))
+                          .build();
+
+        } catch (LoanNotFoundException e) {
+            return Response.status(Response.Status.NOT_FOUND)
+                          .entity(ApiResponse.error("Loan not found", e.getMessage()))
+                          .build();
+
+        } catch (CirculationConflictException e) {
+            return Response.status(Response.Status.CONFLICT)
+                          .entity(ApiResponse.error("Return not possible", e.getMessage()))
+                          .build();
+
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                          .entity(ApiResponse.error("Invalid request", e.getMessage()))
+                          .build();
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error returning loan: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to return book"))
+                          .build();
+        }
+    }
+
+    /**
+     * Get the open loans of a patron
+     * GET /api/circulation/patrons/{patronId}/loans
+     */
+    @GET
+    @Path("/patrons/{patronId}/loans")
+    public Response getOpenLoans(@PathParam("patronId") String patronId) {
+        try {
+            List<LoanDTO> loans = circulationService.getOpenLoans(patronId);
+
+            return Response.ok(ApiResponse.success(loans, "Loans retrieved successfully"))
+                          .build();
+
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                          .entity(ApiResponse.error("Invalid request", e.getMessage()))
+                          .build();
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error fetching loans: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to fetch loans"))
+                          .build();
+        }
+    }
+}
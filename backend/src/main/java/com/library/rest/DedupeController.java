@@ -0,0 +1,170 @@
+package com.library.rest;
+
+import com.library.dto.ApiResponse;
+import com.library.dto.DedupeJobDTO;
+import com.library.dto.DuplicateCandidateDTO;
+import com.library.exception.JobConflictException;
+import com.library.service.DuplicateDetectionService;
+import jakarta.ejb.EJB;
+import jakarta.ws.rs.*;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.logging.Level;
+
+/**
+ * REST Controller for duplicate detection jobs and their candidate pairs
+ */
+@Path("/dedupe")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class DedupeController {
+
+    private static final Logger LOGGER = Logger.getLogger(DedupeController.class.getName());
+
+    @EJB
+    private DuplicateDetectionService duplicateDetectionService;
+
+    /**
+     * Start a duplicate detection job in the background
+     * POST /api/dedupe/jobs
+     */
+    @POST
+    @Path("/jobs")
+    public Response startJob() {
+        try {
+            LOGGER.info("REST: Starting duplicate detection job");
+            DedupeJobDTO job = duplicateDetectionService.startJob();
+
+            return Response.status(Response.Status.ACCEPTED)
+                          .entity(ApiResponse.success(job, "Duplicate detection job started"))
+                          .build();
+
+        } catch (JobConflictException e) {
+            return Response.status(Response.Status.CONFLICT)
+                          .entity(ApiResponse.error("Job conflict", e.getMessage()))
+                          .build();
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error starting duplicate detection job: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to start duplicate detection job"))
+                          .build();
+        }
+    }
+
+    /**
+     * Get the most recent duplicate detection jobs
+     * GET /api/dedupe/jobs?limit=20
+     */
+    @GET
+    @Path("/jobs")
+    public Response getRecentJobs(@QueryParam("limit") @DefaultValue("20") int limit) {
+        try {
+            List<DedupeJobDTO> jobs = duplicateDetectionService.getRecentJobs(limit);
+
+            return Response.ok(ApiResponse.success(jobs, "Duplicate detection jobs retrieved successfully"))
+                          .build();
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error fetching duplicate detection jobs: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to fetch duplicate detection jobs"))
+                          .build();
+        }
+    }
+
+    /**
+     * Get the status and progress of a job
+     * GET /api/dedupe/jobs/{id}
+     */
+    @GET
+    @Path("/jobs/{id}")
+    public Response getJob(@PathParam("id") Long id) {
+        try {
+            DedupeJobDTO job = duplicateDetectionService.getJob(id);
+            if (job == null) {
+                return jobNotFound(id);
+            }
+
+            return Response.ok(ApiResponse.success(job, "Duplicate detection job retrieved successfully"))
+                          .build();
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error fetching duplicate detection job: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to fetch duplicate detection job"))
+                          .build();
+        }
+    }
+
+    /**
+     * Cancel a running job; pairs found so far are kept
+     * DELETE /api/dedupe/jobs/{id}
+     */
+    @DELETE
+    @Path("/jobs/{id}")
+    public Response cancelJob(@PathParam("id") Long id) {
+        try {
+            LOGGER.info("REST: Cancelling duplicate detection job " + id);
+            DedupeJobDTO job = duplicateDetectionService.cancelJob(id);
+            if (job == null) {
+                return jobNotFound(id);
+            }
+
+            return Response.status(Response.Status.ACCEPTED)
+                          .entity(ApiResponse.success(job, "Cancellation requested"))
+                          .build();
+
+        } catch (JobConflictException e) {
+            return Response.status(Response.Status.CONFLICT)
+                          .entity(ApiResponse.error("Job conflict", e.getMessage()))
+                          .build();
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error cancelling duplicate detection job: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to cancel duplicate detection job"))
+                          .build();
+        }
+    }
+
+    /**
+     * Get candidate duplicate pairs reported by a job, best score first
+     * GET /api/dedupe/jobs/{id}/candidates?minScore=0.95&offset=0&limit=100
+     */
+    @GET
+    @Path("/jobs/{id}/candidates")
+    public Response getCandidates(@PathParam("id") Long id,
+                                  @QueryParam("minScore") @DefaultValue("0") double minScore,
+                                  @QueryParam("offset") @DefaultValue("0") int offset,
+                                  @QueryParam("limit") @DefaultValue("100") int limit) {
+        try {
+            if (duplicateDetectionService.getJob(id) == null) {
+                return jobNotFound(id);
+            }
+            List<DuplicateCandidateDTO> candidates = duplicateDetectionService.getCandidates(id, minScore, offset, limit);
+
+            return Response.ok(ApiResponse.success(candidates, "Duplicate candidates retrieved successfully"))
+                          .build();
+
+        } catch (IllegalArgumentException e) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                          .entity(ApiResponse.error("Invalid request", e.getMessage()))
+                          .build();
+
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error fetching duplicate candidates: " + e.getMessage(), e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                          .entity(ApiResponse.error("Internal server error", "Failed to fetch duplicate candidates"))
+                          .build();
+        }
+    }
+
+    private Response jobNotFound(Long id) {
+        return Response.status(Response.Status.NOT_FOUND)
+                      .entity(ApiResponse.error("Job not found", "Duplicate detection job not found with ID: " + id))
+                      .build();
+    }
+}
@@ -0,0 +1,280 @@
+package com.library.service;
+
+import com.library.dto.ApiResponse;
+import com.library.dto.BookDTO;
+import com.library.exception.BookNotFoundException;
+import com.library.exception.CirculationConflictException;
+import com.library.exception.DuplicateIsbnException;
+import com.library.exception.FeatureUnavailableException;
+import com.library.util.AppConfig;
+import jakarta.annotation.Resource;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionManagement;
+import jakarta.ejb.TransactionManagementType;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonValue;
+import jakarta.json.bind.JsonbBuilder;
+import jakarta.json.bind.JsonbException;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonParser;
+import jakarta.json.stream.JsonParsingException;
+import jakarta.transaction.Status;
+import jakarta.transaction.UserTransaction;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.ws.rs.core.Response;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.eclipse.yasson.YassonJsonb;
+
+/**
+ * Stateless EJB executing an ordered list of book operations from one request.
+ *
+ * The request body is a JSON array of operations, read one at a time from the stream; the
+ * result of each operation is written to the response as soon as it completes, so neither
+ * side of a large batch is buffered in memory. In shared mode all operations run in one
+ * transaction that stops at the first failure and is rolled back; in independent mode each
+ * operation commits or fails on its own. Results are serialized straight into the response
+ * stream, with no intermediate JSON text.
+ *
+ * Operations: {"op": "get|create|update|delete|search|history", "id": ..., "book": {...}, "q": "..."}
+ */
+@Stateless
+@TransactionManagement(TransactionManagementType.BEAN)
+public class BookBatchService {
+
+    private static final Logger LOGGER = Logger.getLogger(BookBatchService.class.getName());
+
+    // Yasson, bundled with the application, can bind to and from JSON-P streams and structures
+    private static final YassonJsonb JSONB = (YassonJsonb) JsonbBuilder.create();
+
+    // Status of operations not executed because an earlier one failed the shared transaction
+    private static final int FAILED_DEPENDENCY = 424;
+
+    private final int maxOperations = AppConfig.getInt("library.batch.max-operations", 10_000);
+
+    @EJB
+    private BookService bookService;
+
+    @Resource
+    private UserTransaction userTransaction;
+
+    /**
+     * Read operations from the input stream, execute them and stream the results
+     */
+    public void execute(InputStream in, OutputStream out, boolean sharedTransaction) {
+        int succeeded = 0;
+        int failed = 0;
+        int skipped = 0;
+        boolean committed = true;
+        String error = null;
+
+        try (JsonParser parser = Json.createParser(in);
+             JsonGenerator generator = Json.createGenerator(out)) {
+
+            generator.writeStartObject()
+                     .write("transaction", sharedTransaction ? "shared" : "independent")
+                     .writeStartArray("results");
+
+            if (sharedTransaction) {
+                userTransaction.begin();
+            }
+            try {
+                if (!parser.hasNext() || parser.next() != JsonParser.Event.START_ARRAY) {
+                    throw new IllegalArgumentException("Batch request body must be a JSON array of operations");
+                }
+
+                int index = 0;
+                boolean aborted = false;
+                JsonParser.Event event;
+                while ((event = parser.next()) != JsonParser.Event.END_ARRAY) {
+                    if (event != JsonParser.Event.START_OBJECT) {
+                        throw new IllegalArgumentException("Operation " + index + " must be a JSON object");
+                    }
+                    JsonObject operation = parser.getObject();
+                    String op = operation.getString("op", "");
+
+                    if (aborted) {
+                        writeResult(generator, index, op, FAILED_DEPENDENCY,
+                                    ApiResponse.error("Operation skipped", "Shared transaction rolled back"));
+                        skipped++;
+                    } else if (index >= maxOperations) {
+                        writeResult(generator, index, op, Response.Status.BAD_REQUEST.getStatusCode(),
+                                    ApiResponse.error("Operation skipped", "Batch exceeds " + maxOperations + " operations"));
+                        skipped++;
+                    } else {
+                        OperationResult result = executeOperation(op, operation);
+                        writeResult(generator, index, op, result.status, result.response);
+                        if (result.response.isSuccess()) {
+                            succeeded++;
+                        } else {
+                            failed++;
+                            aborted = sharedTransaction;
+                        }
+                    }
+                    generator.flush();
+                    index++;
+                }
+
+                if (sharedTransaction) {
+                    if (aborted || userTransaction.getStatus() == Status.STATUS_MARKED_ROLLBACK) {
+                        userTransaction.rollback();
+                        committed = false;
+                    } else {
+                        userTransaction.commit();
+                    }
+                }
+
+            } catch (JsonParsingException | IllegalArgumentException e) {
+                error = "Malformed batch request: " + e.getMessage();
+                committed = rollbackQuietly(sharedTransaction);
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "Error executing batch: " + e.getMessage(), e);
+                error = "Failed to execute batch";
+                committed = rollbackQuietly(sharedTransaction);
+            }
+
+            generator.writeEnd()
+                     .write("committed", committed)
+                     .write("succeeded", succeeded)
+                     .write("failed", failed)
+                     .write("skipped", skipped);
+            if (error != null) {
+                generator.write("error", error);
+            }
+            generator.writeEnd();
+
+        } catch (Exception e) {
+            // Response already started; nothing more can be reported to the client
+            LOGGER.log(Level.SEVERE, "Error writing batch response: " + e.getMessage(), e);
+            rollbackQuietly(sharedTransaction);
+        }
+
+        LOGGER.info("Batch finished: " + succeeded + " succeeded, " + failed + " failed, " + skipped + " skipped");
+    }
+
+    /**
+     * Execute one operation, mapping errors to HTTP statuses as BookController does
+     */
+    private OperationResult executeOperation(String op, JsonObject operation) {
+        try {
+            switch (op) {
+                case "get":
+                    return OperationResult.ok(ApiResponse.success(bookService.getBookById(id(operation)),
+                                                                  "Book retrieved successfully"));
+                case "create":
+                    return new OperationResult(Response.Status.CREATED.getStatusCode(),
+                                               ApiResponse.success(bookService.createBook(book(operation)),
+                                                                   "Book created successfully"));
+                case "update":
+                    return OperationResult.ok(ApiResponse.success(bookService.updateBook(id(operation), book(operation)),
+                                                                  "Book updated successfully"));
+                case "delete":
+                    bookService.deleteBook(id(operation));
+                    return OperationResult.ok(ApiResponse.success("Book deleted successfully"));
+                case "search":
+                    return OperationResult.ok(ApiResponse.success(bookService.searchBooksByAuthor(operation.getString("q", null)),
+                                                                  "Books search completed"));
+                case "history":
+                    return OperationResult.ok(ApiResponse.success(bookService.getBookHistory(id(operation)),
+                                                                  "Book history retrieved successfully"));
+                default:
+                    throw new IllegalArgumentException("Unknown operation: '" + op + "'");
+            }
+
+        } catch (BookNotFoundException e) {
+            return new OperationResult(Response.Status.NOT_FOUND.getStatusCode(),
+                                       ApiResponse.error("Book not found", e.getMessage()));
+        } catch (ConstraintViolationException e) {
+            return new OperationResult(Response.Status.BAD_REQUEST.getStatusCode(),
+                                       ApiResponse.error("Validation failed", e.getMessage()));
+        } catch (DuplicateIsbnException e) {
+            return new OperationResult(Response.Status.CONFLICT.getStatusCode(),
+                                       ApiResponse.error("Duplicate ISBN", e.getMessage()));
+        } catch (CirculationConflictException e) {
+            return new OperationResult(Response.Status.CONFLICT.getStatusCode(),
+                                       ApiResponse.error("Book cannot be deleted", e.getMessage()));
+        } catch (FeatureUnavailableException e) {
+            return new OperationResult(Response.Status.NOT_IMPLEMENTED.getStatusCode(),
+                                       ApiResponse.error("Not available", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return new OperationResult(Response.Status.BAD_REQUEST.getStatusCode(),
+                                       ApiResponse.error("Invalid request", e.getMessage()));
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Error executing batch operation '" + op + "': " + e.getMessage(), e);
+            return new OperationResult(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode(),
+                                       ApiResponse.error("Internal server error", "Failed to execute operation"));
+        }
+    }
+
+    private void writeResult(JsonGenerator generator, int index, String op, int status, ApiResponse<?> response) {
+        generator.writeStartObject()
+                 .write("index", index)
+                 .write("op", op)
+                 .write("status", status)
+                 .write("success", response.isSuccess())
+                 .write("message", response.getMessage());
+        if (response.getData() != null) {
+            generator.writeKey("data");
+            JSONB.toJson(response.getData(), generator);
+        }
+        if (response.getError() != null) {
+            generator.write("error", response.getError());
+        }
+        generator.writeEnd();
+    }
+
+    private boolean rollbackQuietly(boolean sharedTransaction) {
+        if (!sharedTransaction) {
+            return true;
+        }
+        try {
+            if (userTransaction.getStatus() != Status.STATUS_NO_TRANSACTION) {
+                userTransaction.rollback();
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Failed to roll back batch transaction: " + e.getMessage(), e);
+        }
+        return false;
+    }
+
+    private static Long id(JsonObject operation) {
+        JsonValue id = operation.get("id");
+        if (id == null || id.getValueType() != JsonValue.ValueType.NUMBER) {
+            throw new IllegalArgumentException("Operation requires a numeric 'id'");
+        }
+        return operation.getJsonNumber("id").longValue();
+    }
+
+    private static BookDTO book(JsonObject operation) {
+        JsonValue book = operation.get("book");
+        if (book == null || book.getValueType() != JsonValue.ValueType.OBJECT) {
+            throw new IllegalArgumentException("Operation requires a 'book' object");
+        }
+        try {
+            return JSONB.fromJsonStructure(book.asJsonObject(), BookDTO.class);
+        } catch (JsonbException e) {
+            throw new IllegalArgumentException("Invalid 'book' object: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * HTTP status and response body of one operation
+     */
+    private static final class OperationResult {
+        final int status;
+        final ApiResponse<?> response;
+
+        OperationResult(int status, ApiResponse<?> response) {
+            this.status = status;
+            this.response = response;
+        }
+
+        static OperationResult ok(ApiResponse<?> response) {
+            return new OperationResult(Response.Status.OK.getStatusCode(), response);
+        }
+    }
+}
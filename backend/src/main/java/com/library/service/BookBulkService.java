@@ -0,0 +1,330 @@
+package com.library.service;
+
+import com.library.dto.BookDTO;
+import com.library.dto.BulkBookRequest;
+import com.library.dto.BulkResultDTO;
+import com.library.entity.Book;
+import com.library.event.BookChangedEvent;
+import com.library.util.AppConfig;
+import com.library.util.BookMapper;
+import jakarta.annotation.Resource;
+import jakarta.ejb.EJB;
+import jakarta.ejb.SessionContext;
+import jakarta.ejb.Stateless;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stateless EJB for set-based bulk update and delete of books.
+ * The selection is processed in chunks; every chunk runs as one UPDATE/DELETE statement
+ * in its own transaction so row locks are held only for the duration of a chunk.
+ */
+@Stateless
+public class BookBulkService {
+
+    private static final Logger LOGGER = Logger.getLogger(BookBulkService.class.getName());
+
+    private static final int DEFAULT_CHUNK_SIZE = AppConfig.getInt("library.bulk.chunk-size", 500);
+    private static final int MAX_CHUNK_SIZE = 5000;
+
+    @PersistenceContext(unitName = "bookLibraryPU")
+    private EntityManager entityManager;
+
+    @Inject
+    private Validator validator;
+
+    @Inject
+    private Event<BookChangedEvent> bookChangedEvent;
+
+    @Resource
+    private SessionContext sessionContext;
+
+    @EJB
+    private CirculationService circulationService;
+
+    /**
+     * Apply the same field changes to every selected book
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public BulkResultDTO bulkUpdate(BulkBookRequest request) {
+        validateSelection(request);
+        validateChanges(request.getChanges());
+        LOGGER.info("Bulk updating books");
+
+        BookBulkService self = sessionContext.getBusinessObject(BookBulkService.class);
+        BookDTO changes = request.getChanges();
+        return process(request, ids -> self.updateChunk(ids, changes));
+    }
+
+    /**
+     * Delete every selected book
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public BulkResultDTO bulkDelete(BulkBookRequest request) {
+        validateSelection(request);
+        LOGGER.info("Bulk deleting books");
+
+        BookBulkService self = sessionContext.getBusinessObject(BookBulkService.class);
+        return process(request, self::deleteChunk);
+    }
+
+    /**
+     * Update one chunk of books in its own transaction.
+     * Returns the IDs that existed and were updated.
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public List<Long> updateChunk(List<Long> ids, BookDTO changes) {
+        List<Long> existing = findExistingIds(ids);
+        if (existing.isEmpty()) {
+            return existing;
+        }
+
+        StringBuilder jpql = new StringBuilder("UPDATE Book b SET b.updatedAt = CURRENT_TIMESTAMP");
+        if (changes.getTitle() != null) {
+            jpql.append(", b.title = :title");
+        }
+        if (changes.getAuthor() != null) {
+            jpql.append(", b.author = :author");
+        }
+        if (changes.getPublicationYear() != null) {
+            jpql.append(", b.publicationYear = :publicationYear");
+        }
+        jpql.append(" WHERE b.id IN :ids");
+
+        Query query = entityManager.createQuery(jpql.toString()).setParameter("ids", existing);
+        if (changes.getTitle() != null) {
+            query.setParameter("title", changes.getTitle().trim());
+        }
+        if (changes.getAuthor() != null) {
+            query.setParameter("author", changes.getAuthor().trim());
+        }
+        if (changes.getPublicationYear() != null) {
+            query.setParameter("publicationYear", changes.getPublicationYear());
+        }
+        query.executeUpdate();
+
+        List<Book> updated = entityManager.createQuery("SELECT b FROM Book b WHERE b.id IN :ids", Book.class)
+                                          .setParameter("ids", existing)
+                                          .getResultList();
+        bookChangedEvent.fire(new BookChangedEvent(BookChangedEvent.Operation.UPDATED, BookMapper.toDTOList(updated)));
+        return existing;
+    }
+
+    /**
+     * Delete one chunk of books in its own transaction.
+     * Returns the IDs that existed and were deleted.
+     */
+    @TransactionAttribute(TransactionAttributeType.REQUIRES_NEW)
+    public List<Long> deleteChunk(List<Long> ids) {
+        // Load the rows first: their last state is recorded in the change history
+        List<Book> books = entityManager.createQuery("SELECT b FROM Book b WHERE b.id IN :ids ORDER BY b.id", Book.class)
+                                        .setParameter("ids", ids)
+                                        .getResultList();
+        List<Long> existing = new ArrayList<>(books.size());
+        for (Book book : books) {
+            existing.add(book.getId());
+        }
+        if (existing.isEmpty()) {
+            return existing;
+        }
+
+        // Fails the chunk for a book with loans; the row-by-row retry reports which one
+        circulationService.deleteCopiesOf(existing);
+        entityManager.createQuery("DELETE FROM Book b WHERE b.id IN :ids")
+                     .setParameter("ids", existing)
+                     .executeUpdate();
+        bookChangedEvent.fire(new BookChangedEvent(BookChangedEvent.Operation.DELETED, BookMapper.toDTOList(books)));
+        return existing;
+    }
+
+    /**
+     * Run the chunk operation over the explicit ID list or over the filter selection
+     */
+    private BulkResultDTO process(BulkBookRequest request, ChunkOperation operation) {
+        int chunkSize = resolveChunkSize(request);
+        BulkResultDTO result = new BulkResultDTO();
+
+        if (request.getIds() != null) {
+            List<Long> ids = new ArrayList<>(new LinkedHashSet<>(request.getIds()));
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+                runChunk(chunk, operation, result, true);
+            }
+        } else {
+            // Keyset pagination over the filter so each chunk is selected by an index range scan
+            long lastId = 0;
+            List<Long> chunk;
+            while (!(chunk = findIdsByFilter(request, lastId, chunkSize)).isEmpty()) {
+                runChunk(chunk, operation, result, false);
+                lastId = chunk.get(chunk.size() - 1);
+            }
+        }
+
+        LOGGER.info("Bulk operation affected " + result.getAffected() + " books in " + result.getChunks()
+                    + " chunks with " + result.getFailures().size() + " failures");
+        return result;
+    }
+
+    /**
+     * Run one chunk; when the set-based statement fails, retry row by row to isolate the failing IDs
+     */
+    private void runChunk(List<Long> chunk, ChunkOperation operation, BulkResultDTO result, boolean reportMissing) {
+        result.addChunk();
+        try {
+            List<Long> processed = operation.apply(new ArrayList<>(chunk));
+            result.addAffected(processed.size());
+            if (reportMissing && processed.size() < chunk.size()) {
+                Set<Long> found = new HashSet<>(processed);
+                for (Long id : chunk) {
+                    if (!found.contains(id)) {
+                        result.addFailure(id, "Book not found with ID: " + id);
+                    }
+                }
+            }
+
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Bulk chunk failed, retrying " + chunk.size() + " books individually: " + e.getMessage());
+            for (Long id : chunk) {
+                try {
+                    if (operation.apply(List.of(id)).isEmpty()) {
+                        if (reportMissing) {
+                            result.addFailure(id, "Book not found with ID: " + id);
+                        }
+                    } else {
+                        result.addAffected(1);
+                    }
+                } catch (Exception rowError) {
+                    result.addFailure(id, rootCauseMessage(rowError));
+                }
+            }
+        }
+    }
+
+    private List<Long> findExistingIds(List<Long> ids) {
+        return entityManager.createQuery("SELECT b.id FROM Book b WHERE b.id IN :ids ORDER BY b.id", Long.class)
+                            .setParameter("ids", ids)
+                            .getResultList();
+    }
+
+    private List<Long> findIdsByFilter(BulkBookRequest request, long lastId, int limit) {
+        StringBuilder jpql = new StringBuilder("SELECT b.id FROM Book b WHERE b.id > :lastId");
+        boolean hasAuthor = request.getAuthor() != null && !request.getAuthor().trim().isEmpty();
+        if (hasAuthor) {
+            jpql.append(" AND LOWER(b.author) = LOWER(:author)");
+        }
+        if (request.getFromYear() != null) {
+            jpql.append(" AND b.publicationYear >= :fromYear");
+        }
+        if (request.getToYear() != null) {
+            jpql.append(" AND b.publicationYear <= :toYear");
+        }
+        jpql.append(" ORDER BY b.id");
+
+        TypedQuery<Long> query = entityManager.createQuery(jpql.toString(), Long.class)
+                                              .setParameter("lastId", lastId)
+                                              .setMaxResults(limit);
+        if (hasAuthor) {
+            query.setParameter("author", request.getAuthor().trim());
+        }
+        if (request.getFromYear() != null) {
+            query.setParameter("fromYear", request.getFromYear());
+        }
+        if (request.getToYear() != null) {
+            query.setParameter("toYear", request.getToYear());
+        }
+        return query.getResultList();
+    }
+
+    private int resolveChunkSize(BulkBookRequest request) {
+        Integer requested = request.getChunkSize();
+        if (requested == null) {
+            return Math.max(1, Math.min(DEFAULT_CHUNK_SIZE, MAX_CHUNK_SIZE));
+        }
+        if (requested < 1 || requested > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + MAX_CHUNK_SIZE);
+        }
+        return requested;
+    }
+
+    /**
+     * Exactly one of an ID list or a non-empty filter must be given
+     */
+    private void validateSelection(BulkBookRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Bulk request cannot be null");
+        }
+        boolean hasIds = request.getIds() != null;
+        if (hasIds == request.hasFilter()) {
+            throw new IllegalArgumentException("Specify either a list of book IDs or a filter (author, fromYear, toYear)");
+        }
+        if (hasIds && (request.getIds().isEmpty() || request.getIds().contains(null))) {
+            throw new IllegalArgumentException("Book ID list cannot be empty or contain null IDs");
+        }
+        if (request.getFromYear() != null && request.getToYear() != null && request.getFromYear() > request.getToYear()) {
+            throw new IllegalArgumentException("fromYear cannot be after toYear");
+        }
+    }
+
+    /**
+     * Validate only the fields being changed; ISBNs are unique and cannot be set in bulk
+     */
+    private void validateChanges(BookDTO changes) {
+        if (changes == null || (changes.getTitle() == null && changes.getAuthor() == null
+                                && changes.getPublicationYear() == null)) {
+            throw new IllegalArgumentException("Bulk update requires at least one of title, author or publicationYear");
+        }
+        if (changes.getIsbn() != null) {
+            throw new IllegalArgumentException("ISBN cannot be changed by a bulk update");
+        }
+
+        Set<ConstraintViolation<BookDTO>> violations = new HashSet<>();
+        if (changes.getTitle() != null) {
+            violations.addAll(validator.validateProperty(changes, "title"));
+        }
+        if (changes.getAuthor() != null) {
+            violations.addAll(validator.validateProperty(changes, "author"));
+        }
+        if (changes.getPublicationYear() != null) {
+            violations.addAll(validator.validateProperty(changes, "publicationYear"));
+        }
+        if (!violations.isEmpty()) {
+            StringBuilder sb = new StringBuilder();
+            for (ConstraintViolation<BookDTO> violation : violations) {
+                sb.append(violation.getMessage()).append("; ");
+            }
+            throw new ConstraintViolationException("Validation failed: " + sb.toString(), violations);
+        }
+    }
+
+    private static String rootCauseMessage(Throwable throwable) {
+        Throwable cause = throwable;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    /**
+     * A set-based operation applied to one chunk of book IDs
+     */
+    @FunctionalInterface
+    private interface ChunkOperation {
+        List<Long> apply(List<Long> ids);
+    }
+}
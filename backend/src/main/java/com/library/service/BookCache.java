@@ -0,0 +1,155 @@
+package com.library.service;
+
+import com.library.dto.BookDTO;
+import com.library.util.AppConfig;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Singleton EJB holding a node-local cache of books by ID.
+ *
+ * The cache only serves reads while the coherence channel is connected (see
+ * BookCacheCoherenceListener); otherwise changes made on other nodes could be missed.
+ * Every invalidation bumps a generation counter, and a value read from the database is
+ * only cached if no invalidation happened since the read started, so a concurrent
+ * update can never be overwritten by the stale value it replaced.
+ *
+ * A book being written by an open transaction is not cached at all: BookChangePublisher
+ * marks it when the change is made and releases it once the transaction completes, either
+ * way. Until then a read (even one inside the writing transaction, which sees the
+ * uncommitted state) goes to the store and its result is not kept.
+ *
+ * BookDTO is mutable, so the cache keeps its own copy of each book and hands out copies:
+ * a caller changing a book it got from (or gave to) the cache cannot change what others read.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class BookCache {
+    
+    private final boolean configured = AppConfig.getBoolean("library.cache.enabled", true);
+    private final int maxEntries = AppConfig.getInt("library.cache.max-entries", 10_000);
+    
+    private final ConcurrentMap<Long, BookDTO> books = new ConcurrentHashMap<>();
+    // Books with changes in transactions that have not completed, with the number of such changes
+    private final ConcurrentMap<Long, Integer> pendingWrites = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    
+    private volatile boolean enabled;
+    
+    /**
+     * Get a copy of a cached book, or null when not cached or the cache is disabled
+     */
+    public BookDTO get(Long id) {
+        if (!enabled) {
+            return null;
+        }
+        BookDTO book = books.get(id);
+        if (book == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return new BookDTO(book);
+    }
+    
+    /**
+     * Current generation; read it before loading a book from the database
+     */
+    public long generation() {
+        return generation.get();
+    }
+    
+    /**
+     * Cache a book loaded from the database, unless an invalidation happened since the load started
+     */
+    public void put(BookDTO book, long loadedAtGeneration) {
+        if (!enabled || book == null) {
+            return;
+        }
+        if (books.size() >= maxEntries) {
+            evictOne();
+        }
+        BookDTO copy = new BookDTO(book);
+        books.put(copy.getId(), copy);
+        // Checked after the put: beginWrites and endWrites bump the generation, so either
+        // this sees their change or they see (and remove) the value just cached
+        if (generation.get() != loadedAtGeneration || pendingWrites.containsKey(copy.getId())) {
+            books.remove(copy.getId(), copy);
+        }
+    }
+    
+    /**
+     * Stop caching the books a transaction is changing, until endWrites for the same books
+     */
+    public void beginWrites(Collection<Long> ids) {
+        for (Long id : ids) {
+            pendingWrites.merge(id, 1, Integer::sum);
+        }
+        invalidate(ids);
+    }
+    
+    /**
+     * The transaction that called beginWrites completed (committed or rolled back)
+     */
+    public void endWrites(Collection<Long> ids) {
+        // Invalidate first, so a value loaded while the write was pending can never stay cached
+        invalidate(ids);
+        for (Long id : ids) {
+            pendingWrites.computeIfPresent(id, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+    
+    public void invalidate(Collection<Long> ids) {
+        generation.incrementAndGet();
+        for (Long id : ids) {
+            books.remove(id);
+        }
+    }
+    
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        books.clear();
+    }
+    
+    /**
+     * Enable or disable serving from the cache; disabling also empties it
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled && configured;
+        if (!enabled) {
+            invalidateAll();
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public int size() {
+        return books.size();
+    }
+    
+    public long getHits() {
+        return hits.get();
+    }
+    
+    public long getMisses() {
+        return misses.get();
+    }
+    
+    private void evictOne() {
+        Iterator<Long> it = books.keySet().iterator();
+        if (it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.library.service;
+
+import com.library.dto.CacheStatsDTO;
+import com.library.event.BookChangeNotification;
+import com.library.event.CatalogLoadNotification;
+import com.library.event.CoherenceStateEvent;
+import com.library.store.StorageMode;
+import com.library.util.DatabaseConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.event.Event;
+import jakarta.inject.Inject;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+/**
+ * Singleton EJB that keeps the node-local book cache coherent across application nodes.
+ *
+ * A dedicated connection LISTENs on the book change channel and invalidates the cached
+ * books named in notifications from other nodes. The cache is only enabled while this
+ * connection is up: on connection loss it is disabled and flushed, and after reconnecting
+ * it is flushed again because notifications sent in the meantime were missed.
+ * Catalog loads bypass the application, so their notifications flush the whole cache,
+ * whichever node (or command-line run) made them.
+ */
+@Singleton
+@Startup
+@DependsOn("StartupService")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class BookCacheCoherenceListener {
+    
+    private static final Logger LOGGER = Logger.getLogger(BookCacheCoherenceListener.class.getName());
+    
+    private static final int POLL_TIMEOUT_MS = 500;
+    private static final long HEARTBEAT_INTERVAL_MS = 10_000;
+    private static final long MIN_RECONNECT_DELAY_MS = 500;
+    private static final long MAX_RECONNECT_DELAY_MS = 30_000;
+    
+    private final AtomicLong notificationsReceived = new AtomicLong();
+    private final AtomicLong remoteInvalidations = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicLong totalLagMs = new AtomicLong();
+    private final AtomicLong lagSamples = new AtomicLong();
+    private volatile long lastLagMs;
+    private volatile long maxLagMs;
+    
+    private volatile boolean running;
+    private volatile boolean connected;
+    private Thread listenerThread;
+    
+    @EJB
+    private BookCache bookCache;
+    
+    @Resource
+    private ManagedThreadFactory threadFactory;
+    
+    @Inject
+    private Event<BookChangeNotification> remoteChangeEvent;
+    
+    @Inject
+    private Event<CoherenceStateEvent> coherenceStateEvent;
+    
+    @Inject
+    private Event<CatalogLoadNotification> catalogLoadEvent;
+    
+    @PostConstruct
+    public void start() {
+        if (StorageMode.isOffHeap()) {
+            // Single node: every write passes through this node's invalidation
+            bookCache.setEnabled(true);
+            return;
+        }
+        running = true;
+        listenerThread = threadFactory.newThread(this::listenLoop);
+        listenerThread.setName("book-cache-coherence");
+        listenerThread.start();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        running = false;
+        bookCache.setEnabled(false);
+        if (listenerThread == null) {
+            return;
+        }
+        try {
+            listenerThread.join(POLL_TIMEOUT_MS * 4L);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Get cache and coherence metrics for this node
+     */
+    public CacheStatsDTO getStats() {
+        CacheStatsDTO stats = new CacheStatsDTO();
+        stats.setNodeId(DatabaseConfig.getNodeId());
+        stats.setListenerConnected(connected);
+        stats.setCacheEnabled(bookCache.isEnabled());
+        stats.setCacheSize(bookCache.size());
+        stats.setHits(bookCache.getHits());
+        stats.setMisses(bookCache.getMisses());
+        stats.setNotificationsReceived(notificationsReceived.get());
+        stats.setRemoteInvalidations(remoteInvalidations.get());
+        stats.setReconnects(reconnects.get());
+        stats.setLastLagMs(lastLagMs);
+        stats.setMaxLagMs(maxLagMs);
+        long samples = lagSamples.get();
+        stats.setAverageLagMs(samples == 0 ? 0 : (double) totalLagMs.get() / samples);
+        return stats;
+    }
+    
+    private void listenLoop() {
+        long reconnectDelay = MIN_RECONNECT_DELAY_MS;
+        while (running) {
+            try (Connection connection = DatabaseConfig.openConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + BookChangeNotification.CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                
+                // Anything cached before LISTEN took effect may have missed an invalidation
+                bookCache.invalidateAll();
+                bookCache.setEnabled(true);
+                connected = true;
+                coherenceStateEvent.fire(new CoherenceStateEvent(true));
+                reconnectDelay = MIN_RECONNECT_DELAY_MS;
+                LOGGER.info("Listening for book changes on channel " + BookChangeNotification.CHANNEL);
+                
+                long lastHeartbeat = System.currentTimeMillis();
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            handle(notification.getParameter());
+                        }
+                    }
+                    // A silently dropped TCP connection only shows up when we send something
+                    if (System.currentTimeMillis() - lastHeartbeat > HEARTBEAT_INTERVAL_MS) {
+                        try (Statement statement = connection.createStatement()) {
+                            statement.setQueryTimeout(5);
+                            statement.execute("SELECT 1");
+                        }
+                        lastHeartbeat = System.currentTimeMillis();
+                    }
+                }
+                
+            } catch (SQLException e) {
+                if (connected) {
+                    LOGGER.log(Level.WARNING, "Book change listener connection lost: " + e.getMessage());
+                } else {
+                    LOGGER.log(Level.FINE, "Book change listener connection failed: " + e.getMessage());
+                }
+            } finally {
+                if (connected) {
+                    connected = false;
+                    coherenceStateEvent.fire(new CoherenceStateEvent(false));
+                }
+                bookCache.setEnabled(false);
+            }
+            
+            if (running) {
+                reconnects.incrementAndGet();
+                sleepQuietly(reconnectDelay);
+                reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY_MS);
+            }
+        }
+    }
+    
+    private void handle(String payload) {
+        notificationsReceived.incrementAndGet();
+        if (CatalogLoadNotification.isPayload(payload)) {
+            handleCatalogLoad(payload);
+            return;
+        }
+        BookChangeNotification notification;
+        try {
+            notification = BookChangeNotification.parse(payload);
+        } catch (IllegalArgumentException e) {
+            // Unknown payload: flushing everything is always safe
+            LOGGER.warning(e.getMessage());
+            bookCache.invalidateAll();
+            return;
+        }
+        
+        // Our own changes were already invalidated locally after commit
+        if (DatabaseConfig.getNodeId().equals(notification.getNodeId())) {
+            return;
+        }
+        
+        bookCache.invalidate(notification.getBookIds());
+        remoteInvalidations.addAndGet(notification.getBookIds().size());
+        remoteChangeEvent.fire(notification);
+        recordLag(Math.max(0, System.currentTimeMillis() - notification.getPublishedAtMillis()));
+    }
+    
+    private void handleCatalogLoad(String payload) {
+        CatalogLoadNotification notification;
+        try {
+            notification = CatalogLoadNotification.parse(payload);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warning(e.getMessage());
+            bookCache.invalidateAll();
+            return;
+        }
+        // A truncating load has removed every book before it starts
+        bookCache.invalidateAll();
+        LOGGER.info("Catalog load of IDs " + notification.getFirstId() + ".." + notification.getLastId()
+                    + (notification.isFinished() ? " finished" : " started"));
+        catalogLoadEvent.fire(notification);
+    }
+    
+    private void recordLag(long lagMs) {
+        lastLagMs = lagMs;
+        if (lagMs > maxLagMs) {
+            maxLagMs = lagMs;
+        }
+        totalLagMs.addAndGet(lagMs);
+        lagSamples.incrementAndGet();
+    }
+    
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
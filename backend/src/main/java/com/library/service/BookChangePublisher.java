@@ -0,0 +1,74 @@
+package com.library.service;
+
+import com.library.dto.BookDTO;
+import com.library.event.BookChangeNotification;
+import com.library.event.BookChangedEvent;
+import com.library.store.StorageMode;
+import com.library.util.DatabaseConfig;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Stateless;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stateless EJB that announces book changes to the other application nodes.
+ *
+ * The NOTIFY is issued inside the writing transaction: PostgreSQL delivers it only if
+ * that transaction commits, so other nodes never invalidate for a rolled-back change
+ * and never miss a committed one. Locally, the changed books are kept out of the cache
+ * from the change until the transaction completes, and invalidated again then, whether it
+ * committed or rolled back.
+ */
+@Stateless
+public class BookChangePublisher {
+    
+    @PersistenceContext(unitName = "bookLibraryPU")
+    private EntityManager entityManager;
+    
+    @EJB
+    private BookCache bookCache;
+    
+    /**
+     * Queue a NOTIFY for the change in the current transaction
+     */
+    public void publish(@Observes BookChangedEvent event) {
+        if (StorageMode.isOffHeap()) {
+            return; // Single node: there is nobody to notify
+        }
+        BookChangeNotification notification = new BookChangeNotification(
+            DatabaseConfig.getNodeId(), event.getOperation(), System.currentTimeMillis(), bookIds(event));
+        
+        for (String payload : notification.toPayloads()) {
+            entityManager.createNativeQuery("SELECT COUNT(*) FROM (SELECT pg_notify(?1, ?2)) AS n")
+                         .setParameter(1, BookChangeNotification.CHANNEL)
+                         .setParameter(2, payload)
+                         .getSingleResult();
+        }
+    }
+    
+    /**
+     * Drop the changed books from this node's cache and keep them out while the change is uncommitted
+     */
+    public void beginLocalInvalidation(@Observes BookChangedEvent event) {
+        bookCache.beginWrites(bookIds(event));
+    }
+    
+    /**
+     * Let the changed books back into this node's cache once the transaction has completed
+     */
+    public void invalidateLocal(@Observes(during = TransactionPhase.AFTER_COMPLETION) BookChangedEvent event) {
+        bookCache.endWrites(bookIds(event));
+    }
+    
+    private static List<Long> bookIds(BookChangedEvent event) {
+        List<Long> ids = new ArrayList<>(event.getBooks().size());
+        for (BookDTO book : event.getBooks()) {
+            ids.add(book.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,219 @@
+package com.library.service;
+
+import com.library.dto.TotalCountDTO;
+import com.library.event.BookChangeNotification;
+import com.library.event.BookChangedEvent;
+import com.library.event.CatalogLoadNotification;
+import com.library.store.BookPartitions;
+import com.library.store.BookStore;
+import com.library.store.JpaBookStore;
+import com.library.store.StorageMode;
+import com.library.util.AppConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.Timeout;
+import jakarta.ejb.TimerConfig;
+import jakarta.ejb.TimerService;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * Singleton EJB providing total counts for paged book lists and searches.
+ *
+ * The total is exact when it can be had for free (the page was not full) or cheaply (the
+ * planner's cost for the count is within library.count.exact-cost-budget). Otherwise it is
+ * estimated: for the whole table from pg_class.reltuples plus the creates and deletes
+ * committed since on any node, for a search from the planner's row estimate. With the
+ * off-heap store every total is counted exactly in memory.
+ */
+@Singleton
+@Startup
+@DependsOn("StartupService")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class BookCountService {
+
+    private static final Logger LOGGER = Logger.getLogger(BookCountService.class.getName());
+
+    private static final String ALL_BOOKS = "FROM books";
+    private static final String BY_AUTHOR = "FROM books WHERE LOWER(author) LIKE LOWER(?)";
+
+    // Planner cost units; a sequential scan costs roughly 1 per 8 kB page plus 0.01 per row
+    private final double exactCostBudget = AppConfig.getInt("library.count.exact-cost-budget", 25_000);
+    private final long refreshIntervalMs = AppConfig.getInt("library.count.refresh-minutes", 10) * 60_000L;
+
+    // Row count at the last refresh (negative until the table has been analyzed) and changes since
+    private volatile long baseline = -1;
+    private final AtomicLong delta = new AtomicLong();
+
+    @Resource(lookup = "java:jboss/datasources/BookLibraryDS")
+    private DataSource dataSource;
+
+    @Resource
+    private TimerService timerService;
+
+    @EJB(beanName = "OffHeapBookStore")
+    private BookStore offHeapBookStore;
+
+    @PostConstruct
+    public void start() {
+        if (StorageMode.isOffHeap()) {
+            return;
+        }
+        timerService.createIntervalTimer(0, refreshIntervalMs, new TimerConfig("book-count-refresh", false));
+    }
+
+    /**
+     * Total number of books, for a page of the full list
+     */
+    public TotalCountDTO countAll(Integer offset, Integer limit, int returned) {
+        return count(ALL_BOOKS, null, () -> offHeapBookStore.count(), offset, limit, returned, true);
+    }
+
+    /**
+     * Total number of books matching an author search, for a page of its results
+     */
+    public TotalCountDTO countByAuthor(String author, Integer offset, Integer limit, int returned) {
+        return count(BY_AUTHOR, JpaBookStore.authorPattern(author), () -> offHeapBookStore.countByAuthor(author),
+                     offset, limit, returned, false);
+    }
+
+    /**
+     * Track committed creates and deletes made on this node
+     */
+    public void onBookChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) BookChangedEvent event) {
+        track(event.getOperation(), event.getBooks().size());
+    }
+
+    /**
+     * Track creates and deletes made on other nodes
+     */
+    public void onRemoteChange(@Observes BookChangeNotification notification) {
+        track(notification.getOperation(), notification.getBookIds().size());
+    }
+
+    /**
+     * Re-read the statistics once a catalog load on any node has finished (and analyzed the table)
+     */
+    public void onCatalogLoad(@Observes CatalogLoadNotification notification) {
+        if (notification.isFinished()) {
+            timerService.createSingleActionTimer(0, new TimerConfig("book-count-refresh", false));
+        }
+    }
+
+    /**
+     * Re-read the row estimate from the planner statistics
+     */
+    @Timeout
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void refresh() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(BookPartitions.ROW_ESTIMATE_SQL);
+             ResultSet rs = statement.executeQuery()) {
+            long rows = rs.next() ? rs.getLong(1) : -1;
+            delta.set(0);
+            baseline = rows;
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to refresh book count statistics: " + e.getMessage(), e);
+        }
+    }
+
+    private TotalCountDTO count(String fromWhere, String parameter, LongSupplier storeCount, Integer offset,
+                                Integer limit, int returned, boolean useCounter) {
+        long start = offset != null ? offset : 0;
+        // A partial page ends the result: the total is known without counting
+        if ((limit == null || returned < limit) && (returned > 0 || start == 0)) {
+            return new TotalCountDTO(start + returned, true, TotalCountDTO.SOURCE_PAGE);
+        }
+        if (StorageMode.isOffHeap()) {
+            return new TotalCountDTO(storeCount.getAsLong(), true, TotalCountDTO.SOURCE_COUNT);
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            Plan plan = explain(connection, "SELECT 1 " + fromWhere, parameter);
+            if (plan.cost <= exactCostBudget) {
+                return new TotalCountDTO(exactCount(connection, fromWhere, parameter), true, TotalCountDTO.SOURCE_COUNT);
+            }
+
+            // At least the rows up to the end of this page exist
+            long seen = start + returned;
+            long counted = baseline;
+            if (useCounter && counted >= 0) {
+                return new TotalCountDTO(Math.max(seen, counted + delta.get()), false, TotalCountDTO.SOURCE_COUNTER);
+            }
+            return new TotalCountDTO(Math.max(seen, plan.rows), false, TotalCountDTO.SOURCE_PLANNER);
+
+        } catch (SQLException e) {
+            // The page itself is still useful without a total
+            LOGGER.log(Level.WARNING, "Failed to count books: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private Plan explain(Connection connection, String sql, String parameter) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("EXPLAIN (FORMAT JSON) " + sql)) {
+            if (parameter != null) {
+                statement.setString(1, parameter);
+            }
+            try (ResultSet rs = statement.executeQuery();
+                 JsonReader reader = Json.createReader(new StringReader(rs.next() ? rs.getString(1) : "[]"))) {
+                JsonObject plan = reader.readArray().getJsonObject(0).getJsonObject("Plan");
+                return new Plan(plan.getJsonNumber("Plan Rows").longValue(),
+                                plan.getJsonNumber("Total Cost").doubleValue());
+            }
+        }
+    }
+
+    private long exactCount(Connection connection, String fromWhere, String parameter) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) " + fromWhere)) {
+            if (parameter != null) {
+                statement.setString(1, parameter);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private void track(BookChangedEvent.Operation operation, int books) {
+        if (operation == BookChangedEvent.Operation.CREATED) {
+            delta.addAndGet(books);
+        } else if (operation == BookChangedEvent.Operation.DELETED) {
+            delta.addAndGet(-books);
+        }
+    }
+
+    /**
+     * Planner estimate for a query
+     */
+    private static final class Plan {
+        final long rows;
+        final double cost;
+
+        Plan(long rows, double cost) {
+            this.rows = rows;
+            this.cost = cost;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.library.service;
+
+import com.library.dto.BookDTO;
+import com.library.event.BookChangeNotification;
+import com.library.event.BookChangedEvent;
+import com.library.event.CatalogLoadNotification;
+import com.library.event.CoherenceStateEvent;
+import com.library.store.BookPartitions;
+import com.library.store.StorageMode;
+import com.library.util.AppConfig;
+import com.library.util.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.Timeout;
+import jakarta.ejb.TimerConfig;
+import jakarta.ejb.TimerService;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * Singleton EJB answering "definitely absent" for book IDs and ISBNs without a database
+ * round trip, using Bloom filters over all live IDs and ISBNs.
+ *
+ * The filters are rebuilt periodically (deletes and ISBN changes only leave stale bits,
+ * which cost an occasional false positive) and updated on every write before commit.
+ * A negative ISBN answer is backed by the unique constraint on books.isbn. A negative ID
+ * answer is only trusted while the cross-node change channel is connected, and never for
+ * IDs above the highest ID seen, so books created on other nodes are not reported missing.
+ * Catalog loads add books by COPY without change events: misses in a load's reserved ID
+ * range are not trusted from its start announcement until a rebuild that began after its
+ * end announcement. A load whose end is never announced keeps its range untrusted until
+ * the node restarts.
+ */
+@Singleton
+@Startup
+@DependsOn("StartupService")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class BookExistenceIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(BookExistenceIndex.class.getName());
+
+    private static final long MIN_CAPACITY = 100_000;
+
+    private final double falsePositiveRate =
+        AppConfig.getInt("library.bloom.false-positive-per-mille", 10) / 1000.0;
+    private final long rebuildIntervalMs =
+        AppConfig.getInt("library.bloom.rebuild-interval-minutes", 15) * 60_000L;
+
+    // Current filters, and the ones being built (writes go to both while a rebuild runs)
+    private volatile Filters current;
+    private volatile Filters building;
+
+    // ID misses are trusted only if the change channel stayed connected since the last rebuild started
+    private volatile boolean idsTrusted;
+    private volatile boolean channelConnected;
+    private final AtomicLong channelEpoch = new AtomicLong();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    // Reserved ID ranges of catalog loads by first ID, kept until a rebuild has seen their books
+    private final ConcurrentMap<Long, LoadRange> loads = new ConcurrentHashMap<>();
+
+    @Resource(lookup = "java:jboss/datasources/BookLibraryDS")
+    private DataSource dataSource;
+
+    @Resource
+    private TimerService timerService;
+
+    @PostConstruct
+    public void start() {
+        if (StorageMode.isOffHeap()) {
+            return; // The off-heap store answers misses from memory already
+        }
+        timerService.createIntervalTimer(0, rebuildIntervalMs, new TimerConfig("book-existence-rebuild", false));
+    }
+
+    /**
+     * True only if no book with this ID exists
+     */
+    public boolean isDefinitelyMissingId(long id) {
+        Filters filters = current;
+        if (filters == null || !idsTrusted || id > filters.maxId.get() || isLoading(id)) {
+            return false;
+        }
+        return !filters.ids.mightContain(BloomFilter.hash(id));
+    }
+
+    /**
+     * True only if no book with this ISBN exists (as of the last committed writes on any node,
+     * with the database unique constraint catching what another node inserted a moment ago)
+     */
+    public boolean isDefinitelyMissingIsbn(String isbn) {
+        Filters filters = current;
+        return filters != null && !filters.isbns.mightContain(BloomFilter.hash(isbn));
+    }
+
+    /**
+     * Record books written in the current transaction. Adding before commit is safe (a
+     * rollback only leaves a false positive behind) and means the book is never reported
+     * missing between its commit and the after-commit notification.
+     */
+    public void onBookChanged(@Observes BookChangedEvent event) {
+        addAll(event);
+    }
+
+    /**
+     * Record the books again after commit: a rebuild whose scan started before this commit
+     * did not see them and must receive them here
+     */
+    public void onBookCommitted(@Observes(during = TransactionPhase.AFTER_SUCCESS) BookChangedEvent event) {
+        addAll(event);
+    }
+
+    /**
+     * Record IDs created on other nodes
+     */
+    public void onRemoteChange(@Observes BookChangeNotification notification) {
+        if (notification.getOperation() != BookChangedEvent.Operation.CREATED) {
+            return;
+        }
+        for (Long id : notification.getBookIds()) {
+            add(id, null);
+        }
+    }
+
+    /**
+     * Stop trusting ID misses while other nodes' creates may be missed; rebuild on reconnect
+     */
+    public void onCoherenceStateChanged(@Observes CoherenceStateEvent event) {
+        channelEpoch.incrementAndGet();
+        channelConnected = event.isConnected();
+        idsTrusted = false;
+        if (event.isConnected()) {
+            timerService.createSingleActionTimer(0, new TimerConfig("book-existence-rebuild", false));
+        }
+    }
+
+    /**
+     * Track catalog loads on any node; rebuild once one has finished
+     */
+    public void onCatalogLoad(@Observes CatalogLoadNotification notification) {
+        LoadRange range = loads.computeIfAbsent(notification.getFirstId(),
+                                                first -> new LoadRange(first, notification.getLastId()));
+        if (notification.isFinished()) {
+            range.finished = true;
+            timerService.createSingleActionTimer(0, new TimerConfig("book-existence-rebuild", false));
+        }
+    }
+
+    /**
+     * Rebuild both filters from the books table
+     */
+    @Timeout
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            long capacity = Math.max(MIN_CAPACITY, estimateRowCount(connection) * 2);
+            Filters fresh = new Filters(capacity, falsePositiveRate);
+            building = fresh;
+            long epoch = channelEpoch.get();
+            boolean connectedAtStart = channelConnected;
+            // Loads that finished before the scan starts are fully visible to it
+            List<Long> loadsSeen = new ArrayList<>();
+            for (LoadRange range : loads.values()) {
+                if (range.finished) {
+                    loadsSeen.add(range.firstId);
+                }
+            }
+            long rows = 0;
+
+            connection.setAutoCommit(false); // Required for the driver to stream with a cursor
+            try (Statement statement = connection.createStatement()) {
+                statement.setFetchSize(10_000);
+                try (ResultSet rs = statement.executeQuery("SELECT id, isbn FROM books")) {
+                    while (rs.next()) {
+                        fresh.add(rs.getLong(1), rs.getString(2));
+                        rows++;
+                    }
+                }
+            } finally {
+                connection.rollback();
+            }
+
+            current = fresh;
+            building = null;
+            loadsSeen.forEach(loads::remove);
+            idsTrusted = connectedAtStart && epoch == channelEpoch.get();
+            LOGGER.info("Rebuilt book existence filters over " + rows + " books in "
+                        + (System.nanoTime() - start) / 1_000_000 + " ms (" + fresh.ids.getNumBits() + " bits each)");
+
+        } catch (SQLException e) {
+            building = null;
+            LOGGER.log(Level.WARNING, "Failed to rebuild book existence filters: " + e.getMessage(), e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private boolean isLoading(long id) {
+        for (LoadRange range : loads.values()) {
+            if (id >= range.firstId && id <= range.lastId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addAll(BookChangedEvent event) {
+        if (event.getOperation() == BookChangedEvent.Operation.DELETED) {
+            return;
+        }
+        for (BookDTO book : event.getBooks()) {
+            add(book.getId(), book.getIsbn());
+        }
+    }
+
+    private void add(Long id, String isbn) {
+        Filters filters = current;
+        if (filters != null) {
+            filters.add(id, isbn);
+        }
+        Filters next = building;
+        if (next != null) {
+            next.add(id, isbn);
+        }
+    }
+
+    private long estimateRowCount(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(BookPartitions.ROW_ESTIMATE_SQL);
+             ResultSet rs = statement.executeQuery()) {
+            return rs.next() ? Math.max(rs.getLong(1), 0) : 0;
+        }
+    }
+
+    /**
+     * IDs reserved by a catalog load
+     */
+    private static final class LoadRange {
+        final long firstId;
+        final long lastId;
+        volatile boolean finished;
+
+        LoadRange(long firstId, long lastId) {
+            this.firstId = firstId;
+            this.lastId = lastId;
+        }
+    }
+
+    /**
+     * ID and ISBN filters plus the highest ID added
+     */
+    private static final class Filters {
+        final BloomFilter ids;
+        final BloomFilter isbns;
+        final AtomicLong maxId = new AtomicLong();
+
+        Filters(long capacity, double falsePositiveRate) {
+            this.ids = BloomFilter.create(capacity, falsePositiveRate);
+            this.isbns = BloomFilter.create(capacity, falsePositiveRate);
+        }
+
+        void add(Long id, String isbn) {
+            if (id != null) {
+                ids.put(BloomFilter.hash(id));
+                maxId.accumulateAndGet(id, Math::max);
+            }
+            if (isbn != null) {
+                isbns.put(BloomFilter.hash(isbn));
+            }
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.library.service;
+
+import com.library.dto.BookDTO;
+import com.library.entity.BookHistory;
+import com.library.event.BookChangedEvent;
+import com.library.store.StorageMode;
+import com.library.util.AppConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * Singleton EJB that records every committed book version in book_history.
+ *
+ * Committed changes are handed to a bounded in-memory queue and written by a background
+ * thread in JDBC batches, so the request transaction never waits for the audit insert.
+ * When the queue is full the entry is written synchronously by the caller rather than
+ * dropped, and on graceful shutdown the queue is drained before the writer stops.
+ *
+ * Entries the database refuses at shutdown (or on a failed synchronous write) are appended
+ * to a local spool file instead, and written first on the next start. The replay runs in one
+ * transaction and the file is deleted after it commits, so a failed replay is simply
+ * repeated. Entries still queued when the JVM dies abruptly are lost.
+ *
+ * Entries reach the table out of order (a synchronous write overtakes the queue, a spool
+ * replay comes after newer entries), so versions are ordered by recorded_at, which is
+ * taken when the change is handed over and never repeats or goes backwards on a node.
+ */
+@Singleton
+@Startup
+@DependsOn("StartupService")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class BookHistoryWriter {
+
+    private static final Logger LOGGER = Logger.getLogger(BookHistoryWriter.class.getName());
+
+    private static final String INSERT_SQL =
+        "INSERT INTO book_history (book_id, operation, title, author, publication_year, isbn, recorded_at) "
+        + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final long OFFER_TIMEOUT_MS = 100;
+    private static final long SHUTDOWN_TIMEOUT_MS = 30_000;
+    private static final long RETRY_DELAY_MS = 1_000;
+
+    // Entries appended at shutdown, and the same file while it is being replayed
+    private static final String SPOOL_FILE = "book-history.spool";
+    private static final String REPLAY_FILE = "book-history.replay";
+
+    private final int batchSize = AppConfig.getInt("library.history.batch-size", 500);
+    private final long flushIntervalMs = AppConfig.getInt("library.history.flush-interval-ms", 200);
+
+    private final BlockingQueue<BookHistory> queue =
+        new ArrayBlockingQueue<>(AppConfig.getInt("library.history.queue-capacity", 10_000));
+
+    private final Object spoolLock = new Object();
+
+    // Microseconds since the epoch of the latest recorded_at handed out
+    private final AtomicLong lastRecordedMicros = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread writerThread;
+    private Path spoolDir;
+
+    @Resource(lookup = "java:jboss/datasources/BookLibraryDS")
+    private DataSource dataSource;
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    @PostConstruct
+    public void start() {
+        if (StorageMode.isOffHeap()) {
+            LOGGER.info("Book history disabled with the off-heap book store");
+            return;
+        }
+        String defaultDir = System.getProperty("jboss.server.data.dir", System.getProperty("java.io.tmpdir"));
+        spoolDir = Paths.get(AppConfig.getString("library.history.spool-dir",
+                                                 Paths.get(defaultDir, "history-spool").toString()));
+        running = true;
+        writerThread = threadFactory.newThread(this::writeLoop);
+        writerThread.setName("book-history-writer");
+        writerThread.start();
+        LOGGER.info("Book history writer started");
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            LOGGER.severe("Book history writer stopped with " + queue.size() + " unwritten entries");
+        }
+        LOGGER.info("Book history writer stopped");
+    }
+
+    /**
+     * Queue the versions of a committed change for writing
+     */
+    public void onBookChanged(@Observes(during = TransactionPhase.AFTER_SUCCESS) BookChangedEvent event) {
+        if (writerThread == null) {
+            return;
+        }
+        for (BookDTO book : event.getBooks()) {
+            BookHistory entry = new BookHistory(book.getId(), event.getOperation().name(), book.getTitle(),
+                                                book.getAuthor(), book.getPublicationYear(), book.getIsbn(),
+                                                nextRecordedAt());
+            enqueue(entry);
+        }
+    }
+
+    /**
+     * Number of entries waiting to be written
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * The current time, or 1 µs after the previous entry's if the clock has not moved on
+     * (timestamp columns keep microseconds)
+     */
+    private LocalDateTime nextRecordedAt() {
+        long now = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+        long micros = lastRecordedMicros.updateAndGet(last -> Math.max(last + 1, now));
+        return LocalDateTime.ofInstant(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), ZoneId.systemDefault());
+    }
+
+    private void enqueue(BookHistory entry) {
+        try {
+            if (running && queue.offer(entry, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Queue full or writer stopping: write on the caller's thread instead of losing the entry
+        LOGGER.warning("Book history queue full, writing entry for book " + entry.getBookId() + " synchronously");
+        try {
+            writeBatch(List.of(entry));
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to write history for book " + entry.getBookId() + ", spooling it: "
+                                      + e.getMessage(), e);
+            spool(List.of(entry));
+        }
+    }
+
+    private void writeLoop() {
+        replaySpool();
+        List<BookHistory> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    BookHistory first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                }
+                writeBatch(batch);
+                batch.clear();
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (SQLException e) {
+                // Keep the batch and retry; give up only when stopping and the database is still failing
+                LOGGER.log(Level.WARNING, "Failed to write " + batch.size() + " history entries, retrying: " + e.getMessage());
+                if (!running) {
+                    queue.drainTo(batch);
+                    spool(batch);
+                    batch.clear();
+                    break;
+                }
+                sleepQuietly(RETRY_DELAY_MS);
+            }
+        }
+    }
+
+    /**
+     * Append entries to the spool file, forced to disk; only an I/O failure here loses them
+     */
+    private void spool(List<BookHistory> entries) {
+        Path file = spoolDir.resolve(SPOOL_FILE);
+        synchronized (spoolLock) {
+            try {
+                Files.createDirectories(spoolDir);
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                            StandardOpenOption.APPEND)) {
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+                    for (BookHistory entry : entries) {
+                        out.writeLong(entry.getBookId());
+                        out.writeUTF(entry.getOperation());
+                        out.writeUTF(entry.getTitle());
+                        out.writeUTF(entry.getAuthor());
+                        out.writeInt(entry.getPublicationYear());
+                        out.writeUTF(entry.getIsbn());
+                        out.writeUTF(entry.getRecordedAt().toString());
+                    }
+                    out.flush();
+                    channel.force(true);
+                }
+                LOGGER.severe("Spooled " + entries.size() + " unwritten history entries to " + file
+                              + "; they are written on the next start");
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Lost " + entries.size() + " history entries: cannot spool them to "
+                                         + file + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Write the entries spooled by earlier runs before any new ones, retrying while the
+     * database is unavailable. Left in place for the next start if the writer stops first.
+     */
+    private void replaySpool() {
+        Path replay = spoolDir.resolve(REPLAY_FILE);
+        while (running) {
+            List<BookHistory> entries;
+            try {
+                synchronized (spoolLock) {
+                    // A replay file is left by a replay that did not finish; take the spool only after it
+                    Path spool = spoolDir.resolve(SPOOL_FILE);
+                    if (!Files.exists(replay)) {
+                        if (!Files.exists(spool)) {
+                            return;
+                        }
+                        Files.move(spool, replay, StandardCopyOption.ATOMIC_MOVE);
+                    }
+                }
+                entries = readSpool(replay);
+            } catch (IOException e) {
+                LOGGER.log(Level.SEVERE, "Cannot read spooled history entries from " + replay + ": " + e.getMessage(), e);
+                return;
+            }
+
+            while (true) {
+                try {
+                    writeBatch(entries);
+                    break;
+                } catch (SQLException e) {
+                    if (!running) {
+                        LOGGER.severe("Stopped before writing " + entries.size() + " spooled history entries; "
+                                      + replay + " is replayed on the next start");
+                        return;
+                    }
+                    LOGGER.warning("Failed to write " + entries.size() + " spooled history entries, retrying: "
+                                   + e.getMessage());
+                    sleepQuietly(RETRY_DELAY_MS);
+                }
+            }
+            try {
+                Files.delete(replay);
+            } catch (IOException e) {
+                // Replaying it again would record the entries twice
+                LOGGER.log(Level.SEVERE, "Wrote spooled history entries but cannot delete " + replay
+                                         + "; delete it before the next start: " + e.getMessage(), e);
+                return;
+            }
+            LOGGER.info("Wrote " + entries.size() + " history entries spooled by an earlier run");
+        }
+    }
+
+    private static List<BookHistory> readSpool(Path file) throws IOException {
+        List<BookHistory> entries = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                long bookId;
+                try {
+                    bookId = in.readLong();
+                } catch (EOFException e) {
+                    return entries;
+                }
+                try {
+                    entries.add(new BookHistory(bookId, in.readUTF(), in.readUTF(), in.readUTF(), in.readInt(),
+                                                in.readUTF(), LocalDateTime.parse(in.readUTF())));
+                } catch (EOFException e) {
+                    // A spool cut short by a crash while appending; the entries before it are intact
+                    LOGGER.warning("Ignoring a truncated entry at the end of " + file);
+                    return entries;
+                }
+            }
+        }
+    }
+
+    private void writeBatch(List<BookHistory> batch) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+                for (BookHistory entry : batch) {
+                    insert.setLong(1, entry.getBookId());
+                    insert.setString(2, entry.getOperation());
+                    insert.setString(3, entry.getTitle());
+                    insert.setString(4, entry.getAuthor());
+                    insert.setInt(5, entry.getPublicationYear());
+                    insert.setString(6, entry.getIsbn());
+                    insert.setTimestamp(7, Timestamp.valueOf(entry.getRecordedAt()));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,38 +1,82 @@
 package com.library.service;
 
 import com.library.dto.BookDTO;
+import com.library.dto.BookHistoryDTO;
 import com.library.entity.Book;
+import com.library.entity.BookHistory;
+import com.library.event.BookChangedEvent;
 import com.library.exception.BookNotFoundException;
 import com.library.exception.DuplicateIsbnException;
+import com.library.exception.FeatureUnavailableException;
+import com.library.store.BookStore;
+import com.library.store.StorageMode;
 import com.library.util.BookMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.ejb.EJB;
 import jakarta.ejb.Stateless;
+import jakarta.enterprise.event.Event;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.NoResultException;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.PersistenceException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Validator;
 import jakarta.inject.Inject;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
 /**
- * Stateless EJB for Book business logic operations
+ * Stateless EJB for Book business logic operations.
+ * Books are kept by the BookStore selected with library.storage (see StorageMode).
  */
 @Stateless
 public class BookService {
     
     private static final Logger LOGGER = Logger.getLogger(BookService.class.getName());
     
+    public static final int MAX_PAGE_SIZE = 1000;
+    
     @PersistenceContext(unitName = "bookLibraryPU")
     private EntityManager entityManager;
     
+    @EJB(beanName = "JpaBookStore")
+    private BookStore jpaBookStore;
+    
+    @EJB(beanName = "OffHeapBookStore")
+    private BookStore offHeapBookStore;
+    
+    private BookStore store;
+    
     @Inject
     private Validator validator;
     
+    @Inject
+    private Event<BookChangedEvent> bookChangedEvent;
+    
+    @EJB
+    private BookCache bookCache;
+    
+    @EJB
+    private BookExistenceIndex existenceIndex;
+
+    @EJB
+    private CirculationService circulationService;
+    
+    @PostConstruct
+    void selectStore() {
+        store = StorageMode.isOffHeap() ? offHeapBookStore : jpaBookStore;
+    }
+    
     /**
      * Create a new book
      */
@@ -48,12 +92,12 @@ public class BookService {
         }
         
         try {
-            Book book = BookMapper.toEntity(bookDTO);
-            entityManager.persist(book);
-            entityManager.flush(); // Force immediate persistence to get generated ID
+            Book book = store.insert(BookMapper.toEntity(bookDTO));
             
             LOGGER.info("Successfully created book with ID: " + book.getId());
-            return BookMapper.toDTO(book);
+            BookDTO created = BookMapper.toDTO(book);
+            bookChangedEvent.fire(BookChangedEvent.of(BookChangedEvent.Operation.CREATED, created));
+            return created;
             
         } catch (PersistenceException e) {
             LOGGER.log(Level.SEVERE, "Error creating book: " + e.getMessage(), e);
@@ -65,11 +109,18 @@ public class BookService {
      * Get all books
      */
     public List<BookDTO> getAllBooks() {
+        return getAllBooks(null, null);
+    }
+    
+    /**
+     * Get one page of all books ordered by title; a null limit returns every book from the offset
+     */
+    public List<BookDTO> getAllBooks(Integer offset, Integer limit) {
         LOGGER.info("Fetching all books");
+        validatePage(offset, limit);
         
         try {
-            List<Book> books = entityManager.createNamedQuery("Book.findAll", Book.class)
-                                          .getResultList();
+            List<Book> books = store.findAll(offset, limit);
             
             LOGGER.info("Found " + books.size() + " books");
             return BookMapper.toDTOList(books);
@@ -90,13 +141,25 @@ public class BookService {
             throw new IllegalArgumentException("Book ID cannot be null");
         }
         
-        Book book = entityManager.find(Book.class, id);
+        BookDTO cached = bookCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        
+        if (existenceIndex.isDefinitelyMissingId(id)) {
+            throw new BookNotFoundException(id);
+        }
+        
+        long generation = bookCache.generation();
+        Book book = store.findById(id);
         if (book == null) {
             throw new BookNotFoundException(id);
         }
         
         LOGGER.info("Successfully found book: " + book.getTitle());
-        return BookMapper.toDTO(book);
+        BookDTO bookDTO = BookMapper.toDTO(book);
+        bookCache.put(bookDTO, generation);
+        return bookDTO;
     }
     
     /**
@@ -112,7 +175,7 @@ public class BookService {
         // Validate input
         validateBookDTO(bookDTO);
         
-        Book existingBook = entityManager.find(Book.class, id);
+        Book existingBook = store.findById(id);
         if (existingBook == null) {
             throw new BookNotFoundException(id);
         }
@@ -124,10 +187,15 @@ public class BookService {
         
         try {
             BookMapper.updateEntityFromDTO(existingBook, bookDTO);
-            entityManager.merge(existingBook);
+            Book stored = store.update(existingBook); // Carries the new timestamp for the recorded version
+            if (stored == null) {
+                throw new BookNotFoundException(id);
+            }
             
             LOGGER.info("Successfully updated book with ID: " + id);
-            return BookMapper.toDTO(existingBook);
+            BookDTO updated = BookMapper.toDTO(stored);
+            bookChangedEvent.fire(BookChangedEvent.of(BookChangedEvent.Operation.UPDATED, updated));
+            return updated;
             
         } catch (PersistenceException e) {
             LOGGER.log(Level.SEVERE, "Error updating book with ID " + id + ": " + e.getMessage(), e);
@@ -136,22 +204,72 @@ public class BookService {
     }
     
     /**
-     * Delete a book by ID
+     * Apply a JSON Merge Patch (RFC 7396) to a book. Only the supplied properties are
+     * validated, the ISBN is checked for duplicates only when it changes, and only the
+     * columns whose value changes are written; a patch changing nothing writes nothing.
      */
-    public void deleteBook(Long id) {
-        LOGGER.info("Deleting book with ID: " + id);
+    public BookDTO patchBook(Long id, JsonObject patch) {
+        LOGGER.info("Patching book with ID: " + id);
         
         if (id == null) {
             throw new IllegalArgumentException("Book ID cannot be null");
         }
+        if (patch == null) {
+            throw new IllegalArgumentException("Patch document cannot be null");
+        }
         
-        Book book = entityManager.find(Book.class, id);
-        if (book == null) {
+        BookDTO supplied = toPatchDTO(patch);
+        validateBookProperties(supplied, patch.keySet());
+        
+        Book existingBook = store.findById(id);
+        if (existingBook == null) {
             throw new BookNotFoundException(id);
         }
         
+        Map<String, Object> changes = new LinkedHashMap<>();
+        putIfChanged(changes, patch, "title", supplied.getTitle(), existingBook.getTitle());
+        putIfChanged(changes, patch, "author", supplied.getAuthor(), existingBook.getAuthor());
+        putIfChanged(changes, patch, "publicationYear", supplied.getPublicationYear(), existingBook.getPublicationYear());
+        putIfChanged(changes, patch, "isbn", supplied.getIsbn(), existingBook.getIsbn());
+        if (changes.isEmpty()) {
+            return BookMapper.toDTO(existingBook);
+        }
+        
+        if (changes.containsKey("isbn") && isIsbnExists(supplied.getIsbn())) {
+            throw new DuplicateIsbnException(supplied.getIsbn());
+        }
+        
+        Book stored = store.updateFields(id, changes);
+        if (stored == null) {
+            throw new BookNotFoundException(id);
+        }
+        
+        LOGGER.info("Successfully patched " + changes.keySet() + " of book with ID: " + id);
+        BookDTO updated = BookMapper.toDTO(stored);
+        bookChangedEvent.fire(BookChangedEvent.of(BookChangedEvent.Operation.UPDATED, updated));
+        return updated;
+    }
+    
+    /**
+     * Delete a book by ID
+     */
+    public void deleteBook(Long id) {
+        LOGGER.info("Deleting book with ID: " + id);
+        
+        if (id == null) {
+            throw new IllegalArgumentException("Book ID cannot be null");
+        }
+        
         try {
-            entityManager.remove(book);
+            if (!StorageMode.isOffHeap()) {
+                circulationService.deleteCopiesOf(List.of(id));
+            }
+            Book book = store.delete(id);
+            if (book == null) {
+                throw new BookNotFoundException(id);
+            }
+            BookDTO deleted = BookMapper.toDTO(book);
+            bookChangedEvent.fire(BookChangedEvent.of(BookChangedEvent.Operation.DELETED, deleted));
             LOGGER.info("Successfully deleted book with ID: " + id);
             
         } catch (PersistenceException e) {
@@ -159,21 +277,61 @@ public class BookService {
             throw new RuntimeException("Failed to delete book: " + e.getMessage(), e);
         }
     }
-    
+
+    /**
+     * Those of the given cover hashes that some book still references
+     */
+    public Set<String> findReferencedCoverHashes(List<String> hashes) {
+        return store.findCoverHashes(hashes);
+    }
+
+    /**
+     * Point a book at a stored cover image, or remove its cover when coverHash is null
+     */
+    public BookDTO updateCover(Long id, String coverHash, String coverContentType) {
+        LOGGER.info("Updating cover of book with ID: " + id);
+
+        if (id == null) {
+            throw new IllegalArgumentException("Book ID cannot be null");
+        }
+
+        Book book = store.findById(id);
+        if (book == null) {
+            throw new BookNotFoundException(id);
+        }
+
+        book.setCoverHash(coverHash);
+        book.setCoverContentType(coverHash != null ? coverContentType : null);
+        Book stored = store.update(book); // Carries the new timestamp for the event
+        if (stored == null) {
+            throw new BookNotFoundException(id);
+        }
+
+        BookDTO updated = BookMapper.toDTO(stored);
+        bookChangedEvent.fire(BookChangedEvent.of(BookChangedEvent.Operation.UPDATED, updated));
+        return updated;
+    }
+
     /**
      * Search books by author
      */
     public List<BookDTO> searchBooksByAuthor(String author) {
+        return searchBooksByAuthor(author, null, null);
+    }
+    
+    /**
+     * Get one page of the books by author; a null limit returns every match from the offset
+     */
+    public List<BookDTO> searchBooksByAuthor(String author, Integer offset, Integer limit) {
         LOGGER.info("Searching books by author: " + author);
         
         if (author == null || author.trim().isEmpty()) {
             throw new IllegalArgumentException("Author name cannot be empty");
         }
+        validatePage(offset, limit);
         
         try {
-            List<Book> books = entityManager.createNamedQuery("Book.findByAuthor", Book.class)
-                                          .setParameter("author", "%" + author.trim() + "%")
-                                          .getResultList();
+            List<Book> books = store.findByAuthor(author, offset, limit);
             
             LOGGER.info("Found " + books.size() + " books by author: " + author);
             return BookMapper.toDTOList(books);
@@ -184,18 +342,130 @@ public class BookService {
         }
     }
     
+    /**
+     * Get the recorded versions of a book, oldest first.
+     * History is written asynchronously, so the latest change may take a moment to appear.
+     */
+    public List<BookHistoryDTO> getBookHistory(Long id) {
+        LOGGER.info("Fetching history of book with ID: " + id);
+        
+        if (id == null) {
+            throw new IllegalArgumentException("Book ID cannot be null");
+        }
+        if (StorageMode.isOffHeap()) {
+            throw new FeatureUnavailableException("Change history needs the jpa storage engine");
+        }
+        
+        List<BookHistory> history = entityManager.createNamedQuery("BookHistory.findByBookId", BookHistory.class)
+                                                 .setParameter("bookId", id)
+                                                 .getResultList();
+        if (history.isEmpty() && entityManager.find(Book.class, id) == null) {
+            throw new BookNotFoundException(id);
+        }
+        
+        return BookMapper.toHistoryDTOList(history);
+    }
+    
     /**
      * Check if ISBN already exists
      */
     private boolean isIsbnExists(String isbn) {
-        try {
-            entityManager.createNamedQuery("Book.findByIsbn", Book.class)
-                         .setParameter("isbn", isbn)
-                         .getSingleResult();
-            return true;
-        } catch (NoResultException e) {
+        if (existenceIndex.isDefinitelyMissingIsbn(isbn)) {
             return false;
         }
+        return store.existsByIsbn(isbn);
+    }
+    
+    /**
+     * Read the members of a merge patch into a BookDTO; null members stay null, which the
+     * validation of the required properties then rejects
+     */
+    private static BookDTO toPatchDTO(JsonObject patch) {
+        BookDTO dto = new BookDTO();
+        for (Map.Entry<String, JsonValue> member : patch.entrySet()) {
+            String name = member.getKey();
+            JsonValue value = member.getValue();
+            switch (name) {
+                case "title":
+                    dto.setTitle(patchString(name, value));
+                    break;
+                case "author":
+                    dto.setAuthor(patchString(name, value));
+                    break;
+                case "publicationYear":
+                    dto.setPublicationYear(patchInteger(name, value));
+                    break;
+                case "isbn":
+                    dto.setIsbn(patchString(name, value));
+                    break;
+                case "id":
+                case "createdAt":
+                case "updatedAt":
+                case "coverHash":
+                case "coverContentType":
+                    throw new IllegalArgumentException(name + " cannot be changed");
+                default:
+                    throw new IllegalArgumentException("Unknown book property: " + name);
+            }
+        }
+        return dto;
+    }
+    
+    private static String patchString(String name, JsonValue value) {
+        if (value.getValueType() == JsonValue.ValueType.NULL) {
+            return null;
+        }
+        if (value.getValueType() != JsonValue.ValueType.STRING) {
+            throw new IllegalArgumentException(name + " must be a string");
+        }
+        return ((JsonString) value).getString();
+    }
+    
+    private static Integer patchInteger(String name, JsonValue value) {
+        if (value.getValueType() == JsonValue.ValueType.NULL) {
+            return null;
+        }
+        if (value.getValueType() != JsonValue.ValueType.NUMBER || !((JsonNumber) value).isIntegral()) {
+            throw new IllegalArgumentException(name + " must be an integer");
+        }
+        try {
+            return ((JsonNumber) value).intValueExact();
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(name + " is out of range");
+        }
+    }
+    
+    private static void putIfChanged(Map<String, Object> changes, JsonObject patch, String name,
+                                     Object value, Object current) {
+        if (patch.containsKey(name) && !Objects.equals(value, current)) {
+            changes.put(name, value);
+        }
+    }
+    
+    private void validatePage(Integer offset, Integer limit) {
+        if (offset != null && offset < 0) {
+            throw new IllegalArgumentException("offset cannot be negative");
+        }
+        if (limit != null && (limit < 1 || limit > MAX_PAGE_SIZE)) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+    
+    /**
+     * Validate only the given properties of a BookDTO
+     */
+    private void validateBookProperties(BookDTO bookDTO, Set<String> properties) {
+        Set<ConstraintViolation<BookDTO>> violations = new HashSet<>();
+        for (String property : properties) {
+            violations.addAll(validator.validateProperty(bookDTO, property));
+        }
+        if (!violations.isEmpty()) {
+            StringBuilder sb = new StringBuilder();
+            for (ConstraintViolation<BookDTO> violation : violations) {
+                sb.append(violation.getMessage()).append("; ");
+            }
+            throw new ConstraintViolationException("Validation failed: " + sb.toString(), violations);
+        }
     }
     
     /**
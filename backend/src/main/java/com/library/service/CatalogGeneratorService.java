@@ -0,0 +1,134 @@
+package com.library.service;
+
+import com.library.dto.CatalogGenerationDTO;
+import com.library.dto.CatalogGenerationRequest;
+import com.library.exception.JobConflictException;
+import com.library.tools.CatalogGenerator;
+import com.library.util.AppConfig;
+import com.library.util.DatabaseConfig;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Singleton EJB running the synthetic catalog generator in the background for scale tests.
+ *
+ * Disabled unless library.generator.enabled is true, since it can add (or, with truncate,
+ * replace) millions of books. Producers use direct connections because COPY needs the
+ * driver's own connection class. Books are loaded with COPY, bypassing BookService; the
+ * generator announces the load on the book change channel instead, and every node, this
+ * one included, refreshes its cache, existence filters and count statistics from that.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class CatalogGeneratorService {
+
+    private static final Logger LOGGER = Logger.getLogger(CatalogGeneratorService.class.getName());
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private static final int MAX_PRODUCERS = 32;
+
+    private final boolean enabled = AppConfig.getBoolean("library.generator.enabled", false);
+
+    // Latest run on this node
+    private volatile Run current;
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start generating a catalog in the background
+     */
+    public synchronized CatalogGenerationDTO start(CatalogGenerationRequest request) {
+        if (current != null && STATUS_RUNNING.equals(current.status)) {
+            throw new JobConflictException("A catalog generation is already running");
+        }
+        CatalogGenerationRequest r = request != null ? request : new CatalogGenerationRequest();
+        int producers = r.getProducers() != null ? r.getProducers() : Runtime.getRuntime().availableProcessors();
+        if (producers < 1 || producers > MAX_PRODUCERS) {
+            throw new IllegalArgumentException("producers must be between 1 and " + MAX_PRODUCERS);
+        }
+        long seed = r.getSeed() != null ? r.getSeed() : 42L;
+        CatalogGenerator generator = new CatalogGenerator(r.getRows() != null ? r.getRows() : 1_000_000L, seed, producers,
+                                                          r.getAuthors() != null ? r.getAuthors() : 0,
+                                                          r.getZipf() != null ? r.getZipf() : 0.8);
+
+        Run run = new Run(generator, seed);
+        Thread thread = threadFactory.newThread(() -> generate(run, r.isTruncate(), r.isDeferIndexes()));
+        thread.setName("catalog-generator");
+        current = run;
+        thread.start();
+
+        LOGGER.info("Started generating " + generator.getRows() + " books with seed " + seed);
+        return toDTO(run);
+    }
+
+    /**
+     * Status of the latest generation on this node, or null if none ran since startup
+     */
+    public CatalogGenerationDTO getStatus() {
+        Run run = current;
+        return run != null ? toDTO(run) : null;
+    }
+
+    private void generate(Run run, boolean truncate, boolean deferIndexes) {
+        try {
+            run.generator.generate(DatabaseConfig::openConnection, threadFactory, truncate, deferIndexes);
+            run.status = STATUS_COMPLETED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.error = "Interrupted";
+            run.status = STATUS_FAILED;
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Catalog generation failed: " + e.getMessage(), e);
+            run.error = e.getMessage();
+            run.status = STATUS_FAILED;
+        } finally {
+            run.finishedNanos = System.nanoTime();
+        }
+    }
+
+    private static CatalogGenerationDTO toDTO(Run run) {
+        long end = run.finishedNanos != 0 ? run.finishedNanos : System.nanoTime();
+        long elapsedMs = (end - run.startedNanos) / 1_000_000;
+        long written = run.generator.getRowsWritten();
+
+        CatalogGenerationDTO dto = new CatalogGenerationDTO();
+        dto.setStatus(run.status);
+        dto.setRows(run.generator.getRows());
+        dto.setSeed(run.seed);
+        dto.setRowsWritten(written);
+        dto.setElapsedMs(elapsedMs);
+        dto.setRowsPerMinute(written * 60_000 / Math.max(1, elapsedMs));
+        dto.setError(run.error);
+        return dto;
+    }
+
+    /**
+     * One generation run
+     */
+    private static final class Run {
+        final CatalogGenerator generator;
+        final long seed;
+        final long startedNanos = System.nanoTime();
+        volatile long finishedNanos;
+        volatile String status = STATUS_RUNNING;
+        volatile String error;
+
+        Run(CatalogGenerator generator, long seed) {
+            this.generator = generator;
+            this.seed = seed;
+        }
+    }
+}
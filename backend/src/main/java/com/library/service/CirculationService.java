@@ -0,0 +1,220 @@
+package com.library.service;
+
+import com.library.dto.AvailabilityDTO;
+import com.library.dto.CheckoutRequest;
+import com.library.dto.LoanDTO;
+import com.library.entity.Book;
+import com.library.entity.BookCopy;
+import com.library.entity.Loan;
+import com.library.exception.BookNotFoundException;
+import com.library.exception.CirculationConflictException;
+import com.library.exception.LoanNotFoundException;
+import com.library.util.AppConfig;
+import com.library.util.BookMapper;
+import jakarta.ejb.Stateless;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Stateless EJB for copies, checkouts and returns.
+ *
+ * Availability is never stored as a counter on the book: it is derived from the copies
+ * themselves. A checkout claims any one available copy with FOR UPDATE SKIP LOCKED, so
+ * concurrent checkouts of a bestseller each lock a different copy instead of queueing
+ * behind one hot row, and two patrons can never receive the same copy. Checkouts for the
+ * same patron are serialized by an advisory lock, so the loan limit holds under concurrency.
+ */
+@Stateless
+public class CirculationService {
+
+    private static final Logger LOGGER = Logger.getLogger(CirculationService.class.getName());
+
+    // Claim one available copy; copies locked by concurrent checkouts are skipped, not waited for
+    static final String CLAIM_COPY_SQL =
+        "UPDATE book_copies SET status = 'ON_LOAN' WHERE id = ("
+        + "SELECT id FROM book_copies WHERE book_id = ?1 AND status = 'AVAILABLE' "
+        + "LIMIT 1 FOR UPDATE SKIP LOCKED) RETURNING id";
+
+    // Transaction-scoped lock on one patron, in a key space of its own (first key), so
+    // concurrent checkouts for the patron count open loans one after another
+    static final String LOCK_PATRON_SQL = "SELECT 1 FROM pg_advisory_xact_lock(35, hashtext(?1))";
+
+    private static final int MAX_COPIES_PER_REQUEST = 1000;
+    private static final int MAX_PATRON_ID_LENGTH = 64;
+
+    private final int loanDays = AppConfig.getInt("library.circulation.loan-days", 21);
+    private final int maxLoansPerPatron = AppConfig.getInt("library.circulation.max-loans-per-patron", 10);
+
+    @PersistenceContext(unitName = "bookLibraryPU")
+    private EntityManager entityManager;
+
+    /**
+     * Add new available copies of a book
+     */
+    public AvailabilityDTO addCopies(Long bookId, int count) {
+        LOGGER.info("Adding " + count + " copies of book " + bookId);
+
+        if (bookId == null) {
+            throw new IllegalArgumentException("Book ID cannot be null");
+        }
+        if (count < 1 || count > MAX_COPIES_PER_REQUEST) {
+            throw new IllegalArgumentException("count must be between 1 and " + MAX_COPIES_PER_REQUEST);
+        }
+        if (entityManager.find(Book.class, bookId) == null) {
+            throw new BookNotFoundException(bookId);
+        }
+
+        for (int i = 0; i < count; i++) {
+            entityManager.persist(new BookCopy(bookId));
+        }
+        entityManager.flush();
+        return getAvailability(bookId);
+    }
+
+    /**
+     * Lend any available copy of the book to the patron
+     */
+    public LoanDTO checkout(CheckoutRequest request) {
+        validateCheckout(request);
+        Long bookId = request.getBookId();
+        String patronId = request.getPatronId().trim();
+        LOGGER.info("Checking out book " + bookId + " for patron " + patronId);
+
+        // Without the lock, concurrent checkouts could each count the same loans and all pass the limit
+        entityManager.createNativeQuery(LOCK_PATRON_SQL)
+                     .setParameter(1, patronId)
+                     .getSingleResult();
+        long openLoans = entityManager.createNamedQuery("Loan.countOpenByPatron", Long.class)
+                                      .setParameter("patronId", patronId)
+                                      .getSingleResult();
+        if (openLoans >= maxLoansPerPatron) {
+            throw new CirculationConflictException("Patron " + patronId + " already has " + openLoans + " books on loan");
+        }
+
+        List<?> claimed = entityManager.createNativeQuery(CLAIM_COPY_SQL)
+                                       .setParameter(1, bookId)
+                                       .getResultList();
+        if (claimed.isEmpty()) {
+            if (entityManager.find(Book.class, bookId) == null) {
+                throw new BookNotFoundException(bookId);
+            }
+            throw new CirculationConflictException("No copy of book " + bookId + " is available");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Loan loan = new Loan(((Number) claimed.get(0)).longValue(), bookId, patronId, now, now.plusDays(loanDays));
+        entityManager.persist(loan);
+        entityManager.flush();
+
+        LOGGER.info("Lent copy " + loan.getCopyId() + " of book " + bookId + " as loan " + loan.getId());
+        return BookMapper.toLoanDTO(loan);
+    }
+
+    /**
+     * Return a loaned copy, making it available again
+     */
+    public LoanDTO returnLoan(Long loanId) {
+        LOGGER.info("Returning loan " + loanId);
+
+        if (loanId == null) {
+            throw new IllegalArgumentException("Loan ID cannot be null");
+        }
+        // Locks only this loan: concurrent returns of the same loan are serialized
+        Loan loan = entityManager.find(Loan.class, loanId, LockModeType.PESSIMISTIC_WRITE);
+        if (loan == null) {
+            throw new LoanNotFoundException(loanId);
+        }
+        if (loan.getReturnedAt() != null) {
+            throw new CirculationConflictException("Loan " + loanId + " was already returned");
+        }
+
+        loan.setReturnedAt(LocalDateTime.now());
+        entityManager.createQuery("UPDATE BookCopy c SET c.status = :status WHERE c.id = :id")
+                     .setParameter("status", BookCopy.AVAILABLE)
+                     .setParameter("id", loan.getCopyId())
+                     .executeUpdate();
+        return BookMapper.toLoanDTO(loan);
+    }
+
+    /**
+     * Delete the copies of books that are about to be deleted, in the caller's transaction.
+     * Loans are circulation history and keep the copies they reference, so a book with a
+     * copy on loan or with past loans cannot be deleted.
+     */
+    public void deleteCopiesOf(List<Long> bookIds) {
+        List<Object[]> lent = entityManager.createQuery(
+                "SELECT l.bookId, SUM(CASE WHEN l.returnedAt IS NULL THEN 1 ELSE 0 END) FROM Loan l "
+                + "WHERE l.bookId IN :bookIds GROUP BY l.bookId ORDER BY l.bookId", Object[].class)
+            .setParameter("bookIds", bookIds)
+            .setMaxResults(1)
+            .getResultList();
+        if (!lent.isEmpty()) {
+            Object bookId = lent.get(0)[0];
+            long onLoan = ((Number) lent.get(0)[1]).longValue();
+            throw new CirculationConflictException(onLoan > 0
+                ? "Book " + bookId + " has " + onLoan + " copies on loan"
+                : "Book " + bookId + " has loan history and cannot be deleted");
+        }
+        entityManager.createQuery("DELETE FROM BookCopy c WHERE c.bookId IN :bookIds")
+                     .setParameter("bookIds", bookIds)
+                     .executeUpdate();
+    }
+
+    /**
+     * Count the copies of a book by status
+     */
+    public AvailabilityDTO getAvailability(Long bookId) {
+        if (bookId == null) {
+            throw new IllegalArgumentException("Book ID cannot be null");
+        }
+
+        List<Object[]> counts = entityManager.createNamedQuery("BookCopy.countByBookAndStatus", Object[].class)
+                                             .setParameter("bookId", bookId)
+                                             .getResultList();
+        AvailabilityDTO availability = new AvailabilityDTO();
+        availability.setBookId(bookId);
+        for (Object[] row : counts) {
+            long count = ((Number) row[1]).longValue();
+            if (BookCopy.AVAILABLE.equals(row[0])) {
+                availability.setAvailable(count);
+            } else if (BookCopy.ON_LOAN.equals(row[0])) {
+                availability.setOnLoan(count);
+            }
+            availability.setTotalCopies(availability.getTotalCopies() + count);
+        }
+        if (counts.isEmpty() && entityManager.find(Book.class, bookId) == null) {
+            throw new BookNotFoundException(bookId);
+        }
+        return availability;
+    }
+
+    /**
+     * Get the open loans of a patron, earliest due first
+     */
+    public List<LoanDTO> getOpenLoans(String patronId) {
+        if (patronId == null || patronId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Patron ID cannot be empty");
+        }
+
+        List<Loan> loans = entityManager.createNamedQuery("Loan.findOpenByPatron", Loan.class)
+                                        .setParameter("patronId", patronId.trim())
+                                        .getResultList();
+        return BookMapper.toLoanDTOList(loans);
+    }
+
+    private void validateCheckout(CheckoutRequest request) {
+        if (request == null || request.getBookId() == null) {
+            throw new IllegalArgumentException("Checkout requires a bookId");
+        }
+        if (request.getPatronId() == null || request.getPatronId().trim().isEmpty()) {
+            throw new IllegalArgumentException("Checkout requires a patronId");
+        }
+        if (request.getPatronId().trim().length() > MAX_PATRON_ID_LENGTH) {
+            throw new IllegalArgumentException("patronId cannot exceed " + MAX_PATRON_ID_LENGTH + " characters");
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.library.service;
+
+import com.library.util.AppConfig;
+import com.library.util.CoverStore;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.Timeout;
+import jakarta.ejb.TimerConfig;
+import jakarta.ejb.TimerService;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Singleton EJB owning the cover image store and its thumbnail workers.
+ *
+ * Thumbnails are rendered at upload time by a small fixed pool with a bounded queue, so
+ * request threads never decode or resize images. When the queue is full the thumbnail is
+ * skipped rather than blocking the upload; the first download that finds it missing queues
+ * it again and meanwhile gets the original.
+ *
+ * Replacing or removing a cover, or deleting its book, leaves the image behind. A timer
+ * sweeps the store and deletes the images no book references once they are older than a
+ * grace period, which keeps an upload whose book is not updated yet.
+ */
+@Singleton
+@Startup
+@DependsOn("StartupService")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class CoverService {
+
+    private static final Logger LOGGER = Logger.getLogger(CoverService.class.getName());
+
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
+    private static final long MAX_THUMBNAIL_SOURCE_PIXELS = 50_000_000L;
+
+    private final long maxBytes = AppConfig.getInt("library.covers.max-bytes", 5 * 1024 * 1024);
+    private final int thumbnailWidth = AppConfig.getInt("library.covers.thumbnail-width", 200);
+    private final long sweepIntervalMs = AppConfig.getInt("library.covers.sweep-interval-hours", 24) * 3_600_000L;
+    private final Duration sweepGrace = Duration.ofHours(AppConfig.getInt("library.covers.sweep-grace-hours", 24));
+
+    // Hashes queued or being rendered, so repeated requests do not queue duplicates
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    // Hashes whose thumbnail cannot be rendered; their original is served instead
+    private final Set<String> unsupported = ConcurrentHashMap.newKeySet();
+
+    private CoverStore store;
+    private ThreadPoolExecutor thumbnailPool;
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    @Resource
+    private TimerService timerService;
+
+    @EJB
+    private BookService bookService;
+
+    @PostConstruct
+    public void start() {
+        String defaultDir = System.getProperty("jboss.server.data.dir", System.getProperty("java.io.tmpdir"));
+        Path root = Paths.get(AppConfig.getString("library.covers.dir", Paths.get(defaultDir, "covers").toString()));
+        try {
+            store = new CoverStore(root);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create cover store in " + root, e);
+        }
+
+        int threads = Math.max(1, AppConfig.getInt("library.covers.thumbnail-threads", 2));
+        int queueCapacity = Math.max(1, AppConfig.getInt("library.covers.thumbnail-queue", 100));
+        thumbnailPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                               new ArrayBlockingQueue<>(queueCapacity), threadFactory,
+                                               new ThreadPoolExecutor.AbortPolicy());
+        if (sweepIntervalMs > 0) {
+            timerService.createIntervalTimer(sweepIntervalMs, sweepIntervalMs, new TimerConfig("cover-sweep", false));
+        }
+        LOGGER.info("Cover store at " + root + " with " + threads + " thumbnail workers");
+    }
+
+    @PreDestroy
+    public void stop() {
+        thumbnailPool.shutdown();
+        try {
+            if (!thumbnailPool.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                thumbnailPool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            thumbnailPool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Store an uploaded image and queue its thumbnail
+     */
+    public CoverStore.StoredImage store(InputStream image) throws IOException {
+        CoverStore.StoredImage stored = store.store(image, maxBytes);
+        LOGGER.info("Stored cover " + stored.getHash() + " (" + stored.getSize() + " bytes, "
+                    + stored.getContentType() + ")");
+        requestThumbnail(stored.getHash());
+        return stored;
+    }
+
+    /**
+     * The stored original image
+     */
+    public Path getOriginal(String hash) {
+        return store.getOriginal(hash);
+    }
+
+    /**
+     * The thumbnail of an image, or null while it is not rendered (yet) and the original
+     * should be served instead
+     */
+    public Path getThumbnail(String hash) {
+        Path thumbnail = store.getThumbnail(hash, thumbnailWidth);
+        if (Files.exists(thumbnail)) {
+            return thumbnail;
+        }
+        requestThumbnail(hash);
+        return null;
+    }
+
+    public int getThumbnailWidth() {
+        return thumbnailWidth;
+    }
+
+    /**
+     * Delete the images that no book references any more
+     */
+    @Timeout
+    public void sweep() {
+        long start = System.nanoTime();
+        try {
+            List<String> deleted = store.sweep(Instant.now().minus(sweepGrace), bookService::findReferencedCoverHashes);
+            unsupported.removeAll(deleted);
+            LOGGER.info("Cover sweep deleted " + deleted.size() + " unreferenced images in "
+                        + (System.nanoTime() - start) / 1_000_000 + " ms");
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Cover sweep failed: " + e.getMessage(), e);
+        }
+    }
+
+    private void requestThumbnail(String hash) {
+        if (unsupported.contains(hash) || !pending.add(hash)) {
+            return;
+        }
+        try {
+            thumbnailPool.execute(() -> renderThumbnail(hash));
+        } catch (RejectedExecutionException e) {
+            pending.remove(hash);
+            LOGGER.warning("Thumbnail queue full, skipped thumbnail of cover " + hash);
+        }
+    }
+
+    private void renderThumbnail(String hash) {
+        try {
+            if (!store.createThumbnail(hash, thumbnailWidth, MAX_THUMBNAIL_SOURCE_PIXELS)) {
+                unsupported.add(hash);
+                LOGGER.info("No thumbnail for cover " + hash + ": format not decodable or image too large");
+            }
+        } catch (Exception e) {
+            unsupported.add(hash);
+            LOGGER.log(Level.WARNING, "Failed to render thumbnail of cover " + hash + ": " + e.getMessage(), e);
+        } finally {
+            pending.remove(hash);
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.library.service;
+
+import com.library.dto.DedupeJobDTO;
+import com.library.dto.DuplicateCandidateDTO;
+import com.library.entity.DedupeJob;
+import com.library.entity.DuplicateCandidate;
+import com.library.exception.JobConflictException;
+import com.library.store.BookPartitions;
+import com.library.store.StorageMode;
+import com.library.util.AppConfig;
+import com.library.util.BookMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.Timeout;
+import jakarta.ejb.TimerConfig;
+import jakarta.ejb.TimerService;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+
+/**
+ * Singleton EJB running duplicate detection jobs over the catalog, on demand or on a schedule.
+ *
+ * A job runs on a background thread and scores pairs on a fork/join pool sized to the
+ * machine (see DuplicateDetector). Only one job runs across all nodes at a time, enforced
+ * with a PostgreSQL advisory lock held for the duration of the job. Job status and the
+ * candidate pairs are stored in dedupe_jobs and dedupe_candidates. With
+ * library.dedupe.key-indexes, a job first creates the missing indexes on the pass keys,
+ * concurrently with other writes, and keeps them for later jobs.
+ */
+@Singleton
+@Startup
+@DependsOn("StartupService")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class DuplicateDetectionService {
+
+    private static final Logger LOGGER = Logger.getLogger(DuplicateDetectionService.class.getName());
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_CANCELLED = "CANCELLED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    // Arbitrary key for the advisory lock that allows one dedupe job across nodes
+    private static final long LOCK_KEY = 0x6465647570654A4FL;
+
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final long SHUTDOWN_TIMEOUT_MS = 30_000;
+
+    private final int parallelism =
+        AppConfig.getInt("library.dedupe.parallelism", Runtime.getRuntime().availableProcessors());
+    private final int window = AppConfig.getInt("library.dedupe.window", 10);
+    private final int chunkSize = AppConfig.getInt("library.dedupe.chunk-size", 20_000);
+    private final double threshold = AppConfig.getInt("library.dedupe.threshold-per-mille", 920) / 1000.0;
+    private final int intervalHours = AppConfig.getInt("library.dedupe.interval-hours", 0);
+    private final boolean keyIndexes = AppConfig.getBoolean("library.dedupe.key-indexes", false);
+
+    private final AtomicReference<RunningJob> running = new AtomicReference<>();
+
+    @PersistenceContext(unitName = "bookLibraryPU")
+    private EntityManager entityManager;
+
+    @Resource(lookup = "java:jboss/datasources/BookLibraryDS")
+    private DataSource dataSource;
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    @Resource
+    private TimerService timerService;
+
+    @PostConstruct
+    public void start() {
+        if (window < 1 || chunkSize < 1 || parallelism < 1) {
+            throw new IllegalStateException("Invalid dedupe settings: window, chunk size and parallelism "
+                                            + "must be at least 1");
+        }
+        if (StorageMode.isOffHeap()) {
+            LOGGER.info("Duplicate detection disabled with the off-heap book store");
+            return;
+        }
+        failInterruptedJobs();
+        if (intervalHours > 0) {
+            long intervalMs = intervalHours * 3_600_000L;
+            timerService.createIntervalTimer(intervalMs, intervalMs, new TimerConfig("dedupe-schedule", false));
+            LOGGER.info("Scheduled duplicate detection every " + intervalHours + " hours");
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        RunningJob job = running.get();
+        if (job != null) {
+            job.progress.cancel();
+            try {
+                job.thread.join(SHUTDOWN_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Start a job in the background and return its initial status
+     */
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public DedupeJobDTO startJob() {
+        Connection lockConnection = null;
+        try {
+            lockConnection = dataSource.getConnection();
+            if (!tryLock(lockConnection)) {
+                throw new JobConflictException("A duplicate detection job is already running");
+            }
+
+            long jobId = insertJob(lockConnection);
+            DuplicateDetector.Progress progress = new DuplicateDetector.Progress(estimateRowCount(lockConnection));
+            RunningJob job = new RunningJob(jobId, progress, lockConnection);
+            job.thread = threadFactory.newThread(() -> runJob(job));
+            job.thread.setName("dedupe-job-" + jobId);
+            running.set(job);
+            lockConnection = null; // Released by the job thread
+            job.thread.start();
+
+            LOGGER.info("Started duplicate detection job " + jobId + " on " + parallelism + " workers");
+            return getJob(jobId);
+
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to start duplicate detection job: " + e.getMessage(), e);
+        } finally {
+            if (lockConnection != null) {
+                unlockAndClose(lockConnection);
+            }
+        }
+    }
+
+    /**
+     * Scheduled run; skipped when a job is already running
+     */
+    @Timeout
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void scheduledRun() {
+        try {
+            startJob();
+        } catch (JobConflictException e) {
+            LOGGER.info("Skipping scheduled duplicate detection: " + e.getMessage());
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "Scheduled duplicate detection failed to start: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Request cancellation of a running job. Returns null when the job does not exist.
+     */
+    public DedupeJobDTO cancelJob(Long id) {
+        RunningJob job = running.get();
+        if (job != null && job.id == id) {
+            job.progress.cancel();
+            LOGGER.info("Cancellation requested for duplicate detection job " + id);
+            return getJob(id);
+        }
+        DedupeJobDTO existing = getJob(id);
+        if (existing != null && STATUS_RUNNING.equals(existing.getStatus())) {
+            throw new JobConflictException("Job " + id + " is running on another node");
+        }
+        if (existing != null) {
+            throw new JobConflictException("Job " + id + " is not running (status " + existing.getStatus() + ")");
+        }
+        return null;
+    }
+
+    /**
+     * Get a job with live progress when it runs on this node. Returns null when it does not exist.
+     */
+    public DedupeJobDTO getJob(Long id) {
+        DedupeJobDTO dto = BookMapper.toDedupeJobDTO(entityManager.find(DedupeJob.class, id));
+        RunningJob job = running.get();
+        if (dto != null && job != null && job.id == id && STATUS_RUNNING.equals(dto.getStatus())) {
+            DuplicateDetector.Pass pass = job.progress.getPass();
+            dto.setBooksScanned(job.progress.getBooksScanned());
+            dto.setPairsFound(job.progress.getPairs());
+            dto.setCurrentPass(pass != null ? pass.name() : null);
+            dto.setProgressPercent(job.progress.getPercent());
+        }
+        return dto;
+    }
+
+    /**
+     * Get the most recent jobs, newest first
+     */
+    public List<DedupeJobDTO> getRecentJobs(int limit) {
+        List<DedupeJob> jobs = entityManager.createNamedQuery("DedupeJob.findRecent", DedupeJob.class)
+                                            .setMaxResults(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)))
+                                            .getResultList();
+        return jobs.stream()
+                   .map(j -> getJob(j.getId()))
+                   .collect(Collectors.toList());
+    }
+
+    /**
+     * Get one page of a job's candidate pairs, best score first
+     */
+    public List<DuplicateCandidateDTO> getCandidates(Long jobId, double minScore, int offset, int limit) {
+        if (offset < 0 || limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("offset must be >= 0 and limit between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<DuplicateCandidate> candidates =
+            entityManager.createNamedQuery("DuplicateCandidate.findByJob", DuplicateCandidate.class)
+                         .setParameter("jobId", jobId)
+                         .setParameter("minScore", minScore)
+                         .setFirstResult(offset)
+                         .setMaxResults(limit)
+                         .getResultList();
+        return BookMapper.toCandidateDTOList(candidates);
+    }
+
+    private void runJob(RunningJob job) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism, threadFactory, null, false);
+        String status;
+        String error = null;
+        try {
+            DuplicateDetector detector = new DuplicateDetector(dataSource, pool, window, chunkSize, threshold);
+            if (keyIndexes) {
+                detector.createKeyIndexes();
+            }
+            detector.run(job.id, job.progress);
+            status = job.progress.isCancelled() ? STATUS_CANCELLED : STATUS_COMPLETED;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = STATUS_CANCELLED;
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, "Duplicate detection job " + job.id + " failed: " + e.getMessage(), e);
+            status = STATUS_FAILED;
+            error = e.getMessage();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        try {
+            finishJob(job, status, error);
+            LOGGER.info("Duplicate detection job " + job.id + " " + status.toLowerCase()
+                        + ": " + job.progress.getPairs() + " candidate pairs");
+        } catch (SQLException e) {
+            LOGGER.log(Level.SEVERE, "Failed to record result of duplicate detection job " + job.id + ": " + e.getMessage(), e);
+        } finally {
+            running.set(null);
+            unlockAndClose(job.lockConnection);
+        }
+    }
+
+    private long insertJob(Connection connection) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO dedupe_jobs (status, started_at) VALUES (?, CURRENT_TIMESTAMP) RETURNING id")) {
+            insert.setString(1, STATUS_RUNNING);
+            try (ResultSet rs = insert.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    private void finishJob(RunningJob job, String status, String error) throws SQLException {
+        try (PreparedStatement update = job.lockConnection.prepareStatement(
+                "UPDATE dedupe_jobs SET status = ?, finished_at = CURRENT_TIMESTAMP, books_scanned = ?, error = ?, "
+                + "pairs_found = (SELECT COUNT(*) FROM dedupe_candidates WHERE job_id = ?) WHERE id = ?")) {
+            update.setString(1, status);
+            update.setLong(2, job.progress.getBooksScanned());
+            update.setString(3, error != null && error.length() > 1000 ? error.substring(0, 1000) : error);
+            update.setLong(4, job.id);
+            update.setLong(5, job.id);
+            update.executeUpdate();
+        }
+    }
+
+    /**
+     * Mark jobs left RUNNING by a node that died as failed, unless a job is in fact running
+     */
+    private void failInterruptedJobs() {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!tryLock(connection)) {
+                return;
+            }
+            try (Statement statement = connection.createStatement()) {
+                int updated = statement.executeUpdate(
+                    "UPDATE dedupe_jobs SET status = '" + STATUS_FAILED + "', finished_at = CURRENT_TIMESTAMP, "
+                    + "error = 'Interrupted by shutdown' WHERE status = '" + STATUS_RUNNING + "'");
+                if (updated > 0) {
+                    LOGGER.warning("Marked " + updated + " interrupted duplicate detection jobs as failed");
+                }
+            } finally {
+                unlock(connection);
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to clean up interrupted duplicate detection jobs: " + e.getMessage(), e);
+        }
+    }
+
+    private boolean tryLock(Connection connection) throws SQLException {
+        connection.setAutoCommit(true);
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT pg_try_advisory_lock(" + LOCK_KEY + ")")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private void unlock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT pg_advisory_unlock(" + LOCK_KEY + ")");
+        }
+    }
+
+    /**
+     * Release the session-level lock before the connection goes back to the pool
+     */
+    private void unlockAndClose(Connection connection) {
+        try (Connection c = connection) {
+            unlock(c);
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to release duplicate detection lock: " + e.getMessage(), e);
+        }
+    }
+
+    private long estimateRowCount(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(BookPartitions.ROW_ESTIMATE_SQL);
+             ResultSet rs = statement.executeQuery()) {
+            return rs.next() ? Math.max(rs.getLong(1), 0) : 0;
+        }
+    }
+
+    /**
+     * A job running on this node, with the connection holding the advisory lock
+     */
+    private static final class RunningJob {
+        final long id;
+        final DuplicateDetector.Progress progress;
+        final Connection lockConnection;
+        Thread thread;
+
+        RunningJob(long id, DuplicateDetector.Progress progress, Connection lockConnection) {
+            this.id = id;
+            this.progress = progress;
+            this.lockConnection = lockConnection;
+        }
+    }
+}
@@ -0,0 +1,458 @@
+package com.library.service;
+
+import com.library.util.StringSimilarity;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * Sorted-neighbourhood duplicate detection over the books table.
+ *
+ * Each pass streams every book through a server-side cursor ordered by a blocking key
+ * (normalized author then title, normalized title then author, ISBN core), so likely
+ * duplicates arrive next to each other and each book is only compared with the window of
+ * books before it: the work is linear in the catalog size. Each key can have an expression
+ * index (createKeyIndexes), so the database reads the pass in index order instead of sorting
+ * the whole table first. The indexes are optional because every write to books pays for
+ * them. The stream is cut into chunks that overlap by the window; chunks are scored on a fork/join pool while the next
+ * one is read, with the number of chunks in flight bounded so memory stays flat. Pairs are
+ * inserted in batches, and a pair found by several passes is stored once.
+ */
+public class DuplicateDetector {
+
+    private static final Logger LOGGER = Logger.getLogger(DuplicateDetector.class.getName());
+
+    // Used both in the pass queries and in the index definitions, which must match exactly
+    private static final String NORMALIZED_AUTHOR = "regexp_replace(lower(author), '[^a-z0-9]+', '', 'g')";
+    private static final String NORMALIZED_TITLE = "regexp_replace(lower(title), '[^a-z0-9]+', '', 'g')";
+    private static final String ISBN_DIGITS = "regexp_replace(upper(isbn), '[^0-9X]+', '', 'g')";
+    private static final String ISBN_CORE =
+        "CASE WHEN length(" + ISBN_DIGITS + ") = 13 AND left(" + ISBN_DIGITS + ", 3) = '978' "
+        + "THEN substr(" + ISBN_DIGITS + ", 4, 9) "
+        + "WHEN length(" + ISBN_DIGITS + ") = 10 THEN left(" + ISBN_DIGITS + ", 9) "
+        + "ELSE " + ISBN_DIGITS + " END";
+
+    private static final String INSERT_SQL =
+        "INSERT INTO dedupe_candidates (job_id, book_id_a, book_id_b, score, reason) VALUES (?, ?, ?, ?, ?) "
+        + "ON CONFLICT (job_id, book_id_a, book_id_b) DO NOTHING";
+
+    private static final double TITLE_WEIGHT = 0.6;
+    private static final double AUTHOR_WEIGHT = 0.4;
+
+    // Rows per fork/join leaf task
+    private static final int LEAF_SIZE = 512;
+    private static final int FETCH_SIZE = 10_000;
+    private static final int INSERT_BATCH_SIZE = 1_000;
+
+    /**
+     * Orderings that bring likely duplicates together
+     */
+    public enum Pass {
+        AUTHOR_TITLE("idx_books_dedupe_author_title", NORMALIZED_AUTHOR + ", " + NORMALIZED_TITLE),
+        TITLE_AUTHOR("idx_books_dedupe_title_author", NORMALIZED_TITLE + ", " + NORMALIZED_AUTHOR),
+        ISBN("idx_books_dedupe_isbn_core", "(" + ISBN_CORE + ")");
+
+        private final String index;
+        private final String key;
+
+        Pass(String index, String key) {
+            this.index = index;
+            this.key = key;
+        }
+
+        String sql() {
+            return "SELECT id, title, author, isbn FROM books ORDER BY " + key + ", id";
+        }
+    }
+
+    private final DataSource dataSource;
+    private final ForkJoinPool pool;
+    private final int window;
+    private final int chunkSize;
+    private final double threshold;
+
+    public DuplicateDetector(DataSource dataSource, ForkJoinPool pool, int window, int chunkSize, double threshold) {
+        this.dataSource = dataSource;
+        this.pool = pool;
+        this.window = window;
+        this.chunkSize = Math.max(chunkSize, window);
+        this.threshold = threshold;
+    }
+
+    /**
+     * Run all passes for the job, recording candidate pairs under its ID.
+     * Returns normally when cancelled; the progress tells whether the run completed.
+     */
+    public void run(long jobId, Progress progress) throws SQLException, InterruptedException {
+        Pass[] passes = Pass.values();
+        for (int i = 0; i < passes.length && !progress.isCancelled(); i++) {
+            progress.startPass(passes[i], i, passes.length);
+            long start = System.nanoTime();
+            runPass(jobId, passes[i], progress);
+            LOGGER.info("Dedupe job " + jobId + " pass " + passes[i] + " scanned " + progress.getRowsScored()
+                        + " books in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+
+    /**
+     * Create the missing expression indexes on the pass keys without blocking writes to books.
+     * CREATE INDEX CONCURRENTLY scans the table twice and waits for running transactions, so
+     * this takes a while on a large catalog; an index left invalid by an interrupted build is
+     * dropped and built again. A partitioned books table gets the index on each partition,
+     * attached to an index on the parent.
+     */
+    public void createKeyIndexes() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true); // CONCURRENTLY cannot run inside a transaction
+            List<String> partitions = partitions(connection);
+            for (Pass pass : Pass.values()) {
+                long start = System.nanoTime();
+                String columns = " (" + pass.key + ", id)";
+                try (Statement statement = connection.createStatement()) {
+                    if (partitions.isEmpty()) {
+                        createConcurrently(connection, pass.index, "books", columns);
+                    } else if (!Boolean.TRUE.equals(isValid(connection, pass.index))) {
+                        // Valid once every partition's index is attached
+                        statement.execute("CREATE INDEX IF NOT EXISTS " + pass.index + " ON ONLY books" + columns);
+                        for (String partition : partitions) {
+                            String index = pass.index.replace("idx_books", "idx_" + partition);
+                            createConcurrently(connection, index, partition, columns);
+                            if (!isAttached(connection, index)) {
+                                statement.execute("ALTER INDEX " + pass.index + " ATTACH PARTITION " + index);
+                            }
+                        }
+                    }
+                }
+                LOGGER.info("Dedupe key index " + pass.index + " ready in "
+                            + (System.nanoTime() - start) / 1_000_000 + " ms");
+            }
+        }
+    }
+
+    private static void createConcurrently(Connection connection, String index, String table, String columns)
+            throws SQLException {
+        Boolean valid = isValid(connection, index);
+        if (Boolean.TRUE.equals(valid)) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            if (valid != null) {
+                LOGGER.warning("Rebuilding index " + index + ", left invalid by an interrupted build");
+                statement.execute("DROP INDEX CONCURRENTLY IF EXISTS " + index);
+            }
+            statement.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + index + " ON " + table + columns);
+        }
+    }
+
+    /**
+     * Whether the index is valid, or null if it does not exist
+     */
+    private static Boolean isValid(Connection connection, String index) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                 "SELECT indisvalid FROM pg_index WHERE indexrelid = to_regclass('" + index + "')")) {
+            return rs.next() ? rs.getBoolean(1) : null;
+        }
+    }
+
+    private static boolean isAttached(Connection connection, String index) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                 "SELECT EXISTS (SELECT 1 FROM pg_inherits WHERE inhrelid = to_regclass('" + index + "'))")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    /**
+     * Partitions of books, empty while it is a plain table
+     */
+    private static List<String> partitions(Connection connection) throws SQLException {
+        List<String> partitions = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                 "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                 + "WHERE i.inhparent = 'books'::regclass ORDER BY c.relname")) {
+            while (rs.next()) {
+                partitions.add(rs.getString(1));
+            }
+        }
+        return partitions;
+    }
+
+    private void runPass(long jobId, Pass pass, Progress progress) throws SQLException, InterruptedException {
+        // Two chunks per worker keep every core busy while the reader fills the next one
+        int maxInFlight = pool.getParallelism() * 2;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        Queue<Candidate> found = new ConcurrentLinkedQueue<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        try (Connection reader = dataSource.getConnection();
+             Connection writer = dataSource.getConnection();
+             PreparedStatement insert = writer.prepareStatement(INSERT_SQL)) {
+
+            reader.setAutoCommit(false); // Required for the driver to stream with a cursor
+            writer.setAutoCommit(true);
+            try (Statement statement = reader.createStatement()) {
+                statement.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = statement.executeQuery(pass.sql())) {
+                    List<Record> chunk = new ArrayList<>(chunkSize + window);
+                    int overlap = 0;
+                    while (rs.next() && !progress.isCancelled()) {
+                        chunk.add(new Record(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4)));
+                        if (chunk.size() - overlap == chunkSize) {
+                            submit(chunk, overlap, inFlight, found, failure, progress);
+                            // The last window rows are compared again with the start of the next chunk
+                            List<Record> next = new ArrayList<>(chunkSize + window);
+                            next.addAll(chunk.subList(chunk.size() - window, chunk.size()));
+                            chunk = next;
+                            overlap = chunk.size();
+                            write(jobId, found, insert, progress, false);
+                        }
+                        checkFailure(failure);
+                    }
+                    if (chunk.size() > overlap && !progress.isCancelled()) {
+                        submit(chunk, overlap, inFlight, found, failure, progress);
+                    }
+                }
+            } finally {
+                // Wait for in-flight chunks before the pass ends (or the cursor is closed)
+                inFlight.acquire(maxInFlight);
+                inFlight.release(maxInFlight);
+                reader.rollback();
+            }
+            checkFailure(failure);
+            write(jobId, found, insert, progress, true);
+        }
+    }
+
+    private void submit(List<Record> chunk, int overlap, Semaphore inFlight, Queue<Candidate> found,
+                        AtomicReference<Throwable> failure, Progress progress) throws InterruptedException {
+        Record[] records = chunk.toArray(new Record[0]);
+        inFlight.acquire();
+        try {
+            pool.execute(() -> {
+                try {
+                    new ScoreTask(records, overlap, records.length, found, progress).invoke();
+                    progress.addRowsScored(records.length - overlap);
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Insert queued pairs; outside the final flush only whole batches are written
+     */
+    private void write(long jobId, Queue<Candidate> found, PreparedStatement insert, Progress progress,
+                       boolean flush) throws SQLException {
+        int batched = 0;
+        Candidate candidate;
+        while ((flush || found.size() >= INSERT_BATCH_SIZE) && (candidate = found.poll()) != null) {
+            insert.setLong(1, jobId);
+            insert.setLong(2, candidate.idA);
+            insert.setLong(3, candidate.idB);
+            insert.setDouble(4, candidate.score);
+            insert.setString(5, candidate.reason);
+            insert.addBatch();
+            if (++batched == INSERT_BATCH_SIZE) {
+                progress.addPairs(countInserted(insert.executeBatch()));
+                batched = 0;
+            }
+        }
+        if (batched > 0) {
+            progress.addPairs(countInserted(insert.executeBatch()));
+        }
+    }
+
+    private static int countInserted(int[] results) {
+        int inserted = 0;
+        for (int result : results) {
+            if (result > 0) {
+                inserted += result;
+            }
+        }
+        return inserted;
+    }
+
+    private static void checkFailure(AtomicReference<Throwable> failure) {
+        Throwable t = failure.get();
+        if (t != null) {
+            throw new IllegalStateException("Duplicate scoring failed: " + t.getMessage(), t);
+        }
+    }
+
+    /**
+     * Score a pair; null when it is not a likely duplicate
+     */
+    private Candidate compare(Record a, Record b) {
+        long idA = Math.min(a.id, b.id);
+        long idB = Math.max(a.id, b.id);
+        if (!a.isbnCore.isEmpty() && a.isbnCore.equals(b.isbnCore)) {
+            return new Candidate(idA, idB, 1.0, "isbn");
+        }
+        double title = StringSimilarity.jaroWinkler(a.title, b.title);
+        if (TITLE_WEIGHT * title + AUTHOR_WEIGHT < threshold) {
+            return null; // Cannot reach the threshold even with identical authors
+        }
+        double score = TITLE_WEIGHT * title + AUTHOR_WEIGHT * StringSimilarity.jaroWinkler(a.author, b.author);
+        return score >= threshold ? new Candidate(idA, idB, Math.round(score * 10_000) / 10_000.0, "title_author") : null;
+    }
+
+    /**
+     * Compares each row in [from, to) with the window rows before it, splitting large ranges
+     */
+    private final class ScoreTask extends RecursiveAction {
+        private final Record[] records;
+        private final int from;
+        private final int to;
+        private final Queue<Candidate> found;
+        private final Progress progress;
+
+        ScoreTask(Record[] records, int from, int to, Queue<Candidate> found, Progress progress) {
+            this.records = records;
+            this.from = from;
+            this.to = to;
+            this.found = found;
+            this.progress = progress;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ScoreTask(records, from, mid, found, progress),
+                          new ScoreTask(records, mid, to, found, progress));
+                return;
+            }
+            if (progress.isCancelled()) {
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                for (int j = Math.max(0, i - window); j < i; j++) {
+                    Candidate candidate = compare(records[j], records[i]);
+                    if (candidate != null) {
+                        found.add(candidate);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A book reduced to its comparison keys
+     */
+    private static final class Record {
+        final long id;
+        final String title;
+        final String author;
+        final String isbnCore;
+
+        Record(long id, String title, String author, String isbn) {
+            this.id = id;
+            this.title = StringSimilarity.normalize(title);
+            this.author = StringSimilarity.normalize(author);
+            this.isbnCore = StringSimilarity.isbnCore(isbn);
+        }
+    }
+
+    /**
+     * A likely duplicate pair, lower ID first
+     */
+    private static final class Candidate {
+        final long idA;
+        final long idB;
+        final double score;
+        final String reason;
+
+        Candidate(long idA, long idB, double score, String reason) {
+            this.idA = idA;
+            this.idB = idB;
+            this.score = score;
+            this.reason = reason;
+        }
+    }
+
+    /**
+     * Live progress of a run, readable from other threads; also carries the cancel flag
+     */
+    public static final class Progress {
+        private final long totalRows;
+        private final AtomicLong rowsScored = new AtomicLong();
+        private final AtomicLong pairs = new AtomicLong();
+        private volatile long booksScanned;
+        private volatile Pass pass;
+        private volatile int passIndex;
+        private volatile int passCount = 1;
+        private volatile boolean cancelled;
+
+        public Progress(long totalRows) {
+            this.totalRows = Math.max(1, totalRows);
+        }
+
+        void startPass(Pass pass, int index, int count) {
+            booksScanned = Math.max(booksScanned, rowsScored.getAndSet(0));
+            this.pass = pass;
+            this.passIndex = index;
+            this.passCount = count;
+        }
+
+        void addRowsScored(long rows) {
+            rowsScored.addAndGet(rows);
+        }
+
+        void addPairs(long count) {
+            pairs.addAndGet(count);
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public Pass getPass() {
+            return pass;
+        }
+
+        public long getRowsScored() {
+            return rowsScored.get();
+        }
+
+        public long getBooksScanned() {
+            return Math.max(booksScanned, rowsScored.get());
+        }
+
+        public long getPairs() {
+            return pairs.get();
+        }
+
+        /**
+         * Estimated completion in percent, based on the row estimate taken at start
+         */
+        public double getPercent() {
+            double passFraction = Math.min(1.0, (double) rowsScored.get() / totalRows);
+            return Math.round((passIndex + passFraction) / passCount * 1000) / 10.0;
+        }
+    }
+}
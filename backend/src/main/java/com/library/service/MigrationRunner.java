@@ -0,0 +1,249 @@
+package com.library.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Versioned schema migration runner.
+ * Scripts named V{version}__{description}.sql are listed in db/migration/index.txt and applied
+ * in order, one transaction per script. Applied versions are recorded in schema_migrations with
+ * a SHA-256 checksum so later startups skip them without inspecting the schema, and so an edited
+ * script is detected instead of silently drifting.
+ */
+public class MigrationRunner {
+
+    private static final Logger LOGGER = Logger.getLogger(MigrationRunner.class.getName());
+
+    private static final String MIGRATION_PATH = "db/migration/";
+    private static final String INDEX_FILE = MIGRATION_PATH + "index.txt";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    // Arbitrary key for the advisory lock that serializes migrations across nodes
+    private static final long LOCK_KEY = 0x626F6F6B6C6962L;
+
+    private final ClassLoader classLoader;
+
+    public MigrationRunner(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * Apply all pending migrations. Returns the number of scripts applied.
+     */
+    public int migrate(Connection connection) throws SQLException {
+        List<Migration> migrations = loadMigrations();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(true);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT pg_advisory_lock(" + LOCK_KEY + ")");
+        }
+        try {
+            createHistoryTable(connection);
+            Map<Integer, String> applied = loadAppliedChecksums(connection);
+
+            int count = 0;
+            for (Migration migration : migrations) {
+                String checksum = applied.get(migration.version);
+                if (checksum != null) {
+                    verifyChecksum(migration, checksum);
+                    continue;
+                }
+                applyMigration(connection, migration);
+                count++;
+            }
+            return count;
+
+        } finally {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT pg_advisory_unlock(" + LOCK_KEY + ")");
+            }
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Verify checksums of applied migrations and fail if any migration is pending.
+     * Read-only: takes no lock and creates nothing, so it also runs on a read-only database user.
+     */
+    public void validate(Connection connection) throws SQLException {
+        List<Migration> migrations = loadMigrations();
+        // Without the history table nothing has been applied yet
+        Map<Integer, String> applied = historyTableExists(connection) ? loadAppliedChecksums(connection) : Map.of();
+
+        List<String> pending = new ArrayList<>();
+        for (Migration migration : migrations) {
+            String checksum = applied.get(migration.version);
+            if (checksum != null) {
+                verifyChecksum(migration, checksum);
+            } else {
+                pending.add(migration.script);
+            }
+        }
+        if (!pending.isEmpty()) {
+            throw new IllegalStateException("Pending migrations have not been applied: " + String.join(", ", pending));
+        }
+    }
+
+    private static void verifyChecksum(Migration migration, String checksum) {
+        if (!checksum.equals(migration.checksum)) {
+            throw new IllegalStateException("Checksum mismatch for applied migration " + migration.script
+                                            + ": the script was modified after it was released");
+        }
+    }
+
+    private void applyMigration(Connection connection, Migration migration) throws SQLException {
+        LOGGER.info("Applying migration " + migration.script);
+        long start = System.nanoTime();
+        connection.setAutoCommit(false);
+        try {
+            // The PostgreSQL driver splits multi-statement scripts itself, honouring quotes and $$ bodies
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(migration.sql);
+            }
+            int elapsedMs = (int) ((System.nanoTime() - start) / 1_000_000);
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO schema_migrations (version, description, script, checksum, execution_ms) VALUES (?, ?, ?, ?, ?)")) {
+                insert.setInt(1, migration.version);
+                insert.setString(2, migration.description);
+                insert.setString(3, migration.script);
+                insert.setString(4, migration.checksum);
+                insert.setInt(5, elapsedMs);
+                insert.executeUpdate();
+            }
+            connection.commit();
+            LOGGER.info("Applied migration " + migration.script + " in " + elapsedMs + " ms");
+
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private void createHistoryTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS schema_migrations ("
+                              + "version INTEGER PRIMARY KEY, "
+                              + "description VARCHAR(200) NOT NULL, "
+                              + "script VARCHAR(255) NOT NULL, "
+                              + "checksum VARCHAR(64) NOT NULL, "
+                              + "installed_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+                              + "execution_ms INTEGER NOT NULL)");
+        }
+    }
+
+    private boolean historyTableExists(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT to_regclass('schema_migrations') IS NOT NULL")) {
+            rs.next();
+            return rs.getBoolean(1);
+        }
+    }
+
+    private Map<Integer, String> loadAppliedChecksums(Connection connection) throws SQLException {
+        Map<Integer, String> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT version, checksum FROM schema_migrations")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return applied;
+    }
+
+    private List<Migration> loadMigrations() {
+        List<Migration> migrations = new ArrayList<>();
+        int lastVersion = 0;
+        for (String script : readIndex()) {
+            Matcher matcher = SCRIPT_NAME.matcher(script);
+            if (!matcher.matches()) {
+                throw new IllegalStateException("Invalid migration script name: " + script);
+            }
+            int version = Integer.parseInt(matcher.group(1));
+            if (version <= lastVersion) {
+                throw new IllegalStateException("Migration versions must be strictly increasing: " + script);
+            }
+            lastVersion = version;
+
+            String sql = String.join("\n", readResource(MIGRATION_PATH + script));
+            migrations.add(new Migration(version, matcher.group(2).replace('_', ' '), script, sql, sha256(sql)));
+        }
+        return migrations;
+    }
+
+    private List<String> readIndex() {
+        List<String> lines = new ArrayList<>();
+        for (String line : readResource(INDEX_FILE)) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                lines.add(trimmed);
+            }
+        }
+        return lines;
+    }
+
+    private List<String> readResource(String resource) {
+        InputStream in = classLoader.getResourceAsStream(resource);
+        if (in == null) {
+            throw new IllegalStateException("Migration resource not found: " + resource);
+        }
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read migration resource " + resource, e);
+        }
+        return lines;
+    }
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * A migration script loaded from the classpath
+     */
+    private static final class Migration {
+        final int version;
+        final String description;
+        final String script;
+        final String sql;
+        final String checksum;
+
+        Migration(int version, String description, String script, String sql, String checksum) {
+            this.version = version;
+            this.description = description;
+            this.script = script;
+            this.sql = sql;
+            this.checksum = checksum;
+        }
+    }
+}
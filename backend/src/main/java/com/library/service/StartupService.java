@@ -0,0 +1,113 @@
+package com.library.service;
+
+import com.library.dto.BookDTO;
+import com.library.entity.Book;
+import com.library.store.BookStore;
+import com.library.store.StorageMode;
+import com.library.util.AppConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.TransactionManagement;
+import jakarta.ejb.TransactionManagementType;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.Validator;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * Startup EJB that brings the schema up to date and warms the expensive parts of the
+ * application before the first request, recording the duration of each phase.
+ * 
+ * Migration modes (library.migrations.mode):
+ *   migrate  - apply pending migrations (default)
+ *   validate - only verify checksums and fail on pending migrations, without writing anything
+ *   off      - skip the migration check entirely
+ *
+ * With library.storage=offheap the database is not used: the off-heap book store is opened
+ * (replaying its log) in place of the datasource, migration and first query phases.
+ */
+@Singleton
+@Startup
+@TransactionManagement(TransactionManagementType.BEAN)
+public class StartupService {
+    
+    private static final Logger LOGGER = Logger.getLogger(StartupService.class.getName());
+    
+    @Resource(lookup = "java:jboss/datasources/BookLibraryDS")
+    private DataSource dataSource;
+    
+    @PersistenceContext(unitName = "bookLibraryPU")
+    private EntityManager entityManager;
+    
+    @Inject
+    private Validator validator;
+    
+    @EJB
+    private StartupTimings startupTimings;
+    
+    @EJB(beanName = "OffHeapBookStore")
+    private BookStore offHeapBookStore;
+    
+    @PostConstruct
+    public void start() {
+        if (!StorageMode.isKnown()) {
+            throw new IllegalStateException("Unknown storage engine '" + StorageMode.get()
+                                            + "', expected " + StorageMode.JPA + " or " + StorageMode.OFFHEAP);
+        }
+        
+        if (StorageMode.isOffHeap()) {
+            long start = System.nanoTime();
+            long books = offHeapBookStore.count();
+            startupTimings.record("offheap store", System.nanoTime() - start);
+            LOGGER.info("Using the off-heap book store with " + books + " books");
+        } else {
+            startDatabase();
+        }
+        
+        // Building constraint metadata is otherwise paid by the first create/update request
+        long start = System.nanoTime();
+        validator.getConstraintsForClass(BookDTO.class);
+        validator.validate(new BookDTO());
+        startupTimings.record("validator", System.nanoTime() - start);
+    }
+    
+    private void startDatabase() {
+        String mode = AppConfig.getString("library.migrations.mode", "migrate");
+        
+        long start = System.nanoTime();
+        try (Connection connection = dataSource.getConnection()) {
+            connection.isValid(5);
+            startupTimings.record("datasource", System.nanoTime() - start);
+            
+            start = System.nanoTime();
+            MigrationRunner runner = new MigrationRunner(getClass().getClassLoader());
+            if ("migrate".equalsIgnoreCase(mode)) {
+                int applied = runner.migrate(connection);
+                LOGGER.info("Schema migrations complete, " + applied + " applied");
+            } else if ("validate".equalsIgnoreCase(mode)) {
+                runner.validate(connection);
+            } else {
+                LOGGER.info("Schema migrations disabled");
+            }
+            startupTimings.record("migrations", System.nanoTime() - start);
+            
+        } catch (SQLException e) {
+            throw new IllegalStateException("Database startup failed: " + e.getMessage(), e);
+        }
+        
+        // The container deploys the persistence unit before this bean starts, so only the first
+        // query is timed: it opens a session and checks out a connection through Hibernate
+        start = System.nanoTime();
+        entityManager.createNamedQuery("Book.findByIsbn", Book.class)
+                     .setParameter("isbn", "")
+                     .getResultList();
+        startupTimings.record("first query", System.nanoTime() - start);
+    }
+}
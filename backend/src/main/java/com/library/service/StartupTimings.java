@@ -0,0 +1,40 @@
+package com.library.service;
+
+import com.library.dto.StartupPhaseDTO;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Logger;
+
+/**
+ * Singleton EJB recording how long each startup phase took
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+public class StartupTimings {
+    
+    private static final Logger LOGGER = Logger.getLogger(StartupTimings.class.getName());
+    
+    private final List<StartupPhaseDTO> phases = new CopyOnWriteArrayList<>();
+    
+    /**
+     * Record a completed phase with its duration in nanoseconds
+     */
+    public void record(String phase, long durationNanos) {
+        long durationMs = durationNanos / 1_000_000;
+        long uptimeMs = ManagementFactory.getRuntimeMXBean().getUptime();
+        phases.add(new StartupPhaseDTO(phase, durationMs, uptimeMs));
+        LOGGER.info("Startup phase '" + phase + "' took " + durationMs + " ms (JVM uptime " + uptimeMs + " ms)");
+    }
+    
+    /**
+     * Get all recorded phases in completion order
+     */
+    public List<StartupPhaseDTO> getPhases() {
+        return new ArrayList<>(phases);
+    }
+}
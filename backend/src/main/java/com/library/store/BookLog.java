@@ -0,0 +1,924 @@
+package com.library.store;
+
+import com.library.entity.Book;
+import com.library.exception.DuplicateIsbnException;
+import com.library.util.BloomFilter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of book records in a memory-mapped file, with primary-key and ISBN indexes.
+ *
+ * Records are never changed in place: every insert, update and delete appends a record,
+ * and the ID index points at the latest record of each live book. The records themselves
+ * stay in the mapping (off the Java heap); the heap only holds two primitive hash maps,
+ * ID to file offset and ISBN hash to ID. Point reads by ID use an optimistic lock and
+ * decode straight from the mapping without blocking. Compaction rewrites the live records
+ * into a new file and atomically renames it over the log.
+ *
+ * Several writes can be appended as one batch (writeBatch): every record of a batch but
+ * the last is flagged as continued, and the last record's flag is cleared only once the
+ * whole batch is on disk, so replay keeps a batch completely or not at all. ISBNs can be
+ * reserved for writes that are not appended yet; other writers treat them as taken.
+ *
+ * File layout: a 24-byte header (magic, next ID, next sequence number) followed by records
+ * of [int flags and payload length][int CRC32 of payload][payload]. Payload: type (PUT or
+ * DELETE), sequence number, ID and, for PUT, the book's fields. On open the log is replayed
+ * up to the first missing or corrupt record, which drops a write torn by a crash, along
+ * with the records of a batch left unfinished.
+ */
+public class BookLog implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(BookLog.class.getName());
+
+    private static final long MAGIC = 0x424F4F4B4C4F4731L; // "BOOKLOG1"
+    private static final int HEADER_SIZE = 24;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_PAYLOAD_SIZE = 64 * 1024;
+    private static final long MIN_COMPACTION_GARBAGE = 1024 * 1024;
+    // Set in the length word of every record of a batch except its last
+    private static final int CONTINUED = 1 << 30;
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final long NULL_TIME = Long.MIN_VALUE;
+    private static final int NULL_YEAR = Integer.MIN_VALUE;
+
+    static final Comparator<Book> TITLE_ORDER =
+        Comparator.comparing(Book::getTitle).thenComparing(Book::getId);
+
+    private final Path file;
+    private final int initialCapacity;
+    private final boolean sync;
+    private final StampedLock lock = new StampedLock();
+    private final ByteBuffer scratch = ByteBuffer.allocate(RECORD_HEADER_SIZE + MAX_PAYLOAD_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    // Guarded by lock; point reads also read them optimistically
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private LongLongMap ids;
+    private LongLongMap isbns = new LongLongMap(1024);
+    private final Map<String, Long> isbnCollisions = new HashMap<>();
+    // ISBN to the owner of a pending write that will use it
+    private final Map<String, Object> isbnReservations = new HashMap<>();
+    private boolean batching;
+    private int lastRecordOffset;
+    private int writePosition;
+    private long liveBytes;
+    private long nextId = 1;
+    private long nextSeq = 1;
+
+    private BookLog(Path file, int initialCapacity, boolean sync) {
+        this.file = file;
+        this.initialCapacity = Math.max(HEADER_SIZE + RECORD_HEADER_SIZE + MAX_PAYLOAD_SIZE, initialCapacity);
+        this.sync = sync;
+    }
+
+    /**
+     * Open a log, creating it if it does not exist
+     *
+     * @param sync force every write to disk before returning; without it a write survives a
+     *        process crash but may be lost if the machine loses power
+     */
+    public static BookLog open(Path file, int initialCapacity, boolean sync) throws IOException {
+        BookLog log = new BookLog(file, initialCapacity, sync);
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        log.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean created = log.channel.size() == 0;
+        long capacity = Math.max(log.channel.size(), log.initialCapacity);
+        log.map = log.channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(capacity, Integer.MAX_VALUE));
+        log.ids = new LongLongMap(1024);
+        if (created) {
+            writeHeader(log.map, 1, 1);
+            log.map.force();
+            log.writePosition = HEADER_SIZE;
+        } else {
+            log.replay();
+        }
+        return log;
+    }
+
+    /**
+     * Get a book by ID, or null if there is none
+     */
+    public Book get(long id) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                Book book = read(id);
+                if (lock.validate(stamp)) {
+                    return book;
+                }
+            } catch (RuntimeException e) {
+                // Read a record or index while a writer changed it; retry under the lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return read(id);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * ID of the book with this ISBN, or -1 if there is none
+     */
+    public long findIdByIsbn(String isbn) {
+        long stamp = lock.readLock();
+        try {
+            return lookupIsbn(isbn);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Store a new book, assigning its ID and timestamps
+     */
+    public Change insert(Book book) throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            book.setId(nextId++);
+            book.setCreatedAt(now);
+            book.setUpdatedAt(now);
+            return doInsert(book, null);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Store the new state of an existing book, keeping its creation time
+     *
+     * @return the change, or null if the book does not exist
+     */
+    public Change update(Book book) throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            return doUpdate(book, null, LocalDateTime.now());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Store new values for some properties of an existing book (BookStore.UPDATABLE_FIELDS),
+     * applied to its latest record under the write lock, so that a concurrent change to
+     * other properties is kept
+     *
+     * @return the change, or null if the book does not exist
+     */
+    public Change updateFields(long id, Map<String, Object> values) throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            return doUpdateFields(id, values, null, LocalDateTime.now());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Delete a book
+     *
+     * @return the change holding the deleted book, or null if the book does not exist
+     */
+    public Change delete(long id) throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            return doDelete(id);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Take the next book ID for an insert that will be written later in a batch. An ID
+     * that is never written is simply skipped.
+     */
+    public long reserveId() {
+        long stamp = lock.writeLock();
+        try {
+            return nextId++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Reserve an ISBN for a pending write of a book by owner, until releaseIsbns(). Fails
+     * with DuplicateIsbnException if another owner reserved it or another book has it,
+     * unless released(id) says the owner's pending writes take it away from that book.
+     */
+    public void reserveIsbn(String isbn, Object owner, long bookId, LongPredicate released) {
+        long stamp = lock.writeLock();
+        try {
+            Object holder = isbnReservations.get(isbn);
+            if (holder != null && holder != owner) {
+                throw new DuplicateIsbnException(isbn);
+            }
+            long current = lookupIsbn(isbn);
+            if (current != LongLongMap.MISSING && current != bookId && !released.test(current)) {
+                throw new DuplicateIsbnException(isbn);
+            }
+            isbnReservations.put(isbn, owner);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Release the ISBNs reserved by owner
+     */
+    public void releaseIsbns(Object owner, Collection<String> isbns) {
+        long stamp = lock.writeLock();
+        try {
+            for (String isbn : isbns) {
+                isbnReservations.remove(isbn, owner);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Append several writes as one: readers see all of them or none, and so does replay
+     * after a crash. Writes may use the ISBNs reserved by owner. If a write fails, none of
+     * the batch is kept.
+     */
+    public void writeBatch(Object owner, BatchWork work) throws IOException {
+        long stamp = lock.writeLock();
+        int start = writePosition;
+        try {
+            batching = true;
+            work.write(new BatchWriter(owner));
+            batching = false;
+            if (writePosition > start) {
+                if (sync) {
+                    map.force(start, writePosition - start);
+                }
+                // Clearing the flag of the last record completes the batch on disk
+                map.putInt(lastRecordOffset, recordLength(map, lastRecordOffset));
+                if (sync) {
+                    map.force(lastRecordOffset, 4);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            batching = false;
+            if (writePosition > start) {
+                // The indexes already point at the unfinished batch: rebuild them without it
+                reload();
+            }
+            throw e;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Get one page of the books matching a filter, ordered by title (then ID)
+     */
+    public List<Book> list(Predicate<Book> filter, Integer offset, Integer limit) {
+        int from = offset != null ? offset : 0;
+        long keep = limit != null ? (long) from + limit : Long.MAX_VALUE;
+        // Holds the first 'keep' books seen so far, largest on top
+        PriorityQueue<Book> first = new PriorityQueue<>(TITLE_ORDER.reversed());
+
+        long stamp = lock.readLock();
+        try {
+            MappedByteBuffer m = map;
+            ids.forEach((id, position) -> {
+                Book book = decode(m, (int) position);
+                if (!filter.test(book)) {
+                    return;
+                }
+                if (first.size() < keep) {
+                    first.add(book);
+                } else if (TITLE_ORDER.compare(book, first.peek()) < 0) {
+                    first.poll();
+                    first.add(book);
+                }
+            });
+        } finally {
+            lock.unlockRead(stamp);
+        }
+
+        List<Book> books = new ArrayList<>(first);
+        books.sort(TITLE_ORDER);
+        return from >= books.size() ? new ArrayList<>() : new ArrayList<>(books.subList(from, books.size()));
+    }
+
+    /**
+     * Number of books matching a filter
+     */
+    public long count(Predicate<Book> filter) {
+        long stamp = lock.readLock();
+        try {
+            MappedByteBuffer m = map;
+            long[] count = {0};
+            ids.forEach((id, position) -> {
+                if (filter.test(decode(m, (int) position))) {
+                    count[0]++;
+                }
+            });
+            return count[0];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Number of books
+     */
+    public long size() {
+        long stamp = lock.readLock();
+        try {
+            return ids.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Bytes used by the log, including superseded records
+     */
+    public long getLogBytes() {
+        return writePosition;
+    }
+
+    /**
+     * Bytes used by the latest records of live books
+     */
+    public long getLiveBytes() {
+        return liveBytes;
+    }
+
+    /**
+     * Compact if superseded records take more space than live ones (and at least 1 MB)
+     *
+     * @return true if the log was compacted
+     */
+    public boolean compactIfNeeded() throws IOException {
+        long garbage = writePosition - HEADER_SIZE - liveBytes;
+        if (garbage < MIN_COMPACTION_GARBAGE || garbage < liveBytes) {
+            return false;
+        }
+        compact();
+        return true;
+    }
+
+    /**
+     * Rewrite the live records into a new file and rename it over the log. Readers and
+     * writers wait while this runs.
+     */
+    public void compact() throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            long before = writePosition;
+            Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+            long capacity = Math.min(Integer.MAX_VALUE, Math.max(initialCapacity, HEADER_SIZE + liveBytes * 2));
+            FileChannel newChannel = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                                                      StandardOpenOption.TRUNCATE_EXISTING,
+                                                      StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                MappedByteBuffer newMap = newChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+                writeHeader(newMap, nextId, nextSeq);
+                LongLongMap newIds = new LongLongMap(ids.size());
+                int[] position = {HEADER_SIZE};
+                MappedByteBuffer m = map;
+                ids.forEach((id, offset) -> {
+                    int length = recordLength(m, (int) offset);
+                    int size = RECORD_HEADER_SIZE + length;
+                    newMap.put(position[0], m, (int) offset, size);
+                    newMap.putInt(position[0], length); // Only live records are kept, so no batch is open
+                    newIds.put(id, position[0]);
+                    position[0] += size;
+                });
+                newMap.force();
+                Files.move(compacted, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+                FileChannel oldChannel = channel;
+                channel = newChannel;
+                map = newMap;
+                ids = newIds;
+                writePosition = position[0];
+                liveBytes = position[0] - HEADER_SIZE;
+                oldChannel.close();
+            } catch (IOException | RuntimeException e) {
+                newChannel.close();
+                Files.deleteIfExists(compacted);
+                throw e;
+            }
+            LOGGER.info("Compacted book log from " + before + " to " + writePosition + " bytes");
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            map.force();
+            channel.close();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private Change doInsert(Book book, Object owner) throws IOException {
+        checkIsbn(book.getIsbn(), book.getId(), owner);
+        nextId = Math.max(nextId, book.getId() + 1);
+        return new Change(null, book, writePut(book));
+    }
+
+    private Change doUpdate(Book book, Object owner, LocalDateTime updatedAt) throws IOException {
+        long offset = ids.get(book.getId());
+        if (offset == LongLongMap.MISSING) {
+            return null;
+        }
+        checkIsbn(book.getIsbn(), book.getId(), owner);
+        Book previous = decode(map, (int) offset);
+        book.setCreatedAt(previous.getCreatedAt());
+        book.setUpdatedAt(updatedAt);
+        return new Change(previous, book, writePut(book));
+    }
+
+    private Change doUpdateFields(long id, Map<String, Object> values, Object owner, LocalDateTime updatedAt)
+            throws IOException {
+        long offset = ids.get(id);
+        if (offset == LongLongMap.MISSING) {
+            return null;
+        }
+        Book previous = decode(map, (int) offset);
+        Book book = decode(map, (int) offset);
+        applyFields(book, values);
+        checkIsbn(book.getIsbn(), id, owner);
+        book.setUpdatedAt(updatedAt);
+        return new Change(previous, book, writePut(book));
+    }
+
+    private Change doDelete(long id) throws IOException {
+        long offset = ids.get(id);
+        if (offset == LongLongMap.MISSING) {
+            return null;
+        }
+        Book previous = decode(map, (int) offset);
+        return new Change(previous, null, writeDelete(id, previous));
+    }
+
+    /**
+     * Fail unless the ISBN is free for the book: not used by another book, and not
+     * reserved by anyone but the writer
+     */
+    private void checkIsbn(String isbn, long id, Object owner) {
+        long current = lookupIsbn(isbn);
+        if (current != LongLongMap.MISSING && current != id) {
+            throw new DuplicateIsbnException(isbn);
+        }
+        Object holder = isbnReservations.get(isbn);
+        if (holder != null && holder != owner) {
+            throw new DuplicateIsbnException(isbn);
+        }
+    }
+
+    private Book read(long id) {
+        long offset = ids.get(id);
+        return offset == LongLongMap.MISSING ? null : decode(map, (int) offset);
+    }
+
+    private long lookupIsbn(String isbn) {
+        if (!isbnCollisions.isEmpty()) {
+            Long id = isbnCollisions.get(isbn);
+            if (id != null) {
+                return id;
+            }
+        }
+        long id = isbns.get(isbnKey(isbn));
+        if (id == LongLongMap.MISSING) {
+            return LongLongMap.MISSING;
+        }
+        Book book = read(id);
+        return book != null && isbn.equals(book.getIsbn()) ? id : LongLongMap.MISSING;
+    }
+
+    private void indexIsbn(String isbn, long id) {
+        long key = isbnKey(isbn);
+        long owner = isbns.get(key);
+        if (owner == LongLongMap.MISSING || owner == id) {
+            isbns.put(key, id);
+        } else {
+            // Another ISBN with the same 64-bit hash
+            isbnCollisions.put(isbn, id);
+        }
+    }
+
+    private void unindexIsbn(String isbn, long id) {
+        if (isbnCollisions.remove(isbn, id)) {
+            return;
+        }
+        long key = isbnKey(isbn);
+        if (isbns.get(key) == id) {
+            isbns.remove(key);
+        }
+    }
+
+    private long writePut(Book book) throws IOException {
+        long seq = nextSeq++;
+        scratch.clear();
+        scratch.position(RECORD_HEADER_SIZE);
+        scratch.put(PUT).putLong(seq).putLong(book.getId());
+        scratch.putLong(toMicros(book.getCreatedAt())).putLong(toMicros(book.getUpdatedAt()));
+        scratch.putInt(book.getPublicationYear() != null ? book.getPublicationYear() : NULL_YEAR);
+        putString(book.getTitle());
+        putString(book.getAuthor());
+        putString(book.getIsbn());
+        putString(book.getCoverHash());
+        putString(book.getCoverContentType());
+        int size = scratch.position();
+        int offset = append(size);
+
+        long previousOffset = ids.get(book.getId());
+        if (previousOffset != LongLongMap.MISSING) {
+            liveBytes -= RECORD_HEADER_SIZE + recordLength(map, (int) previousOffset);
+            unindexIsbn(decode(map, (int) previousOffset).getIsbn(), book.getId());
+        }
+        ids.put(book.getId(), offset);
+        liveBytes += size;
+        indexIsbn(book.getIsbn(), book.getId());
+        return seq;
+    }
+
+    private long writeDelete(long id, Book previous) throws IOException {
+        long seq = nextSeq++;
+        scratch.clear();
+        scratch.position(RECORD_HEADER_SIZE);
+        scratch.put(DELETE).putLong(seq).putLong(id);
+        append(scratch.position());
+
+        long offset = ids.remove(id);
+        liveBytes -= RECORD_HEADER_SIZE + recordLength(map, (int) offset);
+        unindexIsbn(previous.getIsbn(), id);
+        return seq;
+    }
+
+    /**
+     * Checksum the record in the scratch buffer and copy it to the end of the log
+     */
+    private int append(int size) throws IOException {
+        int payloadSize = size - RECORD_HEADER_SIZE;
+        crc.reset();
+        crc.update(scratch.array(), RECORD_HEADER_SIZE, payloadSize);
+        scratch.putInt(0, batching ? payloadSize | CONTINUED : payloadSize);
+        scratch.putInt(4, (int) crc.getValue());
+
+        ensureCapacity(size);
+        int offset = writePosition;
+        map.put(offset, scratch, 0, size);
+        writePosition += size;
+        lastRecordOffset = offset;
+        if (sync && !batching) {
+            map.force(offset, size);
+        }
+        return offset;
+    }
+
+    private void ensureCapacity(int size) throws IOException {
+        long needed = (long) writePosition + size + RECORD_HEADER_SIZE; // Keep room for the zero end marker
+        if (needed <= map.capacity()) {
+            return;
+        }
+        if (needed > Integer.MAX_VALUE) {
+            throw new IOException("Book log is full (2 GB); compact it or move to the jpa storage engine");
+        }
+        long capacity = Math.min(Integer.MAX_VALUE, Math.max(needed, map.capacity() * 2L));
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    static void applyFields(Book book, Map<String, Object> values) {
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            switch (value.getKey()) {
+                case "title":
+                    book.setTitle((String) value.getValue());
+                    break;
+                case "author":
+                    book.setAuthor((String) value.getValue());
+                    break;
+                case "publicationYear":
+                    book.setPublicationYear((Integer) value.getValue());
+                    break;
+                case "isbn":
+                    book.setIsbn((String) value.getValue());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Cannot update book property " + value.getKey());
+            }
+        }
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            scratch.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE || scratch.remaining() < bytes.length + 2) {
+            throw new IllegalArgumentException("Book record too large");
+        }
+        scratch.putShort((short) bytes.length);
+        scratch.put(bytes);
+    }
+
+    /**
+     * Rebuild the indexes from the records, stopping at the end of the log or the first torn
+     * record; records of a batch are applied only once its last record is found
+     */
+    private void replay() throws IOException {
+        if (map.getLong(0) != MAGIC) {
+            throw new IOException(file + " is not a book log");
+        }
+        nextId = Math.max(nextId, map.getLong(8));
+        nextSeq = Math.max(nextSeq, map.getLong(16));
+
+        int position = HEADER_SIZE;
+        int records = 0;
+        int batchStart = -1;
+        List<Integer> batch = new ArrayList<>();
+        byte[] payload = new byte[MAX_PAYLOAD_SIZE];
+        while (position + RECORD_HEADER_SIZE <= map.capacity()) {
+            int word = map.getInt(position);
+            if (word == 0) {
+                break;
+            }
+            int length = word & ~CONTINUED;
+            if (word < 0 || length == 0 || length > MAX_PAYLOAD_SIZE
+                || position + RECORD_HEADER_SIZE + length > map.capacity()) {
+                LOGGER.warning("Book log " + file + " ends with an invalid record at " + position + "; ignoring the rest");
+                break;
+            }
+            map.get(position + RECORD_HEADER_SIZE, payload, 0, length);
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != map.getInt(position + 4)) {
+                LOGGER.warning("Book log " + file + " has a torn record at " + position + "; ignoring the rest");
+                break;
+            }
+
+            if ((word & CONTINUED) != 0) {
+                if (batchStart < 0) {
+                    batchStart = position;
+                }
+                batch.add(position);
+            } else {
+                for (int record : batch) {
+                    replayRecord(record);
+                }
+                replayRecord(position);
+                records += batch.size() + 1;
+                batch.clear();
+                batchStart = -1;
+            }
+            position += RECORD_HEADER_SIZE + length;
+        }
+        if (batchStart >= 0) {
+            LOGGER.warning("Book log " + file + " ends with an unfinished batch at " + batchStart + "; ignoring it");
+            position = batchStart;
+        }
+        writePosition = position;
+
+        // Clear whatever follows the last good record so a later torn write cannot resurrect it
+        byte[] zeros = new byte[64 * 1024];
+        for (int p = position; p < map.capacity(); p += zeros.length) {
+            int n = Math.min(zeros.length, map.capacity() - p);
+            if (map.get(p) != 0 || map.get(p + n - 1) != 0 || !isZero(map, p, n)) {
+                map.put(p, zeros, 0, n);
+            }
+        }
+        LOGGER.info("Replayed " + records + " records of book log " + file + ": " + ids.size() + " books");
+    }
+
+    private void replayRecord(int position) {
+        byte type = map.get(position + RECORD_HEADER_SIZE);
+        long seq = map.getLong(position + RECORD_HEADER_SIZE + 1);
+        long id = map.getLong(position + RECORD_HEADER_SIZE + 9);
+        long previousOffset = ids.get(id);
+        if (previousOffset != LongLongMap.MISSING) {
+            liveBytes -= RECORD_HEADER_SIZE + recordLength(map, (int) previousOffset);
+            unindexIsbn(decode(map, (int) previousOffset).getIsbn(), id);
+            ids.remove(id);
+        }
+        if (type == PUT) {
+            ids.put(id, position);
+            liveBytes += RECORD_HEADER_SIZE + recordLength(map, position);
+            indexIsbn(decode(map, position).getIsbn(), id);
+        }
+        nextId = Math.max(nextId, id + 1);
+        nextSeq = Math.max(nextSeq, seq + 1);
+    }
+
+    /**
+     * Drop the in-memory indexes and replay the log, discarding an unfinished batch
+     */
+    private void reload() throws IOException {
+        ids = new LongLongMap(Math.max(1024, ids.size()));
+        isbns = new LongLongMap(1024);
+        isbnCollisions.clear();
+        liveBytes = 0;
+        replay();
+    }
+
+    private static boolean isZero(MappedByteBuffer m, int position, int length) {
+        for (int i = 0; i < length; i += 8) {
+            if (i + 8 <= length ? m.getLong(position + i) != 0 : m.get(position + i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Book decode(ByteBuffer m, int offset) {
+        int position = offset + RECORD_HEADER_SIZE + 1 + 8; // Skip type and sequence number
+        Book book = new Book();
+        book.setId(m.getLong(position));
+        book.setCreatedAt(fromMicros(m.getLong(position + 8)));
+        book.setUpdatedAt(fromMicros(m.getLong(position + 16)));
+        int year = m.getInt(position + 24);
+        book.setPublicationYear(year != NULL_YEAR ? year : null);
+        int[] cursor = {position + 28};
+        book.setTitle(getString(m, cursor));
+        book.setAuthor(getString(m, cursor));
+        book.setIsbn(getString(m, cursor));
+        book.setCoverHash(getString(m, cursor));
+        book.setCoverContentType(getString(m, cursor));
+        return book;
+    }
+
+    private static String getString(ByteBuffer m, int[] cursor) {
+        short length = m.getShort(cursor[0]);
+        cursor[0] += 2;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        m.get(cursor[0], bytes, 0, length);
+        cursor[0] += length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int recordLength(ByteBuffer m, int offset) {
+        return m.getInt(offset) & ~CONTINUED;
+    }
+
+    private static void writeHeader(ByteBuffer m, long nextId, long nextSeq) {
+        m.putLong(0, MAGIC);
+        m.putLong(8, nextId);
+        m.putLong(16, nextSeq);
+    }
+
+    private static long isbnKey(String isbn) {
+        long hash = BloomFilter.hash(isbn);
+        return hash != 0 ? hash : 1;
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        if (time == null) {
+            return NULL_TIME;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        if (micros == NULL_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                                           (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Writes of one batch; see writeBatch()
+     */
+    public interface Batch {
+
+        /**
+         * Store a new book with the ID (from reserveId()) and timestamps it carries
+         */
+        Change insert(Book book) throws IOException;
+
+        /**
+         * Store the new state of an existing book, keeping its creation time and taking
+         * its updated time from the book
+         *
+         * @return the change, or null if the book does not exist
+         */
+        Change update(Book book) throws IOException;
+
+        /**
+         * Store new values for some properties of an existing book's latest record
+         *
+         * @return the change, or null if the book does not exist
+         */
+        Change updateFields(long id, Map<String, Object> values, LocalDateTime updatedAt) throws IOException;
+
+        /**
+         * Delete a book
+         *
+         * @return the change holding the deleted book, or null if the book does not exist
+         */
+        Change delete(long id) throws IOException;
+    }
+
+    /**
+     * The writes to append in one batch
+     */
+    @FunctionalInterface
+    public interface BatchWork {
+        void write(Batch batch) throws IOException;
+    }
+
+    /**
+     * Batch writes made while writeBatch() holds the write lock
+     */
+    private final class BatchWriter implements Batch {
+        private final Object owner;
+
+        BatchWriter(Object owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public Change insert(Book book) throws IOException {
+            return doInsert(book, owner);
+        }
+
+        @Override
+        public Change update(Book book) throws IOException {
+            return doUpdate(book, owner, book.getUpdatedAt());
+        }
+
+        @Override
+        public Change updateFields(long id, Map<String, Object> values, LocalDateTime updatedAt) throws IOException {
+            return doUpdateFields(id, values, owner, updatedAt);
+        }
+
+        @Override
+        public Change delete(long id) throws IOException {
+            return doDelete(id);
+        }
+    }
+
+    /**
+     * One write to the log: the state of the book before and after it, and the write's
+     * sequence number
+     */
+    public static final class Change {
+        private final Book previous;
+        private final Book current;
+        private final long seq;
+
+        Change(Book previous, Book current, long seq) {
+            this.previous = previous;
+            this.current = current;
+            this.seq = seq;
+        }
+
+        public Book getPrevious() {
+            return previous;
+        }
+
+        /**
+         * The book as written, or null for a delete
+         */
+        public Book getCurrent() {
+            return current;
+        }
+
+        public long getSeq() {
+            return seq;
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.library.store;
+
+import com.library.entity.Book;
+import com.library.util.AppConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.DependsOn;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Startup;
+import jakarta.ejb.Timeout;
+import jakarta.ejb.TimerConfig;
+import jakarta.ejb.TimerService;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * Singleton EJB running book lists and author searches on a hash-partitioned books table
+ * (see library_partition_books in V7__add_book_partitioning.sql) as one query per partition,
+ * in parallel, merging the ordered partition results by title.
+ *
+ * Each partition returns at most offset + limit rows from its own (title COLLATE "C", id)
+ * index, so a page costs one short index scan per partition, run concurrently. Titles are
+ * compared by code point, the order of the "C" collation, so the merge agrees with every
+ * partition; an unpartitioned table keeps the database collation. Partition queries run on
+ * their own connections outside the caller's transaction and see committed books only.
+ */
+@Singleton
+@Startup
+@DependsOn("StartupService")
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.SUPPORTS)
+public class BookPartitions {
+
+    private static final Logger LOGGER = Logger.getLogger(BookPartitions.class.getName());
+
+    /**
+     * Planner row estimate for books, summed over the partitions when the table is
+     * partitioned; -1 until the table has been analyzed
+     */
+    public static final String ROW_ESTIMATE_SQL =
+        "SELECT CASE WHEN MIN(c.reltuples) < 0 THEN -1 ELSE SUM(c.reltuples) END::bigint FROM pg_class c "
+        + "WHERE c.relkind = 'r' AND (c.oid = 'books'::regclass "
+        + "OR c.oid IN (SELECT inhrelid FROM pg_inherits WHERE inhparent = 'books'::regclass))";
+
+    private static final String COLUMNS =
+        "id, title, author, publication_year, isbn, created_at, updated_at, cover_hash, cover_content_type";
+
+    private static final int QUEUE_CAPACITY = 1024;
+
+    private static final Comparator<Book> TITLE_ORDER =
+        Comparator.comparing(Book::getTitle, BookPartitions::compareCodePoints).thenComparing(Book::getId);
+
+    private final boolean enabled = AppConfig.getBoolean("library.partitions.fan-out", true);
+    private final int threads = AppConfig.getInt("library.partitions.threads", 8);
+    private final long refreshIntervalMs = AppConfig.getInt("library.partitions.refresh-minutes", 5) * 60_000L;
+
+    // Leaf partitions of books as quoted relation names; empty while books is not partitioned
+    private volatile List<String> partitions = List.of();
+    private ThreadPoolExecutor pool;
+
+    @Resource(lookup = "java:jboss/datasources/BookLibraryDS")
+    private DataSource dataSource;
+
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    @Resource
+    private TimerService timerService;
+
+    @PostConstruct
+    public void start() {
+        if (StorageMode.isOffHeap()) {
+            return;
+        }
+        // Partitions are tracked even without fan-out, for the ISBN lookups of JpaBookStore
+        timerService.createIntervalTimer(0, refreshIntervalMs, new TimerConfig("book-partitions-refresh", false));
+        if (!enabled) {
+            return;
+        }
+        if (threads < 1) {
+            throw new IllegalStateException("library.partitions.threads must be at least 1");
+        }
+        // When every worker is busy the request thread queries the partition itself
+        pool = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                                      new ArrayBlockingQueue<>(QUEUE_CAPACITY), threadFactory,
+                                      new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Re-read the partitions of books, picking up a table partitioned while running
+     */
+    @Timeout
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void refresh() {
+        List<String> found = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                 "SELECT i.inhrelid::regclass::text FROM pg_inherits i "
+                 + "WHERE i.inhparent = 'books'::regclass ORDER BY 1");
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                found.add(rs.getString(1));
+            }
+        } catch (SQLException e) {
+            LOGGER.log(Level.WARNING, "Failed to read book partitions: " + e.getMessage(), e);
+            return;
+        }
+        if (!found.equals(partitions)) {
+            LOGGER.info(found.isEmpty() ? "Books table is not partitioned"
+                                        : "Books table has " + found.size() + " partitions, lists fan out");
+            partitions = List.copyOf(found);
+        }
+    }
+
+    /**
+     * True once books has been partitioned, and ISBNs are kept unique in book_isbns
+     */
+    public boolean isPartitioned() {
+        return !partitions.isEmpty();
+    }
+
+    /**
+     * True if lists and searches should fan out over the partitions
+     */
+    public boolean isFanOut() {
+        return pool != null && partitions.size() > 1;
+    }
+
+    /**
+     * One page of all books ordered by title
+     */
+    public List<Book> findAll(Integer offset, Integer limit) {
+        return fanOut("", null, offset, limit);
+    }
+
+    /**
+     * One page of the books whose author matches a LIKE pattern, ordered by title
+     */
+    public List<Book> findByAuthor(String authorPattern, Integer offset, Integer limit) {
+        return fanOut(" WHERE LOWER(author) LIKE LOWER(?)", authorPattern, offset, limit);
+    }
+
+    private List<Book> fanOut(String where, String parameter, Integer offset, Integer limit) {
+        int skip = offset != null ? offset : 0;
+        // Any partition may hold every row of the page
+        long perPartition = limit != null ? (long) skip + limit : -1;
+
+        List<Future<List<Book>>> futures = new ArrayList<>();
+        for (String partition : partitions) {
+            String sql = "SELECT " + COLUMNS + " FROM " + partition + where + " ORDER BY title COLLATE \"C\", id"
+                         + (perPartition >= 0 ? " LIMIT " + perPartition : "");
+            futures.add(pool.submit(() -> query(sql, parameter)));
+        }
+
+        List<List<Book>> results = new ArrayList<>();
+        try {
+            for (Future<List<Book>> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while querying book partitions", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to query book partitions: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            for (Future<List<Book>> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return merge(results, skip, limit);
+    }
+
+    private List<Book> query(String sql, String parameter) throws SQLException {
+        List<Book> books = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (parameter != null) {
+                statement.setString(1, parameter);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    Book book = new Book(rs.getString(2), rs.getString(3), rs.getInt(4), rs.getString(5));
+                    book.setId(rs.getLong(1));
+                    book.setCreatedAt(rs.getObject(6, LocalDateTime.class));
+                    book.setUpdatedAt(rs.getObject(7, LocalDateTime.class));
+                    book.setCoverHash(rs.getString(8));
+                    book.setCoverContentType(rs.getString(9));
+                    books.add(book);
+                }
+            }
+        }
+        return books;
+    }
+
+    /**
+     * K-way merge of title-ordered lists, skipping the first rows and keeping at most limit
+     */
+    static List<Book> merge(List<List<Book>> sorted, int skip, Integer limit) {
+        PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> TITLE_ORDER.compare(a.head(), b.head()));
+        for (List<Book> books : sorted) {
+            if (!books.isEmpty()) {
+                heads.add(new Cursor(books));
+            }
+        }
+
+        List<Book> page = new ArrayList<>(limit != null ? limit : 16);
+        int skipped = 0;
+        while (!heads.isEmpty() && (limit == null || page.size() < limit)) {
+            Cursor cursor = heads.poll();
+            Book book = cursor.head();
+            if (skipped < skip) {
+                skipped++;
+            } else {
+                page.add(book);
+            }
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * Compare strings by Unicode code point, the order of the "C" collation on UTF-8 text
+     */
+    static int compareCodePoints(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    private static final class Cursor {
+        private final List<Book> books;
+        private int position;
+
+        Cursor(List<Book> books) {
+            this.books = books;
+        }
+
+        Book head() {
+            return books.get(position);
+        }
+
+        boolean advance() {
+            return ++position < books.size();
+        }
+    }
+}
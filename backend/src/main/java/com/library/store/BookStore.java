@@ -0,0 +1,86 @@
+package com.library.store;
+
+import com.library.entity.Book;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Storage SPI for book records, used by BookService.
+ *
+ * Implementations own ID generation, the created/updated timestamps and the uniqueness of
+ * ISBNs (violations throw DuplicateIsbnException), and take part in the caller's
+ * transaction. Books returned by one call may be changed and passed back to update().
+ * Lists are ordered by title; a null offset starts at the first book and a null limit
+ * returns every book from the offset.
+ */
+public interface BookStore {
+    
+    /**
+     * Properties of a book that updateFields() can write
+     */
+    Set<String> UPDATABLE_FIELDS = Set.of("title", "author", "publicationYear", "isbn");
+    
+    /**
+     * Store a new book, assigning its ID and timestamps
+     */
+    Book insert(Book book);
+    
+    /**
+     * Get a book by ID, or null if there is none
+     */
+    Book findById(Long id);
+    
+    /**
+     * True if a book has this ISBN
+     */
+    boolean existsByIsbn(String isbn);
+    
+    /**
+     * Store the new state of an existing book, setting its updated timestamp
+     *
+     * @return the stored book, or null if it no longer exists
+     */
+    Book update(Book book);
+    
+    /**
+     * Store new values for some of the UPDATABLE_FIELDS of an existing book, keyed by
+     * property name, setting its updated timestamp and leaving the other properties as stored
+     *
+     * @return the stored book, or null if it no longer exists
+     */
+    Book updateFields(Long id, Map<String, Object> values);
+    
+    /**
+     * Delete a book by ID
+     *
+     * @return the deleted book, or null if there was none
+     */
+    Book delete(Long id);
+    
+    /**
+     * Get one page of all books ordered by title
+     */
+    List<Book> findAll(Integer offset, Integer limit);
+    
+    /**
+     * Get one page of the books whose author contains the given text, ignoring case
+     */
+    List<Book> findByAuthor(String author, Integer offset, Integer limit);
+    
+    /**
+     * Number of books
+     */
+    long count();
+    
+    /**
+     * Number of books whose author contains the given text, ignoring case
+     */
+    long countByAuthor(String author);
+    
+    /**
+     * Those of the given cover hashes that at least one book references
+     */
+    Set<String> findCoverHashes(Collection<String> hashes);
+}
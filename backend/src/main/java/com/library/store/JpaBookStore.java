@@ -0,0 +1,200 @@
+package com.library.store;
+
+import com.library.entity.Book;
+import com.library.exception.DuplicateIsbnException;
+import jakarta.ejb.EJB;
+import jakarta.ejb.Stateless;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Default BookStore keeping books in PostgreSQL through the bookLibraryPU persistence unit.
+ * Books returned are managed entities of the caller's transaction, except for lists and
+ * searches on a partitioned books table, which BookPartitions answers with detached books.
+ */
+@Stateless
+public class JpaBookStore implements BookStore {
+
+    @PersistenceContext(unitName = "bookLibraryPU")
+    private EntityManager entityManager;
+
+    @EJB
+    private BookPartitions partitions;
+
+    @Override
+    public Book insert(Book book) {
+        try {
+            entityManager.persist(book);
+            entityManager.flush(); // Force immediate persistence to get generated ID
+            return book;
+        } catch (PersistenceException e) {
+            // The ISBN pre-check can miss a book inserted concurrently on another node
+            if (isUniqueViolation(e)) {
+                throw new DuplicateIsbnException(book.getIsbn(), e);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Book findById(Long id) {
+        return entityManager.find(Book.class, id);
+    }
+
+    @Override
+    public boolean existsByIsbn(String isbn) {
+        if (partitions.isPartitioned()) {
+            // One primary key probe instead of one ISBN index probe per partition
+            return !entityManager.createNativeQuery("SELECT 1 FROM book_isbns WHERE isbn = ?1")
+                                 .setParameter(1, isbn)
+                                 .getResultList()
+                                 .isEmpty();
+        }
+        return !entityManager.createNamedQuery("Book.findIdByIsbn", Long.class)
+                             .setParameter("isbn", isbn)
+                             .setMaxResults(1)
+                             .getResultList()
+                             .isEmpty();
+    }
+
+    @Override
+    public Book update(Book book) {
+        // merge() would insert a book that no longer exists as a new one
+        Book stored = entityManager.find(Book.class, book.getId());
+        if (stored == null) {
+            return null;
+        }
+        book.setCreatedAt(stored.getCreatedAt());
+        try {
+            Book merged = entityManager.merge(book);
+            entityManager.flush(); // Apply @PreUpdate so callers see the new timestamp
+            return merged;
+        } catch (PersistenceException e) {
+            if (isUniqueViolation(e)) {
+                throw new DuplicateIsbnException(book.getIsbn(), e);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Book updateFields(Long id, Map<String, Object> values) {
+        // Unlike merge(), which rewrites every column, only the given columns are set
+        StringBuilder jpql = new StringBuilder("UPDATE Book b SET b.updatedAt = CURRENT_TIMESTAMP");
+        for (String field : values.keySet()) {
+            if (!UPDATABLE_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Cannot update book property " + field);
+            }
+            jpql.append(", b.").append(field).append(" = :").append(field);
+        }
+        jpql.append(" WHERE b.id = :id");
+
+        Query query = entityManager.createQuery(jpql.toString()).setParameter("id", id);
+        values.forEach(query::setParameter);
+        try {
+            if (query.executeUpdate() == 0) {
+                return null;
+            }
+        } catch (PersistenceException e) {
+            if (isUniqueViolation(e)) {
+                throw new DuplicateIsbnException((String) values.get("isbn"), e);
+            }
+            throw e;
+        }
+
+        // The update bypassed the persistence context. A book already loaded there is stale and
+        // is refreshed; otherwise the reference is only a placeholder and one find loads it.
+        Book book = entityManager.getReference(Book.class, id);
+        if (entityManager.getEntityManagerFactory().getPersistenceUnitUtil().isLoaded(book)) {
+            entityManager.refresh(book);
+            return book;
+        }
+        entityManager.detach(book);
+        return entityManager.find(Book.class, id);
+    }
+
+    @Override
+    public Book delete(Long id) {
+        Book book = entityManager.find(Book.class, id);
+        if (book != null) {
+            entityManager.remove(book);
+        }
+        return book;
+    }
+
+    @Override
+    public List<Book> findAll(Integer offset, Integer limit) {
+        if (partitions.isFanOut()) {
+            return partitions.findAll(offset, limit);
+        }
+        return page(entityManager.createNamedQuery("Book.findAll", Book.class), offset, limit).getResultList();
+    }
+
+    @Override
+    public List<Book> findByAuthor(String author, Integer offset, Integer limit) {
+        if (partitions.isFanOut()) {
+            return partitions.findByAuthor(authorPattern(author), offset, limit);
+        }
+        TypedQuery<Book> query = entityManager.createNamedQuery("Book.findByAuthor", Book.class)
+                                              .setParameter("author", authorPattern(author));
+        return page(query, offset, limit).getResultList();
+    }
+
+    @Override
+    public long count() {
+        return entityManager.createQuery("SELECT COUNT(b) FROM Book b", Long.class).getSingleResult();
+    }
+
+    @Override
+    public long countByAuthor(String author) {
+        return entityManager.createQuery("SELECT COUNT(b) FROM Book b WHERE LOWER(b.author) LIKE LOWER(:author)", Long.class)
+                            .setParameter("author", authorPattern(author))
+                            .getSingleResult();
+    }
+
+    @Override
+    public Set<String> findCoverHashes(Collection<String> hashes) {
+        return new HashSet<>(entityManager.createQuery(
+                "SELECT DISTINCT b.coverHash FROM Book b WHERE b.coverHash IN :hashes", String.class)
+            .setParameter("hashes", hashes)
+            .getResultList());
+    }
+
+    /**
+     * LIKE pattern used by Book.findByAuthor (also counted by BookCountService)
+     */
+    public static String authorPattern(String author) {
+        return "%" + author.trim() + "%";
+    }
+
+    /**
+     * Check whether a persistence failure was caused by a unique constraint violation
+     */
+    private static boolean isUniqueViolation(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && "23505".equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T> TypedQuery<T> page(TypedQuery<T> query, Integer offset, Integer limit) {
+        if (offset != null) {
+            query.setFirstResult(offset);
+        }
+        if (limit != null) {
+            query.setMaxResults(limit);
+        }
+        return query;
+    }
+}
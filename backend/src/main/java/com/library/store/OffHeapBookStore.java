@@ -0,0 +1,409 @@
+package com.library.store;
+
+import com.library.entity.Book;
+import com.library.exception.BookNotFoundException;
+import com.library.exception.DuplicateIsbnException;
+import com.library.util.AppConfig;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.ejb.ConcurrencyManagement;
+import jakarta.ejb.ConcurrencyManagementType;
+import jakarta.ejb.Singleton;
+import jakarta.ejb.Timeout;
+import jakarta.ejb.TimerConfig;
+import jakarta.ejb.TimerService;
+import jakarta.ejb.TransactionAttribute;
+import jakarta.ejb.TransactionAttributeType;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Embedded BookStore for single-node deployments without PostgreSQL (library.storage=offheap).
+ *
+ * Books live in a BookLog: a memory-mapped, append-only file with in-memory ID and ISBN
+ * indexes, compacted by a timer. Inside a transaction, writes are buffered and appended to
+ * the log as one batch as the last step before the transaction commits, so a failed append
+ * (or an update of a book deleted meanwhile) rolls the transaction back; a rollback
+ * discards them, and only the IDs and ISBNs they use are taken meanwhile, so a concurrent
+ * duplicate ISBN still fails at once. The transaction reads its own writes, other transactions see committed
+ * books only. Outside a transaction each write goes to the log directly. Lists and author
+ * searches scan all books, which suits the catalog of a branch library.
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.SUPPORTS)
+public class OffHeapBookStore implements BookStore {
+
+    private static final Logger LOGGER = Logger.getLogger(OffHeapBookStore.class.getName());
+
+    private static final String PENDING_KEY = OffHeapBookStore.class.getName() + ".pending";
+
+    private BookLog log;
+
+    @Resource
+    private TransactionSynchronizationRegistry transactionRegistry;
+
+    @Resource
+    private TimerService timerService;
+
+    @PostConstruct
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void start() {
+        String defaultDir = System.getProperty("jboss.server.data.dir", System.getProperty("java.io.tmpdir"));
+        Path file = Paths.get(AppConfig.getString("library.storage.dir", Paths.get(defaultDir, "book-store").toString()),
+                              "books.log");
+        int initialMb = AppConfig.getInt("library.storage.initial-size-mb", 16);
+        boolean sync = AppConfig.getBoolean("library.storage.sync", true);
+        try {
+            log = BookLog.open(file, initialMb * 1024 * 1024, sync);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open book store " + file + ": " + e.getMessage(), e);
+        }
+
+        long intervalMs = AppConfig.getInt("library.storage.compact-interval-minutes", 10) * 60_000L;
+        if (intervalMs > 0) {
+            timerService.createIntervalTimer(intervalMs, intervalMs, new TimerConfig("book-store-compaction", false));
+        }
+        LOGGER.info("Off-heap book store opened at " + file + " with " + log.size() + " books");
+    }
+
+    @PreDestroy
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void stop() {
+        try {
+            log.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to close book store: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Book insert(Book book) {
+        Pending pending = pending(true);
+        if (pending == null) {
+            return write(() -> log.insert(book)).getCurrent();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        book.setId(log.reserveId());
+        book.setCreatedAt(now);
+        book.setUpdatedAt(now);
+        pending.reserveIsbn(book.getIsbn(), book.getId());
+        Book state = copy(book);
+        pending.put(state.getId(), state, batch -> batch.insert(state));
+        return book;
+    }
+
+    @Override
+    public Book findById(Long id) {
+        Pending pending = pending(false);
+        if (pending != null && pending.books.containsKey(id)) {
+            Book book = pending.books.get(id);
+            return book != null ? copy(book) : null;
+        }
+        return log.get(id);
+    }
+
+    @Override
+    public boolean existsByIsbn(String isbn) {
+        Pending pending = pending(false);
+        if (pending == null) {
+            return log.findIdByIsbn(isbn) >= 0;
+        }
+        if (pending.holder(isbn) >= 0) {
+            return true;
+        }
+        long id = log.findIdByIsbn(isbn);
+        return id >= 0 && !pending.books.containsKey(id);
+    }
+
+    @Override
+    public Book update(Book book) {
+        Pending pending = pending(true);
+        if (pending == null) {
+            BookLog.Change change = write(() -> log.update(book));
+            return change != null ? book : null;
+        }
+        Book current = findById(book.getId());
+        if (current == null) {
+            return null;
+        }
+        if (!book.getIsbn().equals(current.getIsbn())) {
+            pending.reserveIsbn(book.getIsbn(), book.getId());
+        }
+        book.setCreatedAt(current.getCreatedAt());
+        book.setUpdatedAt(LocalDateTime.now());
+        Book state = copy(book);
+        pending.put(state.getId(), state, batch -> checkApplied(batch.update(state), state.getId()));
+        return book;
+    }
+
+    @Override
+    public Book updateFields(Long id, Map<String, Object> values) {
+        for (String field : values.keySet()) {
+            if (!UPDATABLE_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Cannot update book property " + field);
+            }
+        }
+        Pending pending = pending(true);
+        if (pending == null) {
+            BookLog.Change change = write(() -> log.updateFields(id, values));
+            return change != null ? change.getCurrent() : null;
+        }
+        Book book = findById(id);
+        if (book == null) {
+            return null;
+        }
+        String isbn = book.getIsbn();
+        BookLog.applyFields(book, values);
+        if (!book.getIsbn().equals(isbn)) {
+            pending.reserveIsbn(book.getIsbn(), id);
+        }
+        LocalDateTime updatedAt = LocalDateTime.now();
+        book.setUpdatedAt(updatedAt);
+        // Only the changed properties are written at commit, to the latest record
+        Map<String, Object> changes = new HashMap<>(values);
+        pending.put(id, copy(book), batch -> checkApplied(batch.updateFields(id, changes, updatedAt), id));
+        return book;
+    }
+
+    @Override
+    public Book delete(Long id) {
+        Pending pending = pending(true);
+        if (pending == null) {
+            BookLog.Change change = write(() -> log.delete(id));
+            return change != null ? change.getPrevious() : null;
+        }
+        Book book = findById(id);
+        if (book == null) {
+            return null;
+        }
+        pending.put(id, null, batch -> batch.delete(id));
+        return book;
+    }
+
+    @Override
+    public List<Book> findAll(Integer offset, Integer limit) {
+        return list(book -> true, offset, limit);
+    }
+
+    @Override
+    public List<Book> findByAuthor(String author, Integer offset, Integer limit) {
+        String text = author.trim().toLowerCase(Locale.ROOT);
+        return list(book -> book.getAuthor().toLowerCase(Locale.ROOT).contains(text), offset, limit);
+    }
+
+    @Override
+    public long count() {
+        Pending pending = pending(false);
+        if (pending == null) {
+            return log.size();
+        }
+        return count(book -> true);
+    }
+
+    @Override
+    public long countByAuthor(String author) {
+        String text = author.trim().toLowerCase(Locale.ROOT);
+        return count(book -> book.getAuthor().toLowerCase(Locale.ROOT).contains(text));
+    }
+
+    @Override
+    public Set<String> findCoverHashes(Collection<String> hashes) {
+        Set<String> wanted = new HashSet<>(hashes);
+        Set<String> found = new HashSet<>();
+        for (Book book : list(book -> wanted.contains(book.getCoverHash()), null, null)) {
+            found.add(book.getCoverHash());
+        }
+        return found;
+    }
+
+    /**
+     * Compact the log when superseded records outweigh live ones
+     */
+    @Timeout
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+    public void compact() {
+        try {
+            log.compactIfNeeded();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Book store compaction failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * One page of the matching books as the current transaction sees them: committed books
+     * it has not changed, plus its own pending ones
+     */
+    private List<Book> list(Predicate<Book> filter, Integer offset, Integer limit) {
+        Pending pending = pending(false);
+        if (pending == null) {
+            return log.list(filter, offset, limit);
+        }
+        int skip = offset != null ? offset : 0;
+        Integer end = limit != null ? (int) Math.min(Integer.MAX_VALUE, (long) skip + limit) : null;
+        List<Book> books = log.list(book -> !pending.books.containsKey(book.getId()) && filter.test(book), 0, end);
+        for (Book book : pending.books.values()) {
+            if (book != null && filter.test(book)) {
+                books.add(copy(book));
+            }
+        }
+        books.sort(BookLog.TITLE_ORDER);
+        int to = end != null ? Math.min(end, books.size()) : books.size();
+        return skip < to ? new ArrayList<>(books.subList(skip, to)) : new ArrayList<>();
+    }
+
+    private long count(Predicate<Book> filter) {
+        Pending pending = pending(false);
+        if (pending == null) {
+            return log.count(filter);
+        }
+        long count = log.count(book -> !pending.books.containsKey(book.getId()) && filter.test(book));
+        for (Book book : pending.books.values()) {
+            if (book != null && filter.test(book)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The writes buffered by the current transaction, or null outside a transaction
+     */
+    private Pending pending(boolean create) {
+        if (transactionRegistry.getTransactionKey() == null) {
+            return null;
+        }
+        Pending pending = (Pending) transactionRegistry.getResource(PENDING_KEY);
+        if (pending == null && create) {
+            pending = new Pending();
+            transactionRegistry.putResource(PENDING_KEY, pending);
+            transactionRegistry.registerInterposedSynchronization(pending);
+        }
+        return pending;
+    }
+
+    private static void checkApplied(BookLog.Change change, long id) {
+        if (change == null) {
+            // Fails the batch, and with it the transaction
+            throw new BookNotFoundException("Book " + id + " was deleted by another transaction before this update committed");
+        }
+    }
+
+    private static Book copy(Book book) {
+        Book copy = new Book(book.getTitle(), book.getAuthor(), book.getPublicationYear(), book.getIsbn());
+        copy.setId(book.getId());
+        copy.setCreatedAt(book.getCreatedAt());
+        copy.setUpdatedAt(book.getUpdatedAt());
+        copy.setCoverHash(book.getCoverHash());
+        copy.setCoverContentType(book.getCoverContentType());
+        return copy;
+    }
+
+    private static BookLog.Change write(LogWrite write) {
+        try {
+            return write.apply();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Book store write failed: " + e.getMessage(), e);
+        }
+    }
+
+    private interface LogWrite {
+        BookLog.Change apply() throws IOException;
+    }
+
+    /**
+     * Writes of one transaction, appended to the log as one batch just before it commits.
+     * Until then other transactions see none of them; only the ISBNs they use are reserved.
+     */
+    private final class Pending implements Synchronization {
+        // Latest state of each book written, null once deleted
+        final Map<Long, Book> books = new HashMap<>();
+        final List<BookLog.BatchWork> writes = new ArrayList<>();
+        final Set<String> reservedIsbns = new HashSet<>();
+        boolean written;
+
+        void put(long id, Book state, BookLog.BatchWork write) {
+            books.put(id, state);
+            writes.add(write);
+        }
+
+        /**
+         * ID of the book using the ISBN among this transaction's writes, or -1
+         */
+        long holder(String isbn) {
+            for (Map.Entry<Long, Book> entry : books.entrySet()) {
+                if (entry.getValue() != null && isbn.equals(entry.getValue().getIsbn())) {
+                    return entry.getKey();
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Reserve an ISBN for the book with the given ID; a committed book keeps its ISBN
+         * for other transactions until this one commits a change or delete of it
+         */
+        void reserveIsbn(String isbn, long id) {
+            long holder = holder(isbn);
+            if (holder >= 0 && holder != id) {
+                throw new DuplicateIsbnException(isbn);
+            }
+            log.reserveIsbn(isbn, this, id, other -> books.containsKey(other)
+                && (books.get(other) == null || !isbn.equals(books.get(other).getIsbn())));
+            reservedIsbns.add(isbn);
+        }
+
+        /**
+         * Append the batch. Interposed synchronizations run after all others, so this is the
+         * last step before the commit; a failure throws, which rolls the transaction back,
+         * and the batch leaves nothing behind in the log.
+         */
+        @Override
+        public void beforeCompletion() {
+            if (writes.isEmpty()) {
+                return;
+            }
+            try {
+                log.writeBatch(this, batch -> {
+                    for (BookLog.BatchWork write : writes) {
+                        write.write(batch);
+                    }
+                });
+                written = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Book store write failed: " + e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            try {
+                if (written && status != Status.STATUS_COMMITTED) {
+                    // Only another resource failing its commit after the append leads here
+                    LOGGER.severe(writes.size() + " book writes were stored, but their transaction did not commit");
+                }
+            } finally {
+                // Released only now, so the ISBNs pass straight from reservation to index
+                log.releaseIsbns(this, reservedIsbns);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.library.store;
+
+import com.library.util.AppConfig;
+import java.util.Locale;
+
+/**
+ * Utility class telling which storage engine holds the books (library.storage).
+ *
+ *   jpa     - PostgreSQL through the bookLibraryPU persistence unit (default)
+ *   offheap - the embedded OffHeapBookStore; subsystems that need PostgreSQL are disabled
+ */
+public class StorageMode {
+    
+    public static final String JPA = "jpa";
+    public static final String OFFHEAP = "offheap";
+    
+    private static final String MODE = AppConfig.getString("library.storage", JPA).toLowerCase(Locale.ROOT);
+    
+    private StorageMode() {
+        // Utility class - prevent instantiation
+    }
+    
+    /**
+     * The configured engine name
+     */
+    public static String get() {
+        return MODE;
+    }
+    
+    /**
+     * True if the configured engine is one of the known engines
+     */
+    public static boolean isKnown() {
+        return JPA.equals(MODE) || OFFHEAP.equals(MODE);
+    }
+    
+    /**
+     * True when books live in the embedded store and PostgreSQL is not used
+     */
+    public static boolean isOffHeap() {
+        return OFFHEAP.equals(MODE);
+    }
+}
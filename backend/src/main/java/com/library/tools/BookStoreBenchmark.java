@@ -0,0 +1,227 @@
+package com.library.tools;
+
+import com.library.entity.Book;
+import com.library.store.BookLog;
+import com.library.util.DatabaseConfig;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Point-read benchmark for the off-heap book store.
+ *
+ * Loads synthetic books into a BookLog in a temporary directory, then looks up random books
+ * by ID and by ISBN from several threads, reporting throughput and latency percentiles.
+ * With --jdbc the same lookups run as single-row SELECTs against the books table of the
+ * configured database (books already loaded, e.g. by CatalogGeneratorCli), one connection
+ * per thread, for comparison with the default storage engine.
+ *
+ * Usage: BookStoreBenchmark [--books 100000] [--reads 1000000] [--threads 4] [--jdbc]
+ */
+public class BookStoreBenchmark {
+
+    private BookStoreBenchmark() {
+        // Entry point only - prevent instantiation
+    }
+
+    public static void main(String[] args) throws Exception {
+        int books = 100_000;
+        int reads = 1_000_000;
+        int threads = 4;
+        boolean jdbc = false;
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--jdbc")) {
+                jdbc = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                usage("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--books":
+                    books = Integer.parseInt(value);
+                    break;
+                case "--reads":
+                    reads = Integer.parseInt(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                default:
+                    usage("Unknown option: " + option);
+            }
+        }
+        if (books < 1 || reads < 1 || threads < 1) {
+            usage("--books, --reads and --threads must be positive");
+        }
+
+        Path dir = Files.createTempDirectory("book-store-bench");
+        Path file = dir.resolve("books.log");
+        try (BookLog log = BookLog.open(file, 16 * 1024 * 1024, false)) {
+            long start = System.nanoTime();
+            long[] ids = new long[books];
+            String[] isbns = new String[books];
+            for (int i = 0; i < books; i++) {
+                Book book = new Book("Synthetic Title " + i, "Author " + (i % 5_000), 1900 + i % 125, isbn(i));
+                log.insert(book);
+                ids[i] = book.getId();
+                isbns[i] = book.getIsbn();
+            }
+            System.out.printf("Loaded %d books into %s in %.0f ms (%d MB log)%n", books, file,
+                              (System.nanoTime() - start) / 1e6, log.getLogBytes() / (1024 * 1024));
+
+            run("offheap id", reads, threads, () -> random -> {
+                if (log.get(ids[random.nextInt(ids.length)]) == null) {
+                    throw new IllegalStateException("Book vanished");
+                }
+            });
+            run("offheap isbn", reads, threads, () -> random -> {
+                if (log.findIdByIsbn(isbns[random.nextInt(isbns.length)]) < 0) {
+                    throw new IllegalStateException("ISBN vanished");
+                }
+            });
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+
+        if (jdbc) {
+            runJdbc(books, reads, threads);
+        }
+    }
+
+    private static void runJdbc(int books, int reads, int threads) throws Exception {
+        List<Long> idList = new ArrayList<>();
+        List<String> isbnList = new ArrayList<>();
+        try (Connection connection = DatabaseConfig.openConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT id, isbn FROM books LIMIT ?")) {
+            statement.setInt(1, books);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    idList.add(rs.getLong(1));
+                    isbnList.add(rs.getString(2));
+                }
+            }
+        }
+        if (idList.isEmpty()) {
+            System.err.println("No books in " + DatabaseConfig.getJdbcUrl() + ", skipping the JDBC comparison");
+            return;
+        }
+        System.out.println("Comparing with " + idList.size() + " books in " + DatabaseConfig.getJdbcUrl());
+
+        run("jdbc id", reads, threads, jdbcReader(
+            "SELECT id, title, author, publication_year, isbn, created_at, updated_at FROM books WHERE id = ?",
+            (statement, random) -> statement.setLong(1, idList.get(random.nextInt(idList.size())))));
+        run("jdbc isbn", reads, threads, jdbcReader(
+            "SELECT id FROM books WHERE isbn = ?",
+            (statement, random) -> statement.setString(1, isbnList.get(random.nextInt(isbnList.size())))));
+    }
+
+    /**
+     * Readers that each hold their own connection and prepared statement
+     */
+    private static ReaderFactory jdbcReader(String sql, Binder binder) {
+        return () -> {
+            Connection connection = DatabaseConfig.openConnection();
+            PreparedStatement statement = connection.prepareStatement(sql);
+            return random -> {
+                binder.bind(statement, random);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new IllegalStateException("Book vanished");
+                    }
+                }
+            };
+        };
+    }
+
+    private static void run(String name, int reads, int threads, ReaderFactory factory) throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        long[] latencies = new long[reads];
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    Reader reader = factory.create();
+                    SplittableRandom random = new SplittableRandom(seed);
+                    ready.countDown();
+                    go.await();
+                    int i;
+                    while ((i = next.getAndIncrement()) < reads) {
+                        long start = System.nanoTime();
+                        reader.read(random);
+                        latencies[i] = System.nanoTime() - start;
+                    }
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                    ready.countDown();
+                    System.err.println(name + ": reader failed: " + e.getMessage());
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        int done = Math.min(reads, next.get());
+        long[] sorted = Arrays.copyOf(latencies, done);
+        Arrays.sort(sorted);
+        System.out.printf("%-13s %9d reads, %d errors | %11.0f reads/s | p50 %8.2f us  p99 %8.2f us  max %9.2f us%n",
+                          name, done, errors.get(), done / (elapsedNanos / 1e9),
+                          percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0));
+    }
+
+    private static String isbn(int i) {
+        return "979" + String.format("%010d", i);
+    }
+
+    private static double percentile(long[] sortedNanos, double p) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(p * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(0, index)] / 1e3;
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: BookStoreBenchmark [--books N] [--reads N] [--threads N] [--jdbc]");
+        System.exit(2);
+    }
+
+    private interface Reader {
+        void read(SplittableRandom random) throws SQLException;
+    }
+
+    private interface ReaderFactory {
+        Reader create() throws SQLException;
+    }
+
+    private interface Binder {
+        void bind(PreparedStatement statement, SplittableRandom random) throws SQLException;
+    }
+}
@@ -0,0 +1,463 @@
+package com.library.tools;
+
+import com.library.event.BookChangeNotification;
+import com.library.event.CatalogLoadNotification;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+/**
+ * Synthetic catalog generator for scale testing.
+ *
+ * Every book is a pure function of the seed and its index, so a catalog is reproducible
+ * and can be produced in any order by any number of threads: producers claim blocks of
+ * indexes and stream them to PostgreSQL over their own COPY connection.
+ *
+ * - Authors follow a Zipf distribution (a few prolific authors, a long tail).
+ * - Years are skewed towards recent decades with a tail back to 1450.
+ * - ISBN-13s are valid (979 prefix, correct check digit) and unique: the nine core digits
+ *   are an affine bijection of the book ID onto 100000000..999999999, so repeated loads never
+ *   collide. They never start with 0: 979-0 is the ISMN range for printed music.
+ *
+ * Uses only JDBC and the PostgreSQL driver so it runs both in the server and from the
+ * command line (see CatalogGeneratorCli).
+ */
+public class CatalogGenerator {
+
+    private static final Logger LOGGER = Logger.getLogger(CatalogGenerator.class.getName());
+
+    // i -> (i * M + B) mod 9 * 10^8 is a bijection because M is coprime with 9 * 10^8
+    // (odd, not a multiple of 3 or 5); 10^8 is added so the first core digit is never 0
+    private static final long ISBN_SPACE = 900_000_000L;
+    private static final long ISBN_FIRST_CORE = 100_000_000L;
+
+    public static final long MAX_ROWS = ISBN_SPACE;
+    private static final long ISBN_MULTIPLIER = 738_219_137L;
+    private static final long ISBN_OFFSET = 271_828_182L;
+    private static final int BLOCK_SIZE = 50_000;
+    private static final int COPY_BUFFER_CHARS = 1 << 20;
+
+    private static final String[] FIRST_NAMES = {
+        "Ada", "Alan", "Alice", "Amara", "Andrei", "Anna", "Arjun", "Beatriz", "Carlos", "Chen",
+        "Chiara", "Daniel", "David", "Elena", "Emeka", "Emily", "Fatima", "Felix", "Grace", "Hana",
+        "Hiroshi", "Ines", "Isaac", "Ivan", "James", "Jana", "Jonas", "Julia", "Kamal", "Karin",
+        "Kenji", "Laila", "Lars", "Leo", "Lucia", "Magnus", "Maria", "Mateo", "Mei", "Mira",
+        "Nadia", "Noah", "Olga", "Omar", "Paolo", "Priya", "Rafael", "Rosa", "Samuel", "Sara",
+        "Sofia", "Tariq", "Thomas", "Ursula", "Victor", "Wen", "William", "Yara", "Yusuf", "Zoe"
+    };
+
+    private static final String[] LAST_NAMES = {
+        "Abbott", "Adeyemi", "Almeida", "Andersen", "Bauer", "Bennett", "Bianchi", "Brennan", "Castillo", "Chandra",
+        "Chen", "Costa", "Dubois", "Eriksson", "Fischer", "Fontaine", "Garcia", "Gomez", "Haddad", "Hansen",
+        "Hayes", "Horvath", "Ivanova", "Jensen", "Kaur", "Kawasaki", "Keller", "Kim", "Kowalski", "Larsen",
+        "Laurent", "Lindqvist", "Lopez", "Marino", "Martin", "Mendes", "Moreau", "Morrison", "Nakamura", "Novak",
+        "Nowak", "Okafor", "Olsen", "Park", "Petrov", "Popescu", "Quinn", "Ramirez", "Reyes", "Rossi",
+        "Sato", "Schmidt", "Silva", "Singh", "Sokolov", "Tanaka", "Torres", "Varga", "Wagner", "Walsh",
+        "Weber", "Wright", "Yamamoto", "Zhang"
+    };
+
+    private static final String[] ADJECTIVES = {
+        "Silent", "Hidden", "Broken", "Golden", "Last", "Lost", "Distant", "Burning", "Crimson", "Quiet",
+        "Endless", "Forgotten", "Northern", "Hollow", "Secret", "Wild", "Bitter", "Glass", "Iron", "Midnight",
+        "Practical", "Modern", "Complete", "Concise", "Applied", "Effective", "Essential", "Advanced"
+    };
+
+    private static final String[] NOUNS = {
+        "River", "Garden", "Empire", "Winter", "Ocean", "Machine", "Kingdom", "Harbor", "Mountain", "Letter",
+        "Shadow", "Storm", "Archive", "Orchard", "Bridge", "Lantern", "Island", "Forest", "Signal", "Compass",
+        "Algorithms", "Databases", "Economics", "Physics", "Design", "History", "Language", "Systems", "Networks", "Memory"
+    };
+
+    private static final String[] TITLE_PATTERNS = {
+        "The %A %N", "%N of the %A %N", "A %N in %N", "The %N of %N", "%A %N", "%A %N: A History",
+        "%N and %N", "The %A %N, Volume %V", "%A %N (Edition %V)", "Notes on %N"
+    };
+
+    private final long rows;
+    private final long seed;
+    private final int producers;
+    private final int authors;
+    private final double[] authorCdf;
+    // Years count back from the year the generator was created, so a load never straddles two
+    private final int currentYear = Year.now().getValue();
+    private final AtomicLong rowsWritten = new AtomicLong();
+
+    /**
+     * @param rows      number of books to generate
+     * @param seed      catalog seed; the same seed always produces the same books (within a year)
+     * @param producers parallel COPY connections
+     * @param authors   distinct authors (0 picks rows / 20)
+     * @param zipfSkew  Zipf exponent of the author distribution (around 1.0)
+     */
+    public CatalogGenerator(long rows, long seed, int producers, int authors, double zipfSkew) {
+        if (rows < 1 || rows > MAX_ROWS) {
+            throw new IllegalArgumentException("rows must be between 1 and " + MAX_ROWS);
+        }
+        if (producers < 1) {
+            throw new IllegalArgumentException("producers must be at least 1");
+        }
+        this.rows = rows;
+        this.seed = seed;
+        this.producers = producers;
+        this.authors = (int) Math.max(1, Math.min(authors > 0 ? authors : rows / 20, 5_000_000));
+        this.authorCdf = zipfCdf(this.authors, zipfSkew);
+    }
+
+    /**
+     * Opens a new connection for a producer
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * Generate the catalog into the books table.
+     * New books get a range of IDs reserved from the ID sequence before the load, so books
+     * inserted meanwhile by the application take IDs after it. The start and end of the load
+     * are announced on the book change channel, so every node flushes its cache and stops
+     * trusting its existence filters for the range until it has re-read the books table.
+     *
+     * @param truncate      delete all existing books first (refused once the library has copies)
+     * @param deferIndexes  drop the non-unique indexes during the load and recreate them after
+     *                      from the definitions they had
+     */
+    public void generate(ConnectionFactory connections, ThreadFactory threadFactory,
+                         boolean truncate, boolean deferIndexes) throws SQLException, InterruptedException {
+        long start = System.nanoTime();
+        long firstId;
+        try (Connection connection = connections.open()) {
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                if (truncate) {
+                    // Copies and loans reference books; never throw circulation history away
+                    try (ResultSet rs = statement.executeQuery("SELECT EXISTS (SELECT 1 FROM book_copies)")) {
+                        rs.next();
+                        if (rs.getBoolean(1)) {
+                            throw new IllegalStateException("Cannot truncate books: the library has copies and loans");
+                        }
+                    }
+                    // Both tables are empty; PostgreSQL only truncates a referenced table along with them
+                    statement.execute("TRUNCATE books, book_copies, loans RESTART IDENTITY");
+                }
+            }
+            firstId = reserveIds(connection);
+            announce(connection, new CatalogLoadNotification(false, firstId, firstId + rows - 1));
+        }
+
+        List<String> deferredIndexes = new ArrayList<>();
+        try {
+            if (deferIndexes) {
+                dropSecondaryIndexes(connections, deferredIndexes);
+            }
+            runProducers(connections, threadFactory, firstId);
+        } finally {
+            try (Connection connection = connections.open()) {
+                connection.setAutoCommit(true);
+                try (Statement statement = connection.createStatement()) {
+                    for (String index : deferredIndexes) {
+                        statement.execute(index);
+                    }
+                    statement.execute("ANALYZE books");
+                } finally {
+                    announce(connection, new CatalogLoadNotification(true, firstId, firstId + rows - 1));
+                }
+            }
+        }
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        LOGGER.info("Generated " + rowsWritten.get() + " books in " + elapsedMs + " ms ("
+                    + rowsWritten.get() * 60_000 / elapsedMs + " rows/minute, " + producers + " producers)");
+    }
+
+    /**
+     * Advance the ID sequence past the IDs of the new books and return the first of them.
+     * The lock keeps application inserts, which draw their IDs from the same sequence, out
+     * until the range is reserved; IDs already drawn by open transactions are below it.
+     */
+    private long reserveIds(Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LOCK TABLE books IN SHARE ROW EXCLUSIVE MODE");
+            long firstId;
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT GREATEST(nextval(pg_get_serial_sequence('books', 'id')), "
+                    + "(SELECT COALESCE(MAX(id), 0) + 1 FROM books))")) {
+                rs.next();
+                firstId = rs.getLong(1);
+            }
+            if (firstId - 1 + rows > ISBN_SPACE) {
+                throw new IllegalArgumentException("Book IDs above " + ISBN_SPACE + " would repeat generated ISBNs");
+            }
+            statement.execute("SELECT setval(pg_get_serial_sequence('books', 'id'), " + (firstId + rows - 1) + ")");
+            connection.commit();
+            return firstId;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Drop the non-unique indexes of books and add their definitions to the list, for
+     * replaying after the load. Unique indexes stay: they back the primary key and ISBNs.
+     */
+    private static void dropSecondaryIndexes(ConnectionFactory connections, List<String> definitions)
+            throws SQLException {
+        try (Connection connection = connections.open();
+             Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(true);
+            List<String> names = new ArrayList<>();
+            List<String> found = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT i.indexrelid::regclass::text, pg_get_indexdef(i.indexrelid) FROM pg_index i "
+                    + "WHERE i.indrelid = 'books'::regclass AND NOT i.indisunique ORDER BY 1")) {
+                while (rs.next()) {
+                    names.add(rs.getString(1));
+                    // On a partitioned table the definition reads ON ONLY, which would leave the partitions unindexed
+                    found.add(rs.getString(2).replace(" ON ONLY ", " ON "));
+                }
+            }
+            if (names.isEmpty()) {
+                return;
+            }
+            // Logged first, so the indexes can be recreated by hand should this process die
+            for (String definition : found) {
+                LOGGER.info("Dropping until the load ends: " + definition);
+            }
+            statement.execute("DROP INDEX " + String.join(", ", names));
+            definitions.addAll(found);
+        }
+    }
+
+    private static void announce(Connection connection, CatalogLoadNotification notification) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+            statement.setString(1, BookChangeNotification.CHANNEL);
+            statement.setString(2, notification.toPayload());
+            statement.execute();
+        }
+    }
+
+    /**
+     * Rows committed so far
+     */
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    private void runProducers(ConnectionFactory connections, ThreadFactory threadFactory, long firstId)
+            throws SQLException, InterruptedException {
+        AtomicLong nextBlock = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(producers, threadFactory);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                futures.add(executor.submit(() -> {
+                    produce(connections, nextBlock, firstId);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    // Stop the other producers at their next block
+                    nextBlock.set(Long.MAX_VALUE / 2);
+                    Throwable cause = e.getCause();
+                    if (cause instanceof SQLException) {
+                        throw (SQLException) cause;
+                    }
+                    throw new IllegalStateException("Catalog producer failed: " + cause.getMessage(), cause);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Claim blocks of indexes and COPY each block in its own transaction
+     */
+    private void produce(ConnectionFactory connections, AtomicLong nextBlock, long firstId) throws SQLException {
+        StringBuilder text = new StringBuilder(COPY_BUFFER_CHARS + 512);
+        try (Connection connection = connections.open()) {
+            connection.setAutoCommit(true);
+            PGConnection pg = connection.unwrap(PGConnection.class);
+            long block;
+            while ((block = nextBlock.getAndIncrement()) * BLOCK_SIZE < rows) {
+                long from = block * BLOCK_SIZE;
+                long to = Math.min(rows, from + BLOCK_SIZE);
+                CopyIn copy = pg.getCopyAPI().copyIn(
+                    "COPY books (id, title, author, publication_year, isbn) FROM STDIN WITH (FORMAT text)");
+                try {
+                    for (long i = from; i < to; i++) {
+                        appendRow(text, i, firstId + i);
+                        if (text.length() >= COPY_BUFFER_CHARS) {
+                            send(copy, text);
+                        }
+                    }
+                    send(copy, text);
+                    copy.endCopy();
+                    rowsWritten.addAndGet(to - from);
+                } finally {
+                    text.setLength(0);
+                    if (copy.isActive()) {
+                        copy.cancelCopy();
+                    }
+                }
+            }
+        }
+    }
+
+    private static void send(CopyIn copy, StringBuilder text) throws SQLException {
+        byte[] bytes = text.toString().getBytes(StandardCharsets.UTF_8);
+        copy.writeToCopy(bytes, 0, bytes.length);
+        text.setLength(0);
+    }
+
+    /**
+     * Append book #index as one COPY text line (tab-separated, newline-terminated)
+     */
+    void appendRow(StringBuilder sb, long index, long id) {
+        // Independent, well-mixed stream per index: rows do not depend on generation order
+        SplittableRandom random = new SplittableRandom(mix64(seed + index * 0x9E3779B97F4A7C15L));
+        sb.append(id).append('\t');
+        appendTitle(sb, random);
+        sb.append('\t');
+        appendAuthor(sb, authorRank(random.nextDouble()));
+        sb.append('\t').append(year(random)).append('\t');
+        appendIsbn(sb, id);
+        sb.append('\n');
+    }
+
+    private void appendTitle(StringBuilder sb, SplittableRandom random) {
+        String pattern = TITLE_PATTERNS[random.nextInt(TITLE_PATTERNS.length)];
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '%' && i + 1 < pattern.length()) {
+                char kind = pattern.charAt(++i);
+                if (kind == 'A') {
+                    sb.append(ADJECTIVES[random.nextInt(ADJECTIVES.length)]);
+                } else if (kind == 'N') {
+                    sb.append(NOUNS[random.nextInt(NOUNS.length)]);
+                } else {
+                    sb.append(random.nextInt(2, 10));
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+
+    /**
+     * Distinct name for every rank: first name, middle initial, last name, then a numeric suffix
+     */
+    private static void appendAuthor(StringBuilder sb, int rank) {
+        int first = rank % FIRST_NAMES.length;
+        int rest = rank / FIRST_NAMES.length;
+        int initial = rest % 26;
+        rest /= 26;
+        int last = rest % LAST_NAMES.length;
+        int suffix = rest / LAST_NAMES.length;
+        sb.append(FIRST_NAMES[first]).append(' ').append((char) ('A' + initial)).append(". ")
+          .append(LAST_NAMES[last]);
+        if (suffix > 0) {
+            sb.append(' ').append(suffix + 1);
+        }
+    }
+
+    private int authorRank(double u) {
+        int low = 0;
+        int high = authors - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (authorCdf[mid] < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Mostly recent books (exponential decay back from the current year) plus an older tail
+     */
+    private int year(SplittableRandom random) {
+        if (random.nextInt(100) < 85) {
+            int age = (int) (-Math.log(1.0 - random.nextDouble()) * 18);
+            return Math.max(1900, currentYear - age);
+        }
+        return random.nextInt(1450, 1900);
+    }
+
+    /**
+     * Append the ISBN-13 of the book with this ID as 979-d-dddd-dddd-c, d never 0
+     */
+    private static void appendIsbn(StringBuilder sb, long id) {
+        long core = ISBN_FIRST_CORE + (id % ISBN_SPACE * ISBN_MULTIPLIER + ISBN_OFFSET) % ISBN_SPACE;
+        char[] digits = {'9', '7', '9', '0', '0', '0', '0', '0', '0', '0', '0', '0'};
+        for (int k = 11; k >= 3 && core > 0; k--) {
+            digits[k] = (char) ('0' + core % 10);
+            core /= 10;
+        }
+        sb.append(digits, 0, 3).append('-').append(digits, 3, 1).append('-').append(digits, 4, 4).append('-')
+          .append(digits, 8, 4).append('-').append(checkDigit(digits));
+    }
+
+    /**
+     * ISBN-13 check digit of the first twelve digits
+     */
+    static int checkDigit(char[] twelveDigits) {
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            int digit = twelveDigits[i] - '0';
+            sum += (i % 2 == 0) ? digit : digit * 3;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    /**
+     * 64-bit finalizer (Stafford variant 13): nearby inputs give unrelated outputs
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static double[] zipfCdf(int n, double skew) {
+        double[] cdf = new double[n];
+        double total = 0;
+        for (int k = 0; k < n; k++) {
+            total += 1.0 / Math.pow(k + 1, skew);
+            cdf[k] = total;
+        }
+        for (int k = 0; k < n; k++) {
+            cdf[k] /= total;
+        }
+        return cdf;
+    }
+}
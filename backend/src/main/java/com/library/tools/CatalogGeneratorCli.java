@@ -0,0 +1,75 @@
+package com.library.tools;
+
+import com.library.util.DatabaseConfig;
+import java.util.concurrent.Executors;
+
+/**
+ * Command-line entry point of the synthetic catalog generator.
+ * Connects with the same DB_HOST/DB_PORT/DB_NAME/DB_USER/DB_PASSWORD variables as the server.
+ *
+ * Usage: CatalogGeneratorCli --rows 1000000 [--seed 42] [--producers 4] [--authors 0]
+ *                            [--zipf 0.8] [--truncate] [--defer-indexes]
+ */
+public class CatalogGeneratorCli {
+
+    private CatalogGeneratorCli() {
+        // Entry point only - prevent instantiation
+    }
+
+    public static void main(String[] args) throws Exception {
+        long rows = 1_000_000;
+        long seed = 42;
+        int producers = Runtime.getRuntime().availableProcessors();
+        int authors = 0;
+        double zipf = 0.8;
+        boolean truncate = false;
+        boolean deferIndexes = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rows":
+                    rows = Long.parseLong(value(args, ++i));
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value(args, ++i));
+                    break;
+                case "--producers":
+                    producers = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--authors":
+                    authors = Integer.parseInt(value(args, ++i));
+                    break;
+                case "--zipf":
+                    zipf = Double.parseDouble(value(args, ++i));
+                    break;
+                case "--truncate":
+                    truncate = true;
+                    break;
+                case "--defer-indexes":
+                    deferIndexes = true;
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.err.println("Usage: CatalogGeneratorCli --rows N [--seed S] [--producers P] [--authors A]"
+                                       + " [--zipf X] [--truncate] [--defer-indexes]");
+                    System.exit(2);
+            }
+        }
+
+        System.out.println("Generating " + rows + " books (seed " + seed + ", " + producers + " producers) into "
+                           + DatabaseConfig.getJdbcUrl());
+        CatalogGenerator generator = new CatalogGenerator(rows, seed, producers, authors, zipf);
+        long start = System.nanoTime();
+        generator.generate(DatabaseConfig::openConnection, Executors.defaultThreadFactory(), truncate, deferIndexes);
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.println("Done: " + generator.getRowsWritten() + " books in " + elapsedMs + " ms ("
+                           + generator.getRowsWritten() * 60_000 / elapsedMs + " rows/minute)");
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+        }
+        return args[i];
+    }
+}
@@ -0,0 +1,234 @@
+package com.library.tools;
+
+import com.library.util.DatabaseConfig;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Contention benchmark for checkouts of one hot title.
+ *
+ * Many patrons race for the copies of a single book, each attempting one checkout in its
+ * own transaction. Compares the SKIP LOCKED claim used by CirculationService with a naive
+ * "lock the first available copy" checkout, reporting throughput, latency percentiles, and
+ * checkouts refused while copies were still available. Every run verifies that no copy was
+ * lent twice.
+ *
+ * Usage: CheckoutBenchmark --book-id 1 [--copies 200] [--patrons 1000] [--threads 64]
+ *                          [--mode skip-locked|naive|both]
+ *
+ * Deletes and recreates all copies (and loans) of the given book: use a test database.
+ */
+public class CheckoutBenchmark {
+
+    private static final String SKIP_LOCKED_CLAIM =
+        "UPDATE book_copies SET status = 'ON_LOAN' WHERE id = ("
+        + "SELECT id FROM book_copies WHERE book_id = ? AND status = 'AVAILABLE' "
+        + "LIMIT 1 FOR UPDATE SKIP LOCKED) RETURNING id";
+
+    // Every checkout waits for the same row; waiters that find it taken get no row back
+    private static final String NAIVE_CLAIM =
+        "UPDATE book_copies SET status = 'ON_LOAN' WHERE id = ("
+        + "SELECT id FROM book_copies WHERE book_id = ? AND status = 'AVAILABLE' "
+        + "ORDER BY id LIMIT 1 FOR UPDATE) RETURNING id";
+
+    private static final String INSERT_LOAN =
+        "INSERT INTO loans (copy_id, book_id, patron_id, due_at) VALUES (?, ?, ?, CURRENT_TIMESTAMP + INTERVAL '21 days')";
+
+    private CheckoutBenchmark() {
+        // Entry point only - prevent instantiation
+    }
+
+    public static void main(String[] args) throws Exception {
+        long bookId = -1;
+        int copies = 200;
+        int patrons = 1000;
+        int threads = 64;
+        String mode = "both";
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                usage("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--book-id":
+                    bookId = Long.parseLong(value);
+                    break;
+                case "--copies":
+                    copies = Integer.parseInt(value);
+                    break;
+                case "--patrons":
+                    patrons = Integer.parseInt(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--mode":
+                    mode = value;
+                    break;
+                default:
+                    usage("Unknown option: " + option);
+            }
+        }
+        if (bookId < 0) {
+            usage("--book-id is required");
+        }
+
+        System.out.println("Benchmark: " + patrons + " patrons on " + threads + " connections racing for "
+                           + copies + " copies of book " + bookId + " (" + DatabaseConfig.getJdbcUrl() + ")");
+        if (!mode.equals("naive")) {
+            run("skip-locked", SKIP_LOCKED_CLAIM, bookId, copies, patrons, threads);
+        }
+        if (!mode.equals("skip-locked")) {
+            run("naive", NAIVE_CLAIM, bookId, copies, patrons, threads);
+        }
+    }
+
+    private static void run(String name, String claimSql, long bookId, int copies, int patrons, int threads)
+            throws SQLException, InterruptedException {
+        resetCopies(bookId, copies);
+
+        AtomicInteger nextPatron = new AtomicInteger();
+        AtomicInteger lent = new AtomicInteger();
+        AtomicInteger refusedWhileAvailable = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        long[] latencies = new long[patrons];
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try (Connection connection = DatabaseConfig.openConnection();
+                     PreparedStatement claim = connection.prepareStatement(claimSql);
+                     PreparedStatement insert = connection.prepareStatement(INSERT_LOAN)) {
+                    connection.setAutoCommit(false);
+                    ready.countDown();
+                    go.await();
+                    int patron;
+                    while ((patron = nextPatron.getAndIncrement()) < patrons) {
+                        long start = System.nanoTime();
+                        boolean gotCopy = checkout(connection, claim, insert, bookId, "bench-" + patron);
+                        latencies[patron] = System.nanoTime() - start;
+                        if (gotCopy) {
+                            lent.incrementAndGet();
+                        } else if (lent.get() < copies) {
+                            refusedWhileAvailable.incrementAndGet();
+                        }
+                    }
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                    ready.countDown();
+                    System.err.println(name + ": worker failed: " + e.getMessage());
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        long[] sorted = Arrays.copyOf(latencies, Math.min(patrons, nextPatron.get()));
+        Arrays.sort(sorted);
+        System.out.printf("%-12s %6d lent, %6d refused while copies remained, %d errors | %8.0f checkouts/s | "
+                          + "p50 %6.2f ms  p99 %7.2f ms  max %7.2f ms%n",
+                          name, lent.get(), refusedWhileAvailable.get(), errors.get(),
+                          patrons / (elapsedNanos / 1e9), percentile(sorted, 0.50), percentile(sorted, 0.99),
+                          percentile(sorted, 1.0));
+        verify(name, bookId, lent.get());
+    }
+
+    private static boolean checkout(Connection connection, PreparedStatement claim, PreparedStatement insert,
+                                    long bookId, String patronId) throws SQLException {
+        try {
+            claim.setLong(1, bookId);
+            long copyId;
+            try (ResultSet rs = claim.executeQuery()) {
+                if (!rs.next()) {
+                    connection.rollback();
+                    return false;
+                }
+                copyId = rs.getLong(1);
+            }
+            insert.setLong(1, copyId);
+            insert.setLong(2, bookId);
+            insert.setString(3, patronId);
+            insert.executeUpdate();
+            connection.commit();
+            return true;
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        }
+    }
+
+    private static void resetCopies(long bookId, int copies) throws SQLException {
+        try (Connection connection = DatabaseConfig.openConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement delete = connection.prepareStatement("DELETE FROM book_copies WHERE book_id = ?");
+                 PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO book_copies (book_id) SELECT ? FROM generate_series(1, ?)")) {
+                delete.setLong(1, bookId);
+                delete.executeUpdate();
+                insert.setLong(1, bookId);
+                insert.setInt(2, copies);
+                insert.executeUpdate();
+            }
+            connection.commit();
+        }
+    }
+
+    /**
+     * Fail loudly if any copy has more than one open loan or the counts disagree
+     */
+    private static void verify(String name, long bookId, int lent) throws SQLException {
+        try (Connection connection = DatabaseConfig.openConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                 "SELECT COUNT(*), COUNT(DISTINCT l.copy_id), "
+                 + "(SELECT COUNT(*) FROM book_copies WHERE book_id = ? AND status = 'ON_LOAN') "
+                 + "FROM loans l WHERE l.book_id = ? AND l.returned_at IS NULL")) {
+            statement.setLong(1, bookId);
+            statement.setLong(2, bookId);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                long loans = rs.getLong(1);
+                long distinctCopies = rs.getLong(2);
+                long onLoan = rs.getLong(3);
+                if (loans != lent || distinctCopies != lent || onLoan != lent) {
+                    throw new IllegalStateException(name + ": inconsistent result: " + lent + " lent, " + loans
+                                                    + " open loans on " + distinctCopies + " copies, " + onLoan
+                                                    + " copies marked on loan");
+                }
+            }
+        }
+    }
+
+    private static double percentile(long[] sortedNanos, double p) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(p * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: CheckoutBenchmark --book-id ID [--copies N] [--patrons N] [--threads N]"
+                           + " [--mode skip-locked|naive|both]");
+        System.exit(2);
+    }
+}
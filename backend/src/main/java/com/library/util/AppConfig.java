@@ -0,0 +1,53 @@
+package com.library.util;
+
+import java.util.Locale;
+
+/**
+ * Utility class for reading application settings.
+ * A setting such as "library.bulk.chunk-size" is looked up as a system property first
+ * and then as the environment variable LIBRARY_BULK_CHUNK_SIZE.
+ */
+public class AppConfig {
+    
+    private AppConfig() {
+        // Utility class - prevent instantiation
+    }
+    
+    /**
+     * Get a string setting, or the default when it is not configured
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null || value.isBlank()) {
+            value = System.getenv(toEnvName(key));
+        }
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+    
+    /**
+     * Get an integer setting, or the default when it is not configured or not a number
+     */
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+    
+    /**
+     * Get a boolean setting, or the default when it is not configured
+     */
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+    
+    private static String toEnvName(String key) {
+        return key.replace('.', '_').replace('-', '_').toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,98 @@
+package com.library.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe Bloom filter over 64-bit hashes.
+ * Never reports a false negative: {@link #mightContain(long)} returning false means the
+ * value was definitely never added. Elements cannot be removed; rebuild the filter instead.
+ */
+public class BloomFilter {
+    
+    private static final double LN2 = Math.log(2);
+    
+    private final AtomicLongArray bits;
+    private final long numBits;
+    private final int numHashes;
+    
+    private BloomFilter(long numBits, int numHashes) {
+        long words = (numBits + 63) / 64;
+        if (words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter too large: " + numBits + " bits");
+        }
+        this.bits = new AtomicLongArray((int) words);
+        this.numBits = words * 64;
+        this.numHashes = numHashes;
+    }
+    
+    /**
+     * Create a filter sized for the expected number of elements and false positive probability
+     */
+    public static BloomFilter create(long expectedElements, double falsePositiveRate) {
+        long n = Math.max(expectedElements, 1);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (LN2 * LN2));
+        int k = Math.max(1, (int) Math.round((double) m / n * LN2));
+        return new BloomFilter(Math.max(m, 64), k);
+    }
+    
+    public void put(long hash) {
+        long h1 = hash;
+        long h2 = Long.rotateLeft(hash, 32) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            while (((current = bits.get(word)) & mask) == 0) {
+                if (bits.compareAndSet(word, current, current | mask)) {
+                    break;
+                }
+            }
+        }
+    }
+    
+    public boolean mightContain(long hash) {
+        long h1 = hash;
+        long h2 = Long.rotateLeft(hash, 32) | 1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, numBits);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    public long getNumBits() {
+        return numBits;
+    }
+    
+    public int getNumHashes() {
+        return numHashes;
+    }
+    
+    /**
+     * 64-bit hash of a long (MurmurHash3 finalizer)
+     */
+    public static long hash(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+    
+    /**
+     * 64-bit hash of a string (FNV-1a over UTF-16 chars, then mixed)
+     */
+    public static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return hash(h);
+    }
+}
@@ -1,7 +1,15 @@
 package com.library.util;
 
 import com.library.dto.BookDTO;
+import com.library.dto.BookHistoryDTO;
+import com.library.dto.DedupeJobDTO;
+import com.library.dto.DuplicateCandidateDTO;
+import com.library.dto.LoanDTO;
 import com.library.entity.Book;
+import com.library.entity.BookHistory;
+import com.library.entity.DedupeJob;
+import com.library.entity.DuplicateCandidate;
+import com.library.entity.Loan;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,7 +30,7 @@ public class BookMapper {
             return null;
         }
         
-        return new BookDTO(
+        BookDTO bookDTO = new BookDTO(
             book.getId(),
             book.getTitle(),
             book.getAuthor(),
@@ -31,6 +39,9 @@ public class BookMapper {
             book.getCreatedAt(),
             book.getUpdatedAt()
         );
+        bookDTO.setCoverHash(book.getCoverHash());
+        bookDTO.setCoverContentType(book.getCoverContentType());
+        return bookDTO;
     }
     
     /**
@@ -79,4 +90,108 @@ public class BookMapper {
         book.setPublicationYear(bookDTO.getPublicationYear());
         book.setIsbn(bookDTO.getIsbn());
     }
+    
+    /**
+     * Convert BookHistory entity to BookHistoryDTO
+     */
+    public static BookHistoryDTO toHistoryDTO(BookHistory history) {
+        if (history == null) {
+            return null;
+        }
+        
+        return new BookHistoryDTO(
+            history.getId(),
+            history.getBookId(),
+            history.getOperation(),
+            history.getTitle(),
+            history.getAuthor(),
+            history.getPublicationYear(),
+            history.getIsbn(),
+            history.getRecordedAt()
+        );
+    }
+    
+    /**
+     * Convert list of BookHistory entities to list of BookHistoryDTOs
+     */
+    public static List<BookHistoryDTO> toHistoryDTOList(List<BookHistory> history) {
+        if (history == null) {
+            return null;
+        }
+        
+        return history.stream()
+                      .map(BookMapper::toHistoryDTO)
+                      .collect(Collectors.toList());
+    }
+    
+    /**
+     * Convert DedupeJob entity to DedupeJobDTO
+     */
+    public static DedupeJobDTO toDedupeJobDTO(DedupeJob job) {
+        if (job == null) {
+            return null;
+        }
+        
+        DedupeJobDTO dto = new DedupeJobDTO();
+        dto.setId(job.getId());
+        dto.setStatus(job.getStatus());
+        dto.setStartedAt(job.getStartedAt());
+        dto.setFinishedAt(job.getFinishedAt());
+        dto.setBooksScanned(job.getBooksScanned());
+        dto.setPairsFound(job.getPairsFound());
+        dto.setError(job.getError());
+        return dto;
+    }
+    
+    /**
+     * Convert list of DuplicateCandidate entities to list of DuplicateCandidateDTOs
+     */
+    public static List<DuplicateCandidateDTO> toCandidateDTOList(List<DuplicateCandidate> candidates) {
+        if (candidates == null) {
+            return null;
+        }
+        
+        return candidates.stream()
+                         .map(c -> {
+                             DuplicateCandidateDTO dto = new DuplicateCandidateDTO();
+                             dto.setBookIdA(c.getBookIdA());
+                             dto.setBookIdB(c.getBookIdB());
+                             dto.setScore(c.getScore());
+                             dto.setReason(c.getReason());
+                             return dto;
+                         })
+                         .collect(Collectors.toList());
+    }
+    
+    /**
+     * Convert Loan entity to LoanDTO
+     */
+    public static LoanDTO toLoanDTO(Loan loan) {
+        if (loan == null) {
+            return null;
+        }
+        
+        LoanDTO dto = new LoanDTO();
+        dto.setId(loan.getId());
+        dto.setCopyId(loan.getCopyId());
+        dto.setBookId(loan.getBookId());
+        dto.setPatronId(loan.getPatronId());
+        dto.setCheckedOutAt(loan.getCheckedOutAt());
+        dto.setDueAt(loan.getDueAt());
+        dto.setReturnedAt(loan.getReturnedAt());
+        return dto;
+    }
+    
+    /**
+     * Convert list of Loan entities to list of LoanDTOs
+     */
+    public static List<LoanDTO> toLoanDTOList(List<Loan> loans) {
+        if (loans == null) {
+            return null;
+        }
+        
+        return loans.stream()
+                    .map(BookMapper::toLoanDTO)
+                    .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,87 @@
+package com.library.util;
+
+/**
+ * A single byte range from an HTTP Range header, such as "bytes=0-1023", "bytes=1024-"
+ * or "bytes=-500" (the last 500 bytes).
+ *
+ * Only one range per request is supported. Headers with several ranges, other units or
+ * invalid syntax are ignored, which the HTTP specification allows: the whole file is sent.
+ */
+public class ByteRange {
+
+    /**
+     * No byte of the requested range lies within the file (416 Range Not Satisfiable)
+     */
+    public static final ByteRange UNSATISFIABLE = new ByteRange(-1, -1);
+
+    private static final String UNIT = "bytes=";
+
+    private final long start;
+    private final long end;
+
+    private ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Parse a Range header against a file of the given length
+     *
+     * @return the range, UNSATISFIABLE, or null if the whole file should be sent
+     */
+    public static ByteRange parse(String header, long length) {
+        if (header == null || !header.regionMatches(true, 0, UNIT, 0, UNIT.length())) {
+            return null;
+        }
+        String spec = header.substring(UNIT.length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0 || spec.indexOf(',') >= 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // Suffix range: the last n bytes
+                long suffix = Long.parseLong(last);
+                if (suffix < 0) {
+                    return null;
+                }
+                if (suffix == 0 || length == 0) {
+                    return UNSATISFIABLE;
+                }
+                return new ByteRange(Math.max(0, length - suffix), length - 1);
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (start < 0 || end < start) {
+                return null;
+            }
+            if (start >= length) {
+                return UNSATISFIABLE;
+            }
+            return new ByteRange(start, Math.min(end, length - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getLength() {
+        return end - start + 1;
+    }
+
+    /**
+     * Value of the Content-Range response header for this range
+     */
+    public String toContentRange(long length) {
+        return this == UNSATISFIABLE ? "bytes */" + length : "bytes " + start + "-" + end + "/" + length;
+    }
+}
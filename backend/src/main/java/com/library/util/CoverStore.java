@@ -0,0 +1,357 @@
+package com.library.util;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Content-addressed file store for cover images.
+ *
+ * An image is stored under the SHA-256 of its bytes, so identical uploads share one file
+ * and a stored file never changes: it can be served without locking and cached forever
+ * under its hash. Files are written to a temporary name and renamed into place, so readers
+ * never see a partial image. Images no book references any more are removed by sweep().
+ * Layout below the root directory:
+ * <pre>
+ *   originals/ab/abcd…          the uploaded image
+ *   thumbnails/ab/abcd…-200.jpg JPEG thumbnail 200 pixels wide
+ *   tmp/                        uploads in progress
+ * </pre>
+ */
+public class CoverStore {
+
+    public static final String THUMBNAIL_CONTENT_TYPE = "image/jpeg";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int SNIFF_LENGTH = 12;
+    private static final float THUMBNAIL_QUALITY = 0.85f;
+    private static final int SWEEP_BATCH_SIZE = 500;
+
+    private final Path originals;
+    private final Path thumbnails;
+    private final Path tmp;
+
+    // Orders an upload finding its image already stored against sweep() deleting that image
+    private final Object originalsLock = new Object();
+
+    public CoverStore(Path root) throws IOException {
+        this.originals = Files.createDirectories(root.resolve("originals"));
+        this.thumbnails = Files.createDirectories(root.resolve("thumbnails"));
+        this.tmp = Files.createDirectories(root.resolve("tmp"));
+    }
+
+    /**
+     * Store an image, hashing it while it is copied to disk
+     *
+     * @throws IllegalArgumentException if the stream is empty, larger than maxBytes, or not
+     *         a JPEG, PNG, GIF or WebP image
+     */
+    public StoredImage store(InputStream in, long maxBytes) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] head = new byte[SNIFF_LENGTH];
+        int headLength = 0;
+        long size = 0;
+
+        Path upload = Files.createTempFile(tmp, "upload-", ".part");
+        try {
+            try (OutputStream out = Files.newOutputStream(upload)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    size += n;
+                    if (size > maxBytes) {
+                        throw new IllegalArgumentException("Cover image cannot exceed " + maxBytes + " bytes");
+                    }
+                    if (headLength < SNIFF_LENGTH) {
+                        int copied = Math.min(n, SNIFF_LENGTH - headLength);
+                        System.arraycopy(buffer, 0, head, headLength, copied);
+                        headLength += copied;
+                    }
+                    digest.update(buffer, 0, n);
+                    out.write(buffer, 0, n);
+                }
+            }
+            if (size == 0) {
+                throw new IllegalArgumentException("Cover image cannot be empty");
+            }
+            String contentType = sniffContentType(head, headLength);
+            if (contentType == null) {
+                throw new IllegalArgumentException("Cover must be a JPEG, PNG, GIF or WebP image");
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = getOriginal(hash);
+            synchronized (originalsLock) {
+                if (Files.exists(target)) {
+                    // Restart the sweep's grace period: the image is about to be referenced again
+                    Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                } else {
+                    Files.createDirectories(target.getParent());
+                    try {
+                        Files.move(upload, target, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (FileAlreadyExistsException e) {
+                        // Stored concurrently by an identical upload
+                    }
+                }
+            }
+            return new StoredImage(hash, contentType, size);
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    /**
+     * Path of a stored original, which exists once store() returned its hash
+     */
+    public Path getOriginal(String hash) {
+        return originals.resolve(shard(hash)).resolve(hash);
+    }
+
+    /**
+     * Path of a thumbnail, which exists only once createThumbnail() has run for it
+     */
+    public Path getThumbnail(String hash, int width) {
+        return thumbnails.resolve(shard(hash)).resolve(hash + "-" + width + ".jpg");
+    }
+
+    /**
+     * Delete the originals last stored before olderThan that no book references, with their
+     * thumbnails, and uploads abandoned before then. The grace period up to olderThan covers
+     * a new upload whose book is not updated yet.
+     *
+     * @param referenced given a batch of hashes, returns those that books still reference
+     * @return the hashes of the deleted originals
+     */
+    public List<String> sweep(Instant olderThan, Function<List<String>, Set<String>> referenced) throws IOException {
+        FileTime cutoff = FileTime.from(olderThan);
+        List<String> deleted = new ArrayList<>();
+        List<String> batch = new ArrayList<>(SWEEP_BATCH_SIZE);
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(originals)) {
+            for (Path shard : shards) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(shard)) {
+                    for (Path file : files) {
+                        if (isOlder(file, cutoff)) {
+                            batch.add(file.getFileName().toString());
+                        }
+                        if (batch.size() == SWEEP_BATCH_SIZE) {
+                            deleteUnreferenced(batch, cutoff, referenced, deleted);
+                        }
+                    }
+                }
+            }
+        }
+        deleteUnreferenced(batch, cutoff, referenced, deleted);
+
+        try (DirectoryStream<Path> uploads = Files.newDirectoryStream(tmp)) {
+            for (Path upload : uploads) {
+                if (isOlder(upload, cutoff)) {
+                    Files.deleteIfExists(upload);
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private void deleteUnreferenced(List<String> batch, FileTime cutoff, Function<List<String>, Set<String>> referenced,
+                                    List<String> deleted) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Set<String> kept = referenced.apply(List.copyOf(batch));
+        for (String hash : batch) {
+            if (kept.contains(hash)) {
+                continue;
+            }
+            synchronized (originalsLock) {
+                // Stored again since it was listed: an upload is about to reference it
+                if (!isOlder(getOriginal(hash), cutoff)) {
+                    continue;
+                }
+                Files.deleteIfExists(getOriginal(hash));
+            }
+            try (DirectoryStream<Path> thumbs = Files.newDirectoryStream(thumbnails.resolve(shard(hash)), hash + "-*.jpg")) {
+                for (Path thumb : thumbs) {
+                    Files.deleteIfExists(thumb);
+                }
+            } catch (NoSuchFileException e) {
+                // No thumbnail was ever rendered in this shard
+            }
+            deleted.add(hash);
+        }
+        batch.clear();
+    }
+
+    private static boolean isOlder(Path file, FileTime cutoff) throws IOException {
+        try {
+            return Files.getLastModifiedTime(file).compareTo(cutoff) < 0;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Render the JPEG thumbnail of a stored original, never wider than the original
+     *
+     * @return false if the image format cannot be decoded (such as WebP) or the image
+     *         has more than maxPixels pixels
+     */
+    public boolean createThumbnail(String hash, int width, long maxPixels) throws IOException {
+        Path target = getThumbnail(hash, width);
+        if (Files.exists(target)) {
+            return true;
+        }
+
+        BufferedImage source;
+        try (ImageInputStream input = ImageIO.createImageInputStream(getOriginal(hash).toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return false;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int sourceWidth = reader.getWidth(0);
+                if ((long) sourceWidth * reader.getHeight(0) > maxPixels) {
+                    return false;
+                }
+                // Decode only every n-th pixel of large images; the scaling below smooths the rest
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, sourceWidth / (width * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                source = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+
+        int targetWidth = Math.min(width, source.getWidth());
+        int targetHeight = Math.max(1, (int) Math.round((double) source.getHeight() * targetWidth / source.getWidth()));
+        BufferedImage thumbnail = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, targetWidth, targetHeight, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        Files.createDirectories(target.getParent());
+        Path part = Files.createTempFile(tmp, "thumbnail-", ".part");
+        try {
+            writeJpeg(thumbnail, part);
+            Files.move(part, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(part);
+        }
+        return true;
+    }
+
+    /**
+     * Detect the image type from its first bytes, or null if it is not a supported image
+     */
+    static String sniffContentType(byte[] head, int length) {
+        if (length >= 3 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xD8 && (head[2] & 0xFF) == 0xFF) {
+            return "image/jpeg";
+        }
+        if (length >= 8 && (head[0] & 0xFF) == 0x89 && startsWith(head, 1, "PNG\r\n\u001a\n")) {
+            return "image/png";
+        }
+        if (length >= 6 && (startsWith(head, 0, "GIF87a") || startsWith(head, 0, "GIF89a"))) {
+            return "image/gif";
+        }
+        if (length >= 12 && startsWith(head, 0, "RIFF") && startsWith(head, 8, "WEBP")) {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, String ascii) {
+        for (int i = 0; i < ascii.length(); i++) {
+            if (bytes[offset + i] != (byte) ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(THUMBNAIL_QUALITY);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static String shard(String hash) {
+        return hash.substring(0, 2);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * An image held by the store
+     */
+    public static final class StoredImage {
+        private final String hash;
+        private final String contentType;
+        private final long size;
+
+        StoredImage(String hash, String contentType, long size) {
+            this.hash = hash;
+            this.contentType = contentType;
+            this.size = size;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public long getSize() {
+            return size;
+        }
+    }
+}
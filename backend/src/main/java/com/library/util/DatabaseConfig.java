@@ -0,0 +1,58 @@
+package com.library.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * Utility class for direct (non-pooled) PostgreSQL connections.
+ * Used where a pooled container connection does not fit, such as a long-lived LISTEN session.
+ * Connection settings come from the same DB_HOST/DB_PORT/DB_NAME/DB_USER/DB_PASSWORD
+ * variables as the container datasource, or from library.db.url.
+ */
+public class DatabaseConfig {
+    
+    private static final String NODE_ID = AppConfig.getString("library.node-id",
+        AppConfig.getString("hostname", UUID.randomUUID().toString().substring(0, 8)));
+    
+    private DatabaseConfig() {
+        // Utility class - prevent instantiation
+    }
+    
+    /**
+     * JDBC URL of the library database
+     */
+    public static String getJdbcUrl() {
+        String url = AppConfig.getString("library.db.url", null);
+        if (url != null) {
+            return url;
+        }
+        return "jdbc:postgresql://" + AppConfig.getString("db.host", "localhost") + ":"
+               + AppConfig.getString("db.port", "5432") + "/" + AppConfig.getString("db.name", "book_library");
+    }
+    
+    /**
+     * Open a new connection that is not managed by the container pool or transactions
+     */
+    public static Connection openConnection() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty("user", AppConfig.getString("db.user", "book_user"));
+        properties.setProperty("password", AppConfig.getString("db.password", "book_password"));
+        properties.setProperty("ApplicationName", "book-library-" + NODE_ID);
+        
+        // Use the bundled driver directly so the connection is a plain PgConnection
+        Connection connection = new org.postgresql.Driver().connect(getJdbcUrl(), properties);
+        if (connection == null) {
+            throw new SQLException("Not a PostgreSQL JDBC URL: " + getJdbcUrl());
+        }
+        return connection;
+    }
+    
+    /**
+     * Identifier of this application node, used to tell our own notifications from other nodes'
+     */
+    public static String getNodeId() {
+        return NODE_ID;
+    }
+}
@@ -0,0 +1,114 @@
+package com.library.util;
+
+import java.util.Locale;
+
+/**
+ * Utility class for normalizing and comparing book titles, authors and ISBNs
+ */
+public class StringSimilarity {
+    
+    private StringSimilarity() {
+        // Utility class - prevent instantiation
+    }
+    
+    /**
+     * Lowercase and keep only ASCII letters and digits ("J. R. R. Tolkien" -> "jrrtolkien")
+     */
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String lower = value.toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(lower.length());
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * The part of an ISBN shared by its ISBN-10 and 978-prefixed ISBN-13 forms
+     * (the nine digits before the check digit), or the bare digits for anything else
+     */
+    public static String isbnCore(String isbn) {
+        if (isbn == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(13);
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = Character.toUpperCase(isbn.charAt(i));
+            if ((c >= '0' && c <= '9') || c == 'X') {
+                sb.append(c);
+            }
+        }
+        String digits = sb.toString();
+        if (digits.length() == 13 && digits.startsWith("978")) {
+            return digits.substring(3, 12);
+        }
+        if (digits.length() == 10) {
+            return digits.substring(0, 9);
+        }
+        return digits;
+    }
+    
+    /**
+     * Jaro-Winkler similarity between 0 (nothing in common) and 1 (identical)
+     */
+    public static double jaroWinkler(String a, String b) {
+        if (a.equals(b)) {
+            return 1.0;
+        }
+        int lenA = a.length();
+        int lenB = b.length();
+        if (lenA == 0 || lenB == 0) {
+            return 0.0;
+        }
+        
+        int range = Math.max(0, Math.max(lenA, lenB) / 2 - 1);
+        boolean[] matchedA = new boolean[lenA];
+        boolean[] matchedB = new boolean[lenB];
+        int matches = 0;
+        for (int i = 0; i < lenA; i++) {
+            int from = Math.max(0, i - range);
+            int to = Math.min(lenB, i + range + 1);
+            for (int j = from; j < to; j++) {
+                if (!matchedB[j] && a.charAt(i) == b.charAt(j)) {
+                    matchedA[i] = true;
+                    matchedB[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0.0;
+        }
+        
+        int transpositions = 0;
+        int k = 0;
+        for (int i = 0; i < lenA; i++) {
+            if (matchedA[i]) {
+                while (!matchedB[k]) {
+                    k++;
+                }
+                if (a.charAt(i) != b.charAt(k)) {
+                    transpositions++;
+                }
+                k++;
+            }
+        }
+        
+        double m = matches;
+        double jaro = (m / lenA + m / lenB + (m - transpositions / 2.0) / m) / 3.0;
+        
+        int prefix = 0;
+        int maxPrefix = Math.min(4, Math.min(lenA, lenB));
+        while (prefix < maxPrefix && a.charAt(prefix) == b.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1.0 - jaro);
+    }
+}
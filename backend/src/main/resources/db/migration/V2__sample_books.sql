@@ -0,0 +1,13 @@
+-- Sample data
+INSERT INTO books (title, author, publication_year, isbn) VALUES
+    ('The Great Gatsby', 'F. Scott Fitzgerald', 1925, '978-0-7432-7356-5'),
+    ('To Kill a Mockingbird', 'Harper Lee', 1960, '978-0-06-112008-4'),
+    ('1984', 'George Orwell', 1949, '978-0-452-28423-4'),
+    ('Pride and Prejudice', 'Jane Austen', 1813, '978-0-14-143951-8'),
+    ('The Catcher in the Rye', 'J.D. Salinger', 1951, '978-0-316-76948-0'),
+    ('Lord of the Flies', 'William Golding', 1954, '978-0-571-05686-2'),
+    ('Animal Farm', 'George Orwell', 1945, '978-0-452-28424-1'),
+    ('Brave New World', 'Aldous Huxley', 1932, '978-0-06-085052-4'),
+    ('The Lord of the Rings', 'J.R.R. Tolkien', 1954, '978-0-547-92822-7'),
+    ('Harry Potter and the Philosopher''s Stone', 'J.K. Rowling', 1997, '978-0-7475-3269-9')
+ON CONFLICT (isbn) DO NOTHING;
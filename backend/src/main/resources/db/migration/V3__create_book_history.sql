@@ -0,0 +1,15 @@
+-- Change history of book records, written asynchronously by BookHistoryWriter
+-- No foreign key to books: history must outlive deleted books
+
+CREATE TABLE IF NOT EXISTS book_history (
+    id BIGSERIAL PRIMARY KEY,
+    book_id BIGINT NOT NULL,
+    operation VARCHAR(10) NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    author VARCHAR(255) NOT NULL,
+    publication_year INTEGER NOT NULL,
+    isbn VARCHAR(17) NOT NULL,
+    recorded_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_book_history_book_id ON book_history(book_id, id);
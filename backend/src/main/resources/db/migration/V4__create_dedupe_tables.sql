@@ -0,0 +1,23 @@
+-- Duplicate detection jobs and the candidate pairs they report
+
+CREATE TABLE IF NOT EXISTS dedupe_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    status VARCHAR(20) NOT NULL,
+    started_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    finished_at TIMESTAMP WITHOUT TIME ZONE,
+    books_scanned BIGINT NOT NULL DEFAULT 0,
+    pairs_found BIGINT NOT NULL DEFAULT 0,
+    error VARCHAR(1000)
+);
+
+CREATE TABLE IF NOT EXISTS dedupe_candidates (
+    id BIGSERIAL PRIMARY KEY,
+    job_id BIGINT NOT NULL REFERENCES dedupe_jobs(id) ON DELETE CASCADE,
+    book_id_a BIGINT NOT NULL,
+    book_id_b BIGINT NOT NULL,
+    score DOUBLE PRECISION NOT NULL,
+    reason VARCHAR(20) NOT NULL,
+    UNIQUE (job_id, book_id_a, book_id_b)
+);
+
+CREATE INDEX IF NOT EXISTS idx_dedupe_candidates_score ON dedupe_candidates(job_id, score DESC);
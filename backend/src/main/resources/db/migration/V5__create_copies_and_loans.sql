@@ -0,0 +1,26 @@
+-- Physical copies of books and their loans
+
+CREATE TABLE IF NOT EXISTS book_copies (
+    id BIGSERIAL PRIMARY KEY,
+    book_id BIGINT NOT NULL REFERENCES books(id) ON DELETE CASCADE,
+    status VARCHAR(20) NOT NULL DEFAULT 'AVAILABLE' CHECK (status IN ('AVAILABLE', 'ON_LOAN')),
+    created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_book_copies_book_id ON book_copies(book_id);
+-- Checkout claims from this index only, so it stays small however many copies are on loan
+CREATE INDEX IF NOT EXISTS idx_book_copies_available ON book_copies(book_id) WHERE status = 'AVAILABLE';
+
+CREATE TABLE IF NOT EXISTS loans (
+    id BIGSERIAL PRIMARY KEY,
+    copy_id BIGINT NOT NULL REFERENCES book_copies(id) ON DELETE CASCADE,
+    book_id BIGINT NOT NULL,
+    patron_id VARCHAR(64) NOT NULL,
+    checked_out_at TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    due_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    returned_at TIMESTAMP WITHOUT TIME ZONE
+);
+
+-- A copy can have at most one open loan
+CREATE UNIQUE INDEX IF NOT EXISTS idx_loans_open_copy ON loans(copy_id) WHERE returned_at IS NULL;
+CREATE INDEX IF NOT EXISTS idx_loans_open_patron ON loans(patron_id) WHERE returned_at IS NULL;
@@ -0,0 +1,5 @@
+-- Cover images live in the content-addressed file store; books only reference them.
+-- cover_hash is the SHA-256 of the original image, which is also its file name.
+
+ALTER TABLE books ADD COLUMN IF NOT EXISTS cover_hash CHAR(64);
+ALTER TABLE books ADD COLUMN IF NOT EXISTS cover_content_type VARCHAR(32);
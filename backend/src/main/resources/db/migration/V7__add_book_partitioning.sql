@@ -0,0 +1,119 @@
+-- Optional hash partitioning of books on id, for catalogs heading past 100M rows.
+-- Nothing changes until an operator runs, once and during a maintenance window:
+--     SELECT library_partition_books(16);
+-- A unique index on a partitioned table must include the partition key, so ISBN uniqueness
+-- moves to the book_isbns side table, kept in step by triggers. A duplicate ISBN still fails
+-- with unique_violation (23505), whichever partitions the two books hash to.
+
+CREATE OR REPLACE FUNCTION library_book_isbns_sync()
+RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO book_isbns (isbn, book_id) VALUES (NEW.isbn, NEW.id);
+    ELSIF TG_OP = 'UPDATE' THEN
+        DELETE FROM book_isbns WHERE isbn = OLD.isbn;
+        INSERT INTO book_isbns (isbn, book_id) VALUES (NEW.isbn, NEW.id);
+    ELSE
+        DELETE FROM book_isbns WHERE isbn = OLD.isbn;
+    END IF;
+    RETURN NULL;
+END;
+$$ language 'plpgsql';
+
+CREATE OR REPLACE FUNCTION library_book_isbns_truncate()
+RETURNS TRIGGER AS $$
+BEGIN
+    TRUNCATE book_isbns;
+    RETURN NULL;
+END;
+$$ language 'plpgsql';
+
+-- Rebuild books as a table hash-partitioned on id into the given number of partitions
+-- (books_p0, books_p1, ...). Runs in the caller's transaction and holds an exclusive lock
+-- on books throughout; on any error nothing is changed.
+CREATE OR REPLACE FUNCTION library_partition_books(partitions INTEGER)
+RETURNS TEXT AS $$
+DECLARE
+    id_sequence TEXT;
+    foreign_keys TEXT[];
+    foreign_key TEXT;
+    copied BIGINT;
+BEGIN
+    IF partitions IS NULL OR partitions < 2 OR partitions > 1024 THEN
+        RAISE EXCEPTION 'partitions must be between 2 and 1024, got %', partitions;
+    END IF;
+    IF (SELECT relkind FROM pg_class WHERE oid = 'books'::regclass) = 'p' THEN
+        RAISE EXCEPTION 'books is already partitioned';
+    END IF;
+
+    LOCK TABLE books IN ACCESS EXCLUSIVE MODE;
+
+    -- Foreign keys to books (book_copies) go with the old table and are recreated afterwards
+    foreign_keys := ARRAY(
+        SELECT format('ALTER TABLE %s ADD CONSTRAINT %I %s', conrelid::regclass, conname, pg_get_constraintdef(oid))
+        FROM pg_constraint
+        WHERE confrelid = 'books'::regclass AND contype = 'f');
+    id_sequence := pg_get_serial_sequence('books', 'id');
+
+    -- Same columns, defaults (including the ID sequence) and checks as books
+    CREATE TABLE books_partitioned (LIKE books INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+        PARTITION BY HASH (id);
+    FOR i IN 0 .. partitions - 1 LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF books_partitioned FOR VALUES WITH (MODULUS %s, REMAINDER %s)',
+                       'books_p' || i, partitions, i);
+    END LOOP;
+
+    INSERT INTO books_partitioned SELECT * FROM books;
+    GET DIAGNOSTICS copied = ROW_COUNT;
+
+    CREATE TABLE IF NOT EXISTS book_isbns (
+        isbn VARCHAR(17) PRIMARY KEY,
+        book_id BIGINT NOT NULL
+    );
+    TRUNCATE book_isbns;
+    INSERT INTO book_isbns (isbn, book_id) SELECT isbn, id FROM books;
+
+    EXECUTE format('ALTER SEQUENCE %s OWNED BY NONE', id_sequence);
+    DROP TABLE books CASCADE;
+    ALTER TABLE books_partitioned RENAME TO books;
+    EXECUTE format('ALTER SEQUENCE %s OWNED BY books.id', id_sequence);
+
+    -- Indexes are built after the copy; each partition gets its own copy of every index
+    ALTER TABLE books ADD CONSTRAINT books_pkey PRIMARY KEY (id);
+    CREATE INDEX idx_books_title ON books(title);
+    -- Per-partition title order for the fan-out queries of BookPartitions
+    CREATE INDEX idx_books_title_c ON books(title COLLATE "C", id);
+    CREATE INDEX idx_books_author ON books(author);
+    CREATE INDEX idx_books_isbn ON books(isbn);
+    CREATE INDEX idx_books_publication_year ON books(publication_year);
+
+    CREATE TRIGGER update_books_updated_at
+        BEFORE UPDATE ON books
+        FOR EACH ROW
+        EXECUTE FUNCTION update_updated_at_column();
+    CREATE TRIGGER books_isbn_insert
+        AFTER INSERT ON books
+        FOR EACH ROW
+        EXECUTE FUNCTION library_book_isbns_sync();
+    CREATE TRIGGER books_isbn_update
+        AFTER UPDATE ON books
+        FOR EACH ROW
+        WHEN (OLD.isbn IS DISTINCT FROM NEW.isbn)
+        EXECUTE FUNCTION library_book_isbns_sync();
+    CREATE TRIGGER books_isbn_delete
+        AFTER DELETE ON books
+        FOR EACH ROW
+        EXECUTE FUNCTION library_book_isbns_sync();
+    CREATE TRIGGER books_isbn_truncate
+        AFTER TRUNCATE ON books
+        FOR EACH STATEMENT
+        EXECUTE FUNCTION library_book_isbns_truncate();
+
+    FOREACH foreign_key IN ARRAY foreign_keys LOOP
+        EXECUTE foreign_key;
+    END LOOP;
+
+    ANALYZE books;
+    RETURN format('books split into %s hash partitions, %s rows copied', partitions, copied);
+END;
+$$ language 'plpgsql';
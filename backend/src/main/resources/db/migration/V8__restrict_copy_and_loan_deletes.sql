@@ -0,0 +1,15 @@
+-- Loans are circulation history: deleting a book or a copy must never delete them with it.
+-- Both foreign keys of V5 cascaded; they now restrict, and BookService deletes a book's
+-- copies itself, refusing while any copy is on loan or has been lent.
+
+ALTER TABLE book_copies
+    DROP CONSTRAINT IF EXISTS book_copies_book_id_fkey,
+    ADD CONSTRAINT book_copies_book_id_fkey FOREIGN KEY (book_id) REFERENCES books(id) ON DELETE RESTRICT;
+
+ALTER TABLE loans
+    DROP CONSTRAINT IF EXISTS loans_copy_id_fkey,
+    ADD CONSTRAINT loans_copy_id_fkey FOREIGN KEY (copy_id) REFERENCES book_copies(id) ON DELETE RESTRICT;
+
+-- The restrict check on deleting a copy, and the loan check before deleting a book
+CREATE INDEX IF NOT EXISTS idx_loans_copy_id ON loans(copy_id);
+CREATE INDEX IF NOT EXISTS idx_loans_book_id ON loans(book_id);
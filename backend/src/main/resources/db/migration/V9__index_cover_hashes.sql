@@ -0,0 +1,4 @@
+-- The cover sweep asks which stored images books still reference, in batches of hashes.
+-- Most books have no cover, so only the ones that do are indexed.
+
+CREATE INDEX IF NOT EXISTS idx_books_cover_hash ON books(cover_hash) WHERE cover_hash IS NOT NULL;
@@ -0,0 +1,215 @@
+package com.library.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.library.dto.BookDTO;
+import com.library.exception.BookNotFoundException;
+import com.library.exception.DuplicateIsbnException;
+import com.library.exception.FeatureUnavailableException;
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.transaction.Status;
+import jakarta.transaction.UserTransaction;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * BookBatchService over a mocked BookService, with a UserTransaction that records what
+ * the batch did with it
+ */
+class BookBatchServiceTest {
+
+    private BookBatchService batch;
+    private BookService bookService;
+    private RecordingTransaction transaction;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        batch = new BookBatchService();
+        bookService = mock(BookService.class);
+        transaction = new RecordingTransaction();
+        inject("bookService", bookService);
+        inject("userTransaction", transaction);
+    }
+
+    @Test
+    void independentOperationsReportTheirOwnStatus() {
+        when(bookService.getBookById(1L)).thenReturn(book(1L, "Dune"));
+        when(bookService.getBookById(2L)).thenThrow(new BookNotFoundException(2L));
+        when(bookService.createBook(any())).thenThrow(new DuplicateIsbnException("9780441013593"));
+        when(bookService.getBookHistory(1L)).thenThrow(new FeatureUnavailableException("Needs jpa"));
+
+        JsonObject response = run(false, "[{\"op\": \"get\", \"id\": 1}, {\"op\": \"get\", \"id\": 2},"
+                                         + " {\"op\": \"create\", \"book\": {\"title\": \"Dune\"}},"
+                                         + " {\"op\": \"history\", \"id\": 1}, {\"op\": \"shelve\"},"
+                                         + " {\"op\": \"get\"}]");
+
+        assertEquals(List.of(200, 404, 409, 501, 400, 400), statuses(response));
+        assertEquals("Dune", results(response).getJsonObject(0).getJsonObject("data").getString("title"));
+        assertEquals("Not available", results(response).getJsonObject(3).getString("message"));
+        assertEquals("independent", response.getString("transaction"));
+        assertTrue(response.getBoolean("committed"));
+        assertEquals(1, response.getInt("succeeded"));
+        assertEquals(5, response.getInt("failed"));
+        assertFalse(transaction.begun);
+    }
+
+    @Test
+    void sharedTransactionCommitsWhenEveryOperationSucceeds() {
+        when(bookService.createBook(any())).thenReturn(book(1L, "Dune"));
+
+        JsonObject response = run(true, "[{\"op\": \"create\", \"book\": {\"title\": \"Dune\"}},"
+                                        + " {\"op\": \"delete\", \"id\": 3}]");
+
+        assertEquals(List.of(201, 200), statuses(response));
+        assertTrue(response.getBoolean("committed"));
+        assertTrue(transaction.committed);
+        assertFalse(transaction.rolledBack);
+        verify(bookService).deleteBook(3L);
+    }
+
+    @Test
+    void sharedTransactionRollsBackAtTheFirstFailureAndSkipsTheRest() {
+        when(bookService.createBook(any())).thenReturn(book(1L, "Dune"));
+        when(bookService.updateBook(eq(2L), any())).thenThrow(new BookNotFoundException(2L));
+
+        JsonObject response = run(true, "[{\"op\": \"create\", \"book\": {\"title\": \"Dune\"}},"
+                                        + " {\"op\": \"update\", \"id\": 2, \"book\": {\"title\": \"Emma\"}},"
+                                        + " {\"op\": \"delete\", \"id\": 3}]");
+
+        assertEquals(List.of(201, 404, 424), statuses(response));
+        assertFalse(response.getBoolean("committed"));
+        assertEquals(1, response.getInt("succeeded"));
+        assertEquals(1, response.getInt("failed"));
+        assertEquals(1, response.getInt("skipped"));
+        assertTrue(transaction.rolledBack);
+        assertFalse(transaction.committed);
+        verify(bookService, never()).deleteBook(any());
+    }
+
+    @Test
+    void sharedTransactionMarkedRollbackOnlyIsNotCommitted() {
+        when(bookService.createBook(any())).thenAnswer(invocation -> {
+            transaction.setRollbackOnly();
+            return book(1L, "Dune");
+        });
+
+        JsonObject response = run(true, "[{\"op\": \"create\", \"book\": {\"title\": \"Dune\"}}]");
+
+        assertEquals(List.of(201), statuses(response));
+        assertFalse(response.getBoolean("committed"));
+        assertTrue(transaction.rolledBack);
+    }
+
+    @Test
+    void bodyThatIsNotAnArrayIsMalformed() {
+        JsonObject response = run(true, "{\"op\": \"get\", \"id\": 1}");
+
+        assertEquals(List.of(), statuses(response));
+        assertTrue(response.getString("error").startsWith("Malformed batch request"));
+        assertFalse(response.getBoolean("committed"));
+        assertTrue(transaction.rolledBack);
+    }
+
+    @Test
+    void malformedJsonEndsTheBatchAfterTheResultsSoFar() {
+        when(bookService.getBookById(1L)).thenReturn(book(1L, "Dune"));
+
+        JsonObject response = run(false, "[{\"op\": \"get\", \"id\": 1}, 42, {\"op\": \"get\", \"id\": 1}]");
+
+        assertEquals(List.of(200), statuses(response));
+        assertTrue(response.getString("error").contains("Operation 1 must be a JSON object"));
+        assertEquals(1, response.getInt("succeeded"));
+
+        response = run(false, "[{\"op\": \"get\", \"id\": 1}, {\"op\": ");
+        assertEquals(List.of(200), statuses(response));
+        assertTrue(response.getString("error").startsWith("Malformed batch request"));
+    }
+
+    private JsonObject run(boolean shared, String body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        batch.execute(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out, shared);
+        try (JsonReader reader = Json.createReader(new StringReader(out.toString(StandardCharsets.UTF_8)))) {
+            return reader.readObject();
+        }
+    }
+
+    private static JsonArray results(JsonObject response) {
+        return response.getJsonArray("results");
+    }
+
+    private static List<Integer> statuses(JsonObject response) {
+        return results(response).getValuesAs(JsonObject.class).stream()
+                                .map(result -> result.getInt("status"))
+                                .collect(Collectors.toList());
+    }
+
+    private static BookDTO book(Long id, String title) {
+        return new BookDTO(id, title, "Frank Herbert", 1965, "9780441013593", null, null);
+    }
+
+    private void inject(String name, Object value) throws Exception {
+        Field field = BookBatchService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(batch, value);
+    }
+
+    /**
+     * UserTransaction remembering whether it was begun, committed or rolled back
+     */
+    private static final class RecordingTransaction implements UserTransaction {
+        private int status = Status.STATUS_NO_TRANSACTION;
+        boolean begun;
+        boolean committed;
+        boolean rolledBack;
+
+        @Override
+        public void begin() {
+            begun = true;
+            status = Status.STATUS_ACTIVE;
+        }
+
+        @Override
+        public void commit() {
+            committed = true;
+            status = Status.STATUS_NO_TRANSACTION;
+        }
+
+        @Override
+        public void rollback() {
+            rolledBack = true;
+            status = Status.STATUS_NO_TRANSACTION;
+        }
+
+        @Override
+        public void setRollbackOnly() {
+            status = Status.STATUS_MARKED_ROLLBACK;
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public void setTransactionTimeout(int seconds) {
+        }
+    }
+}
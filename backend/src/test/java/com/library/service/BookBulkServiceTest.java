@@ -0,0 +1,208 @@
+package com.library.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.library.dto.BookDTO;
+import com.library.dto.BulkBookRequest;
+import com.library.dto.BulkResultDTO;
+import jakarta.ejb.SessionContext;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * BookBulkService selection and change validation, and the chunk loop over an ID list, with
+ * the per-chunk transactions of the business object mocked
+ */
+class BookBulkServiceTest {
+
+    private BookBulkService bulk;
+    private BookBulkService self;
+    private Validator validator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        bulk = new BookBulkService();
+        self = mock(BookBulkService.class);
+        validator = mock(Validator.class);
+        SessionContext sessionContext = mock(SessionContext.class);
+        when(sessionContext.getBusinessObject(BookBulkService.class)).thenReturn(self);
+        inject("sessionContext", sessionContext);
+        inject("validator", validator);
+    }
+
+    @Test
+    void selectionNeedsExactlyOneOfIdsOrFilter() {
+        assertInvalid(null, "Bulk request cannot be null");
+        assertInvalid(new BulkBookRequest(), "Specify either a list of book IDs or a filter");
+
+        BulkBookRequest both = ids(1L, 2L);
+        both.setAuthor("Frank Herbert");
+        assertInvalid(both, "Specify either a list of book IDs or a filter");
+
+        BulkBookRequest blankAuthor = new BulkBookRequest();
+        blankAuthor.setAuthor("  ");
+        assertInvalid(blankAuthor, "Specify either a list of book IDs or a filter");
+    }
+
+    @Test
+    void idListMustBeNonEmptyWithoutNulls() {
+        assertInvalid(ids(), "Book ID list cannot be empty or contain null IDs");
+        assertInvalid(ids(1L, null), "Book ID list cannot be empty or contain null IDs");
+    }
+
+    @Test
+    void yearRangeMustNotBeReversed() {
+        BulkBookRequest request = new BulkBookRequest();
+        request.setFromYear(2000);
+        request.setToYear(1990);
+        assertInvalid(request, "fromYear cannot be after toYear");
+    }
+
+    @Test
+    void chunkSizeOutsideItsBoundsIsRejected() {
+        BulkBookRequest tooSmall = ids(1L);
+        tooSmall.setChunkSize(0);
+        assertInvalid(tooSmall, "Chunk size must be between 1 and 5000");
+
+        BulkBookRequest tooLarge = ids(1L);
+        tooLarge.setChunkSize(5001);
+        assertInvalid(tooLarge, "Chunk size must be between 1 and 5000");
+    }
+
+    @Test
+    void updateNeedsAChangeAndCannotSetIsbn() {
+        BulkBookRequest request = ids(1L);
+        assertInvalidUpdate(request, "Bulk update requires at least one of title, author or publicationYear");
+
+        request.setChanges(new BookDTO());
+        assertInvalidUpdate(request, "Bulk update requires at least one of title, author or publicationYear");
+
+        request.setChanges(new BookDTO("Dune", null, null, "9780441013593"));
+        assertInvalidUpdate(request, "ISBN cannot be changed by a bulk update");
+        verifyNoInteractions(self);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateValidatesOnlyTheChangedFields() {
+        BookDTO changes = new BookDTO();
+        changes.setAuthor("");
+        ConstraintViolation<BookDTO> violation = mock(ConstraintViolation.class);
+        when(violation.getMessage()).thenReturn("Author is required");
+        when(validator.validateProperty(changes, "author")).thenReturn(Set.of(violation));
+        BulkBookRequest request = ids(1L);
+        request.setChanges(changes);
+
+        ConstraintViolationException e = assertThrows(ConstraintViolationException.class, () -> bulk.bulkUpdate(request));
+        assertTrue(e.getMessage().contains("Author is required"));
+        verify(validator, never()).validateProperty(changes, "title");
+        verifyNoInteractions(self);
+    }
+
+    @Test
+    void duplicateIdsAreProcessedOnceInChunksOfTheRequestedSize() {
+        List<List<Long>> chunks = new ArrayList<>();
+        when(self.deleteChunk(anyList())).thenAnswer(invocation -> {
+            List<Long> chunk = invocation.getArgument(0);
+            chunks.add(List.copyOf(chunk));
+            return chunk;
+        });
+        BulkBookRequest request = ids(1L, 2L, 2L, 3L, 4L, 5L, 1L);
+        request.setChunkSize(2);
+
+        BulkResultDTO result = bulk.bulkDelete(request);
+
+        assertEquals(List.of(List.of(1L, 2L), List.of(3L, 4L), List.of(5L)), chunks);
+        assertEquals(5, result.getAffected());
+        assertEquals(3, result.getChunks());
+        assertTrue(result.getFailures().isEmpty());
+    }
+
+    @Test
+    void missingIdsInAChunkAreReportedAsFailures() {
+        when(self.deleteChunk(anyList())).thenReturn(List.of(1L, 3L));
+
+        BulkResultDTO result = bulk.bulkDelete(ids(1L, 2L, 3L, 4L));
+
+        assertEquals(2, result.getAffected());
+        assertEquals(Map.of(2L, "Book not found with ID: 2", 4L, "Book not found with ID: 4"), failures(result));
+    }
+
+    @Test
+    void failedChunkIsRetriedRowByRowToIsolateTheFailingBook() {
+        BookDTO changes = new BookDTO();
+        changes.setTitle("Dune");
+        when(self.updateChunk(anyList(), eq(changes))).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            if (ids.contains(2L)) {
+                throw new RuntimeException("Transaction rolled back",
+                                           new PersistenceException("value too long for type character varying(255)"));
+            }
+            // Book 3 was deleted in the meantime
+            return ids.stream().filter(id -> id != 3L).collect(Collectors.toList());
+        });
+        BulkBookRequest request = ids(1L, 2L, 3L, 4L, 5L);
+        request.setChunkSize(4);
+        request.setChanges(changes);
+
+        BulkResultDTO result = bulk.bulkUpdate(request);
+
+        // 1 and 4 by the retry, 5 in its own chunk
+        assertEquals(3, result.getAffected());
+        assertEquals(2, result.getChunks());
+        assertEquals(Map.of(2L, "value too long for type character varying(255)", 3L, "Book not found with ID: 3"),
+                     failures(result));
+        verify(self).updateChunk(List.of(1L, 2L, 3L, 4L), changes);
+        verify(self).updateChunk(List.of(2L), changes);
+        verify(self).updateChunk(List.of(5L), changes);
+    }
+
+    private static BulkBookRequest ids(Long... ids) {
+        BulkBookRequest request = new BulkBookRequest();
+        request.setIds(new ArrayList<>(Arrays.asList(ids)));
+        return request;
+    }
+
+    private static Map<Long, String> failures(BulkResultDTO result) {
+        Map<Long, String> failures = new TreeMap<>();
+        result.getFailures().forEach(failure -> failures.put(failure.getId(), failure.getError()));
+        return failures;
+    }
+
+    private void assertInvalid(BulkBookRequest request, String message) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> bulk.bulkDelete(request));
+        assertTrue(e.getMessage().startsWith(message), e.getMessage());
+    }
+
+    private void assertInvalidUpdate(BulkBookRequest request, String message) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> bulk.bulkUpdate(request));
+        assertEquals(message, e.getMessage());
+    }
+
+    private void inject(String name, Object value) throws Exception {
+        Field field = BookBulkService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(bulk, value);
+    }
+}
@@ -0,0 +1,103 @@
+package com.library.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.library.dto.BookDTO;
+import com.library.event.BookChangedEvent;
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * BookCache driven the way BookService and BookChangePublisher drive it, with the
+ * publisher's observers called directly where the container would call them
+ */
+class BookCacheTest {
+
+    private BookCache cache;
+    private BookChangePublisher publisher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        cache = new BookCache();
+        cache.setEnabled(true);
+        publisher = new BookChangePublisher();
+        Field field = BookChangePublisher.class.getDeclaredField("bookCache");
+        field.setAccessible(true);
+        field.set(publisher, cache);
+    }
+
+    @Test
+    void bookReadInsideRolledBackTransactionIsNotCached() {
+        BookChangedEvent update = BookChangedEvent.of(BookChangedEvent.Operation.UPDATED, book(1, "Dune (uncommitted)"));
+
+        // update X, get X, then the transaction rolls back
+        publisher.beginLocalInvalidation(update);
+        assertNull(cache.get(1L));
+        cache.put(book(1, "Dune (uncommitted)"), cache.generation());
+        assertNull(cache.get(1L));
+        publisher.invalidateLocal(update);
+
+        assertNull(cache.get(1L));
+        cache.put(book(1, "Dune"), cache.generation());
+        assertEquals("Dune", cache.get(1L).getTitle());
+    }
+
+    @Test
+    void cachedBookIsNotServedAfterAnUncommittedUpdate() {
+        cache.put(book(1, "Dune"), cache.generation());
+        BookChangedEvent update = BookChangedEvent.of(BookChangedEvent.Operation.UPDATED, book(1, "Dune Messiah"));
+
+        publisher.beginLocalInvalidation(update);
+        assertNull(cache.get(1L));
+        publisher.invalidateLocal(update);
+
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void valueLoadedBeforeTheWriteEndedIsDropped() {
+        BookChangedEvent update = BookChangedEvent.of(BookChangedEvent.Operation.UPDATED, book(1, "Dune Messiah"));
+        publisher.beginLocalInvalidation(update);
+        long generation = cache.generation();
+        publisher.invalidateLocal(update);
+
+        // Loaded while the write was pending, cached after it completed
+        cache.put(book(1, "Dune"), generation);
+
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void bookStaysUncachedUntilEveryPendingWriteCompletes() {
+        BookChangedEvent first = BookChangedEvent.of(BookChangedEvent.Operation.UPDATED, book(1, "Dune"));
+        BookChangedEvent second = BookChangedEvent.of(BookChangedEvent.Operation.UPDATED, book(1, "Dune"));
+        publisher.beginLocalInvalidation(first);
+        publisher.beginLocalInvalidation(second);
+        publisher.invalidateLocal(first);
+
+        cache.put(book(1, "Dune"), cache.generation());
+        assertNull(cache.get(1L));
+
+        publisher.invalidateLocal(second);
+        cache.put(book(1, "Dune"), cache.generation());
+        assertEquals("Dune", cache.get(1L).getTitle());
+    }
+
+    @Test
+    void callersCannotChangeCachedBooks() {
+        BookDTO book = book(1, "Dune");
+        cache.put(book, cache.generation());
+        book.setTitle("Changed after put");
+        cache.get(1L).setTitle("Changed after get");
+
+        assertEquals("Dune", cache.get(1L).getTitle());
+    }
+
+    private static BookDTO book(long id, String title) {
+        LocalDateTime now = LocalDateTime.now();
+        return new BookDTO(id, title, "Frank Herbert", 1965, "9780441013593", now, now);
+    }
+}
@@ -0,0 +1,186 @@
+package com.library.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.library.dto.BookDTO;
+import com.library.dto.TotalCountDTO;
+import com.library.event.BookChangeNotification;
+import com.library.event.BookChangedEvent;
+import com.library.store.BookPartitions;
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * BookCountService choosing between an exact count and an estimate, over a data source
+ * answering EXPLAIN, COUNT(*) and the row estimate with configurable values
+ */
+class BookCountServiceTest {
+
+    private BookCountService counts;
+    private final List<String> statements = new ArrayList<>();
+
+    // What the mocked database answers
+    private double planCost;
+    private long planRows;
+    private long exactRows;
+    private long estimatedRows;
+    private boolean databaseDown;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        counts = new BookCountService();
+        Field field = BookCountService.class.getDeclaredField("dataSource");
+        field.setAccessible(true);
+        field.set(counts, dataSource());
+    }
+
+    @Test
+    void partialPageGivesTheTotalWithoutQuerying() {
+        TotalCountDTO count = counts.countAll(40, 20, 7);
+
+        assertEquals(47, count.getTotal());
+        assertTrue(count.isExact());
+        assertEquals(TotalCountDTO.SOURCE_PAGE, count.getSource());
+        assertTrue(statements.isEmpty());
+    }
+
+    @Test
+    void emptyPagePastTheEndIsNotTakenAsTheTotal() {
+        planCost = 100;
+        exactRows = 12;
+
+        TotalCountDTO count = counts.countAll(40, 20, 0);
+
+        assertEquals(12, count.getTotal());
+        assertEquals(TotalCountDTO.SOURCE_COUNT, count.getSource());
+    }
+
+    @Test
+    void cheapCountIsExact() {
+        planCost = 24_000;
+        exactRows = 3_210;
+
+        TotalCountDTO count = counts.countByAuthor("Herbert", 0, 20, 20);
+
+        assertEquals(3_210, count.getTotal());
+        assertTrue(count.isExact());
+        assertEquals(TotalCountDTO.SOURCE_COUNT, count.getSource());
+        assertEquals(List.of("EXPLAIN (FORMAT JSON) SELECT 1 FROM books WHERE LOWER(author) LIKE LOWER(?)",
+                             "SELECT COUNT(*) FROM books WHERE LOWER(author) LIKE LOWER(?)"), statements);
+    }
+
+    @Test
+    void expensiveSearchIsEstimatedByThePlanner() {
+        planCost = 90_000;
+        planRows = 5_000;
+
+        TotalCountDTO count = counts.countByAuthor("Herbert", 0, 20, 20);
+
+        assertEquals(5_000, count.getTotal());
+        assertFalse(count.isExact());
+        assertEquals(TotalCountDTO.SOURCE_PLANNER, count.getSource());
+        assertFalse(statements.stream().anyMatch(sql -> sql.startsWith("SELECT COUNT(*)")));
+    }
+
+    @Test
+    void estimateIsNeverBelowTheRowsAlreadySeen() {
+        planCost = 90_000;
+        planRows = 10;
+
+        TotalCountDTO count = counts.countByAuthor("Herbert", 100, 20, 20);
+
+        assertEquals(120, count.getTotal());
+    }
+
+    @Test
+    void fullListBeforeTheFirstAnalyzeFallsBackToThePlanner() {
+        planCost = 90_000;
+        planRows = 800_000;
+        estimatedRows = -1;
+        counts.refresh();
+
+        TotalCountDTO count = counts.countAll(0, 20, 20);
+
+        assertEquals(800_000, count.getTotal());
+        assertEquals(TotalCountDTO.SOURCE_PLANNER, count.getSource());
+    }
+
+    @Test
+    void expensiveFullListIsTheAnalyzedCountPlusCommittedChanges() {
+        planCost = 90_000;
+        planRows = 1;
+        estimatedRows = 1_000_000;
+        counts.refresh();
+
+        counts.onBookChanged(new BookChangedEvent(BookChangedEvent.Operation.CREATED, List.of(book(1L), book(2L))));
+        counts.onBookChanged(BookChangedEvent.of(BookChangedEvent.Operation.UPDATED, book(1L)));
+        counts.onRemoteChange(new BookChangeNotification("node-2", BookChangedEvent.Operation.DELETED, 0L,
+                                                         List.of(7L, 8L, 9L)));
+        TotalCountDTO count = counts.countAll(0, 20, 20);
+
+        assertEquals(999_999, count.getTotal());
+        assertFalse(count.isExact());
+        assertEquals(TotalCountDTO.SOURCE_COUNTER, count.getSource());
+
+        // A refresh starts counting changes again from the new statistics
+        counts.refresh();
+        assertEquals(1_000_000, counts.countAll(0, 20, 20).getTotal());
+    }
+
+    @Test
+    void failedCountLeavesTheTotalOut() {
+        databaseDown = true;
+
+        assertNull(counts.countAll(0, 20, 20));
+    }
+
+    private static BookDTO book(Long id) {
+        return new BookDTO(id, "Dune", "Frank Herbert", 1965, "isbn-" + id, null, null);
+    }
+
+    private DataSource dataSource() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> {
+            if (databaseDown) {
+                throw new SQLException("Connection refused");
+            }
+            Connection connection = mock(Connection.class);
+            when(connection.prepareStatement(anyString())).thenAnswer(prepare -> statement(prepare.getArgument(0)));
+            return connection;
+        });
+        return dataSource;
+    }
+
+    private PreparedStatement statement(String sql) throws SQLException {
+        if (!sql.equals(BookPartitions.ROW_ESTIMATE_SQL)) {
+            statements.add(sql);
+        }
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.next()).thenReturn(true);
+        if (sql.startsWith("EXPLAIN")) {
+            when(rs.getString(1)).thenReturn("[{\"Plan\": {\"Node Type\": \"Seq Scan\", \"Total Cost\": " + planCost
+                                             + ", \"Plan Rows\": " + planRows + "}}]");
+        } else if (sql.startsWith("SELECT COUNT(*)")) {
+            when(rs.getLong(1)).thenReturn(exactRows);
+        } else {
+            when(rs.getLong(1)).thenReturn(estimatedRows);
+        }
+        when(statement.executeQuery()).thenReturn(rs);
+        return statement;
+    }
+}
@@ -0,0 +1,128 @@
+package com.library.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.library.event.CatalogLoadNotification;
+import com.library.event.CoherenceStateEvent;
+import jakarta.ejb.TimerService;
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.LongStream;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * BookExistenceIndex over a mocked books table, with the observers called directly where
+ * the container would call them
+ */
+class BookExistenceIndexTest {
+
+    private BookExistenceIndex index;
+    private final List<Long> table = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        index = new BookExistenceIndex();
+        inject("dataSource", dataSource());
+        inject("timerService", mock(TimerService.class));
+        table.addAll(List.of(1L, 2L, 3L, 1000L));
+        index.onCoherenceStateChanged(new CoherenceStateEvent(true));
+        index.rebuild();
+    }
+
+    @Test
+    void missingIdBelowHighestIdIsReported() {
+        assertTrue(index.isDefinitelyMissingId(500));
+        assertFalse(index.isDefinitelyMissingId(2));
+        assertFalse(index.isDefinitelyMissingId(2000));
+    }
+
+    @Test
+    void loadedIdsAreNotReportedMissingBeforeTheRebuildAfterTheLoad() {
+        index.onCatalogLoad(new CatalogLoadNotification(false, 400, 599));
+        assertFalse(index.isDefinitelyMissingId(500));
+        assertTrue(index.isDefinitelyMissingId(700));
+
+        // Loaded books are visible, but the filters have not seen them yet
+        LongStream.rangeClosed(400, 599).forEach(table::add);
+        index.onCatalogLoad(new CatalogLoadNotification(true, 400, 599));
+        assertFalse(index.isDefinitelyMissingId(500));
+
+        index.rebuild();
+        assertFalse(index.isDefinitelyMissingId(500));
+        table.remove(Long.valueOf(450L));
+        index.rebuild();
+        assertTrue(index.isDefinitelyMissingId(450));
+    }
+
+    @Test
+    void loadStillRunningDuringARebuildStaysUntrusted() {
+        index.onCatalogLoad(new CatalogLoadNotification(false, 400, 599));
+        index.rebuild();
+        assertFalse(index.isDefinitelyMissingId(500));
+
+        index.onCatalogLoad(new CatalogLoadNotification(true, 400, 599));
+        index.rebuild();
+        assertTrue(index.isDefinitelyMissingId(500));
+    }
+
+    @Test
+    void loadWhoseStartWasMissedIsUntrustedFromItsEnd() {
+        index.onCatalogLoad(new CatalogLoadNotification(true, 400, 599));
+        assertFalse(index.isDefinitelyMissingId(500));
+
+        index.rebuild();
+        assertTrue(index.isDefinitelyMissingId(500));
+    }
+
+    private void inject(String name, Object value) throws Exception {
+        Field field = BookExistenceIndex.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(index, value);
+    }
+
+    /**
+     * A data source whose scan returns the current table rows, with a generated ISBN each
+     */
+    private DataSource dataSource() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> {
+            Connection connection = mock(Connection.class);
+            PreparedStatement estimate = mock(PreparedStatement.class);
+            ResultSet estimateRows = mock(ResultSet.class);
+            when(estimateRows.next()).thenReturn(true);
+            when(estimateRows.getLong(1)).thenReturn((long) table.size());
+            when(estimate.executeQuery()).thenReturn(estimateRows);
+            when(connection.prepareStatement(anyString())).thenReturn(estimate);
+
+            Statement scan = mock(Statement.class);
+            ResultSet rows = mock(ResultSet.class);
+            Iterator<Long> ids = new ArrayList<>(table).iterator();
+            long[] row = new long[1];
+            when(rows.next()).thenAnswer(next -> {
+                if (!ids.hasNext()) {
+                    return false;
+                }
+                row[0] = ids.next();
+                return true;
+            });
+            when(rows.getLong(1)).thenAnswer(get -> row[0]);
+            when(rows.getString(2)).thenAnswer(get -> "isbn-" + row[0]);
+            when(scan.executeQuery(anyString())).thenReturn(rows);
+            when(connection.createStatement()).thenReturn(scan);
+            return connection;
+        });
+        return dataSource;
+    }
+}
@@ -0,0 +1,169 @@
+package com.library.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.library.dto.BookDTO;
+import com.library.entity.BookHistory;
+import com.library.event.BookChangedEvent;
+import jakarta.enterprise.concurrent.ManagedThreadFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * BookHistoryWriter against book_history on the in-memory H2 database of bookStoreTestPU,
+ * read back through BookHistory.findByBookId. Tests hold the writer thread back so the
+ * queue fills, then start it.
+ */
+class BookHistoryWriterTest {
+
+    private EntityManagerFactory factory;
+    private BookHistoryWriter writer;
+    private volatile boolean databaseDown;
+
+    @TempDir
+    Path spoolDir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        factory = Persistence.createEntityManagerFactory("bookStoreTestPU");
+        System.setProperty("library.history.queue-capacity", "1");
+        System.setProperty("library.history.spool-dir", spoolDir.toString());
+        try {
+            writer = new BookHistoryWriter();
+        } finally {
+            System.clearProperty("library.history.queue-capacity");
+        }
+
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:books;DB_CLOSE_DELAY=-1");
+        h2.setUser("sa");
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> {
+            if (databaseDown) {
+                throw new SQLException("Connection refused");
+            }
+            return h2.getConnection();
+        });
+        ManagedThreadFactory threadFactory = mock(ManagedThreadFactory.class);
+        when(threadFactory.newThread(any(Runnable.class)))
+            .thenAnswer(invocation -> new Thread((Runnable) invocation.getArgument(0)));
+        inject("dataSource", dataSource);
+        inject("threadFactory", threadFactory);
+
+        // Accept entries without a thread taking them off the queue
+        inject("writerThread", new Thread(() -> { }));
+        inject("running", true);
+        inject("spoolDir", spoolDir);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.stop();
+        System.clearProperty("library.history.spool-dir");
+        factory.close();
+    }
+
+    @Test
+    void versionsWrittenPastAFullQueueKeepTheirOrder() {
+        changed(1L, "Dune");
+        changed(1L, "Dune (Deluxe Edition)");
+        changed(1L, "Dune (Annotated)");
+        assertEquals(List.of("Dune (Deluxe Edition)", "Dune (Annotated)"), titles(1L));
+
+        startAndDrain();
+
+        assertEquals(List.of("Dune", "Dune (Deluxe Edition)", "Dune (Annotated)"), titles(1L));
+    }
+
+    @Test
+    void spooledVersionsAreReplayedOnStartInTheirOrder() throws Exception {
+        databaseDown = true;
+        changed(1L, "Dune");
+        changed(1L, "Dune (Deluxe Edition)");
+        changed(2L, "Emma");
+        assertTrue(Files.exists(spoolDir.resolve("book-history.spool")));
+
+        databaseDown = false;
+        startAndDrain();
+
+        assertEquals(List.of("Dune", "Dune (Deluxe Edition)"), titles(1L));
+        BookHistory emma = history(2L).get(0);
+        assertEquals("UPDATED", emma.getOperation());
+        assertEquals("Jane Austen", emma.getAuthor());
+        assertEquals(2001, emma.getPublicationYear());
+        assertEquals("isbn-2", emma.getIsbn());
+        assertFalse(Files.exists(spoolDir.resolve("book-history.spool")));
+        assertFalse(Files.exists(spoolDir.resolve("book-history.replay")));
+    }
+
+    @Test
+    void recordedTimesNeverRepeat() {
+        for (int i = 0; i < 10; i++) {
+            changed(1L, "Dune " + i);
+        }
+        startAndDrain();
+
+        List<BookHistory> history = history(1L);
+        assertEquals(10, history.size());
+        for (int i = 1; i < history.size(); i++) {
+            assertTrue(history.get(i).getRecordedAt().isAfter(history.get(i - 1).getRecordedAt()));
+        }
+    }
+
+    private void changed(Long id, String title) {
+        String author = id == 1L ? "Frank Herbert" : "Jane Austen";
+        BookDTO book = new BookDTO(id, title, author, 2001, "isbn-" + id, null, null);
+        writer.onBookChanged(BookChangedEvent.of(BookChangedEvent.Operation.UPDATED, book));
+    }
+
+    /**
+     * Start the writer thread, which replays the spool and drains the queue, and wait for it
+     */
+    private void startAndDrain() {
+        writer.start();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (writer.getPendingCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        writer.stop();
+    }
+
+    private List<BookHistory> history(Long bookId) {
+        EntityManager entityManager = factory.createEntityManager();
+        try {
+            return entityManager.createNamedQuery("BookHistory.findByBookId", BookHistory.class)
+                                .setParameter("bookId", bookId)
+                                .getResultList();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private List<String> titles(Long bookId) {
+        return history(bookId).stream().map(BookHistory::getTitle).collect(Collectors.toList());
+    }
+
+    private void inject(String name, Object value) throws Exception {
+        Field field = BookHistoryWriter.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(writer, value);
+    }
+}
@@ -0,0 +1,197 @@
+package com.library.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.library.dto.CheckoutRequest;
+import com.library.dto.LoanDTO;
+import com.library.entity.Book;
+import com.library.entity.Loan;
+import com.library.exception.BookNotFoundException;
+import com.library.exception.CirculationConflictException;
+import com.library.exception.LoanNotFoundException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+/**
+ * CirculationService over a mocked EntityManager: the claim and lock statements are
+ * PostgreSQL-only, so the tests script what they return and check what is asked for
+ */
+class CirculationServiceTest {
+
+    private CirculationService circulation;
+    private EntityManager entityManager;
+    private Query lockPatron;
+    private Query claimCopy;
+    private TypedQuery<Long> countOpenLoans;
+    private TypedQuery<Object[]> loansOfBooks;
+    private Query deleteCopies;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        circulation = new CirculationService();
+        entityManager = mock(EntityManager.class);
+        Field field = CirculationService.class.getDeclaredField("entityManager");
+        field.setAccessible(true);
+        field.set(circulation, entityManager);
+
+        lockPatron = query(CirculationService.LOCK_PATRON_SQL);
+        claimCopy = query(CirculationService.CLAIM_COPY_SQL);
+        countOpenLoans = mock(TypedQuery.class);
+        when(countOpenLoans.setParameter(anyString(), any())).thenReturn(countOpenLoans);
+        when(entityManager.createNamedQuery("Loan.countOpenByPatron", Long.class)).thenReturn(countOpenLoans);
+        openLoans(0);
+
+        loansOfBooks = mock(TypedQuery.class);
+        when(loansOfBooks.setParameter(anyString(), any())).thenReturn(loansOfBooks);
+        when(loansOfBooks.setMaxResults(anyInt())).thenReturn(loansOfBooks);
+        when(entityManager.createQuery(anyString(), eq(Object[].class))).thenReturn(loansOfBooks);
+        deleteCopies = mock(Query.class);
+        when(deleteCopies.setParameter(anyString(), any())).thenReturn(deleteCopies);
+        when(entityManager.createQuery("DELETE FROM BookCopy c WHERE c.bookId IN :bookIds")).thenReturn(deleteCopies);
+    }
+
+    @Test
+    void checkoutNeedsABookAndAShortPatronId() {
+        assertInvalid(null, "Checkout requires a bookId");
+        assertInvalid(request(null, "p-1"), "Checkout requires a bookId");
+        assertInvalid(request(1L, " "), "Checkout requires a patronId");
+        assertInvalid(request(1L, "p".repeat(65)), "patronId cannot exceed 64 characters");
+        verify(entityManager, never()).createNativeQuery(anyString());
+    }
+
+    @Test
+    void checkoutLendsTheClaimedCopyAfterLockingThePatron() {
+        when(claimCopy.getResultList()).thenReturn(List.of(42L));
+
+        LocalDateTime before = LocalDateTime.now();
+        LoanDTO loan = circulation.checkout(request(7L, "  p-1 "));
+
+        ArgumentCaptor<Loan> persisted = ArgumentCaptor.forClass(Loan.class);
+        verify(entityManager).persist(persisted.capture());
+        assertEquals(42L, persisted.getValue().getCopyId());
+        assertEquals(7L, persisted.getValue().getBookId());
+        assertEquals("p-1", persisted.getValue().getPatronId());
+        assertEquals(persisted.getValue().getCheckedOutAt().plusDays(21), persisted.getValue().getDueAt());
+        assertFalse(persisted.getValue().getCheckedOutAt().isBefore(before));
+        assertEquals(42L, loan.getCopyId());
+
+        InOrder order = inOrder(lockPatron, countOpenLoans, claimCopy);
+        order.verify(lockPatron).setParameter(1, "p-1");
+        order.verify(lockPatron).getSingleResult();
+        order.verify(countOpenLoans).getSingleResult();
+        order.verify(claimCopy).setParameter(1, 7L);
+        order.verify(claimCopy).getResultList();
+    }
+
+    @Test
+    void patronAtTheLoanLimitIsRefusedBeforeAnyCopyIsClaimed() {
+        openLoans(10);
+
+        CirculationConflictException e = assertThrows(CirculationConflictException.class,
+                                                      () -> circulation.checkout(request(7L, "p-1")));
+
+        assertEquals("Patron p-1 already has 10 books on loan", e.getMessage());
+        verify(claimCopy, never()).getResultList();
+        verify(entityManager, never()).persist(any());
+    }
+
+    @Test
+    void noCopyLeftIsAConflict() {
+        when(claimCopy.getResultList()).thenReturn(List.of());
+        when(entityManager.find(Book.class, 7L)).thenReturn(new Book());
+
+        CirculationConflictException e = assertThrows(CirculationConflictException.class,
+                                                      () -> circulation.checkout(request(7L, "p-1")));
+
+        assertEquals("No copy of book 7 is available", e.getMessage());
+        verify(entityManager, never()).persist(any());
+    }
+
+    @Test
+    void noCopyOfAMissingBookIsNotFound() {
+        when(claimCopy.getResultList()).thenReturn(List.of());
+
+        assertThrows(BookNotFoundException.class, () -> circulation.checkout(request(7L, "p-1")));
+        verify(entityManager, never()).persist(any());
+    }
+
+    @Test
+    void returnRefusesUnknownAndAlreadyReturnedLoans() {
+        assertThrows(LoanNotFoundException.class, () -> circulation.returnLoan(3L));
+
+        Loan loan = new Loan(42L, 7L, "p-1", LocalDateTime.now().minusDays(2), LocalDateTime.now().plusDays(19));
+        loan.setReturnedAt(LocalDateTime.now().minusDays(1));
+        when(entityManager.find(Loan.class, 3L, LockModeType.PESSIMISTIC_WRITE)).thenReturn(loan);
+
+        CirculationConflictException e = assertThrows(CirculationConflictException.class, () -> circulation.returnLoan(3L));
+        assertEquals("Loan 3 was already returned", e.getMessage());
+    }
+
+    @Test
+    void booksWithCopiesOnLoanOrLoanHistoryKeepTheirCopies() {
+        when(loansOfBooks.getResultList()).thenReturn(List.<Object[]>of(new Object[] {7L, 2L}));
+        CirculationConflictException onLoan = assertThrows(CirculationConflictException.class,
+                                                           () -> circulation.deleteCopiesOf(List.of(7L, 8L)));
+        assertEquals("Book 7 has 2 copies on loan", onLoan.getMessage());
+
+        when(loansOfBooks.getResultList()).thenReturn(List.<Object[]>of(new Object[] {8L, 0L}));
+        CirculationConflictException history = assertThrows(CirculationConflictException.class,
+                                                            () -> circulation.deleteCopiesOf(List.of(7L, 8L)));
+        assertEquals("Book 8 has loan history and cannot be deleted", history.getMessage());
+        verify(deleteCopies, never()).executeUpdate();
+    }
+
+    @Test
+    void copiesOfBooksNeverLentAreDeleted() {
+        when(loansOfBooks.getResultList()).thenReturn(List.of());
+
+        circulation.deleteCopiesOf(List.of(7L, 8L));
+
+        verify(deleteCopies).setParameter("bookIds", List.of(7L, 8L));
+        verify(deleteCopies).executeUpdate();
+    }
+
+    private void openLoans(long count) {
+        when(countOpenLoans.getSingleResult()).thenReturn(count);
+    }
+
+    private Query query(String sql) {
+        Query query = mock(Query.class);
+        when(query.setParameter(anyInt(), any())).thenReturn(query);
+        when(entityManager.createNativeQuery(sql)).thenReturn(query);
+        return query;
+    }
+
+    private static CheckoutRequest request(Long bookId, String patronId) {
+        CheckoutRequest request = new CheckoutRequest();
+        request.setBookId(bookId);
+        request.setPatronId(patronId);
+        return request;
+    }
+
+    private void assertInvalid(CheckoutRequest request, String message) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> circulation.checkout(request));
+        assertEquals(message, e.getMessage());
+    }
+}
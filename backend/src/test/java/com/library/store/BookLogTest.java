@@ -0,0 +1,172 @@
+package com.library.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.library.entity.Book;
+import com.library.exception.DuplicateIsbnException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BookLogTest {
+
+    private static final int CAPACITY = 1024 * 1024;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void compactionKeepsLatestStateOfLiveBooks() throws IOException {
+        Path file = dir.resolve("books.log");
+        try (BookLog log = BookLog.open(file, CAPACITY, false)) {
+            for (int i = 0; i < 100; i++) {
+                log.insert(new Book("Title " + i, "Author", 2001, isbn(i)));
+            }
+            for (int round = 0; round < 20; round++) {
+                for (long id = 1; id <= 100; id++) {
+                    log.updateFields(id, Map.of("title", "Title " + id + " rev " + round));
+                }
+            }
+            for (long id = 51; id <= 100; id++) {
+                log.delete(id);
+            }
+            long before = log.getLogBytes();
+
+            log.compact();
+
+            assertTrue(log.getLogBytes() < before / 20, "log shrank from " + before + " to " + log.getLogBytes());
+            assertEquals(log.getLiveBytes(), log.getLogBytes() - 24);
+            assertEquals("Title 7 rev 19", log.get(7).getTitle());
+            assertEquals(50, log.size());
+        }
+        try (BookLog log = BookLog.open(file, CAPACITY, false)) {
+            assertEquals(50, log.size());
+            assertEquals("Title 50 rev 19", log.get(50).getTitle());
+            assertNull(log.get(51));
+            assertEquals(7, log.findIdByIsbn(isbn(6)));
+            assertEquals(-1, log.findIdByIsbn(isbn(60)));
+            assertEquals(101, log.insert(new Book("New", "Author", 2001, isbn(60))).getCurrent().getId());
+        }
+    }
+
+    @Test
+    void tornTailRecordIsDroppedOnReopen() throws IOException {
+        Path file = dir.resolve("books.log");
+        long end;
+        try (BookLog log = BookLog.open(file, CAPACITY, false)) {
+            for (int i = 0; i < 3; i++) {
+                log.insert(new Book("Title " + i, "Author", 2001, isbn(i)));
+            }
+            end = log.getLogBytes();
+        }
+        // Damage the last byte of the last record, as a write cut short by a crash would
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(end - 1);
+            int last = raf.read();
+            raf.seek(end - 1);
+            raf.write(last ^ 0xFF);
+        }
+
+        try (BookLog log = BookLog.open(file, CAPACITY, false)) {
+            assertEquals(2, log.size());
+            assertNull(log.get(3));
+            assertEquals(-1, log.findIdByIsbn(isbn(2)));
+            log.insert(new Book("Title 2", "Author", 2001, isbn(2)));
+        }
+        try (BookLog log = BookLog.open(file, CAPACITY, false)) {
+            assertEquals(3, log.size());
+            assertEquals("Title 2", log.get(3).getTitle());
+        }
+    }
+
+    @Test
+    void unfinishedBatchIsDroppedOnReopen() throws IOException {
+        Path file = dir.resolve("books.log");
+        long start;
+        try (BookLog log = BookLog.open(file, CAPACITY, false)) {
+            log.insert(new Book("Kept", "Author", 2001, isbn(0)));
+            start = log.getLogBytes();
+            Book first = pending(log.reserveId(), "First", isbn(1));
+            Book second = pending(log.reserveId(), "Second", isbn(2));
+            log.writeBatch(null, batch -> {
+                batch.insert(first);
+                batch.insert(second);
+            });
+            assertEquals(3, log.size());
+        }
+        // Flag the batch's last record as continued again, as before the batch completed
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(start);
+            int firstLength = raf.readInt() & ~(1 << 30);
+            long last = start + 8 + firstLength;
+            raf.seek(last);
+            int word = raf.readInt();
+            raf.seek(last);
+            raf.writeInt(word | (1 << 30));
+        }
+
+        try (BookLog log = BookLog.open(file, CAPACITY, false)) {
+            assertEquals(1, log.size());
+            assertEquals(-1, log.findIdByIsbn(isbn(1)));
+            BookLog.Change inserted = log.insert(new Book("After", "Author", 2001, isbn(1)));
+            assertTrue(inserted.getCurrent().getId() > 1);
+        }
+    }
+
+    @Test
+    void failedBatchLeavesNothingBehind() throws IOException {
+        try (BookLog log = BookLog.open(dir.resolve("books.log"), CAPACITY, false)) {
+            log.insert(new Book("Kept", "Author", 2001, isbn(0)));
+            Book first = pending(log.reserveId(), "First", isbn(1));
+            Book duplicate = pending(log.reserveId(), "Duplicate", isbn(0));
+
+            assertThrows(DuplicateIsbnException.class, () -> log.writeBatch(null, batch -> {
+                batch.insert(first);
+                batch.insert(duplicate);
+            }));
+
+            assertEquals(1, log.size());
+            assertNull(log.get(first.getId()));
+            assertEquals(-1, log.findIdByIsbn(isbn(1)));
+            assertNotNull(log.insert(new Book("First", "Author", 2001, isbn(1))));
+        }
+    }
+
+    @Test
+    void reservedIsbnIsTakenForOtherWriters() throws IOException {
+        try (BookLog log = BookLog.open(dir.resolve("books.log"), CAPACITY, false)) {
+            Object owner = new Object();
+            long id = log.reserveId();
+            log.reserveIsbn(isbn(1), owner, id, other -> false);
+
+            assertThrows(DuplicateIsbnException.class, () -> log.insert(new Book("Other", "Author", 2001, isbn(1))));
+            assertThrows(DuplicateIsbnException.class, () -> log.reserveIsbn(isbn(1), new Object(), id + 1, other -> false));
+
+            log.writeBatch(owner, batch -> batch.insert(pending(id, "Reserved", isbn(1))));
+            log.releaseIsbns(owner, List.of(isbn(1)));
+            assertEquals(id, log.findIdByIsbn(isbn(1)));
+        }
+    }
+
+    private static Book pending(long id, String title, String isbn) {
+        Book book = new Book(title, "Author", 2001, isbn);
+        LocalDateTime now = LocalDateTime.now();
+        book.setId(id);
+        book.setCreatedAt(now);
+        book.setUpdatedAt(now);
+        return book;
+    }
+
+    private static String isbn(int i) {
+        return String.format("978%010d", i);
+    }
+}
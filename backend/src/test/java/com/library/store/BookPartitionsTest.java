@@ -0,0 +1,65 @@
+package com.library.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.library.entity.Book;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class BookPartitionsTest {
+
+    @Test
+    void mergeInterleavesPartitionsByTitleThenId() {
+        List<List<Book>> partitions = List.of(
+            List.of(book(4, "Dune"), book(9, "Emma")),
+            List.of(book(2, "Dune"), book(7, "Persuasion")),
+            List.of(),
+            List.of(book(5, "Beloved")));
+
+        assertEquals(List.of(5L, 2L, 4L, 9L, 7L), ids(BookPartitions.merge(partitions, 0, null)));
+    }
+
+    @Test
+    void mergeSkipsOffsetAndStopsAtLimit() {
+        List<List<Book>> partitions = List.of(
+            List.of(book(1, "A"), book(3, "C"), book(5, "E")),
+            List.of(book(2, "B"), book(4, "D"), book(6, "F")));
+
+        assertEquals(List.of(3L, 4L), ids(BookPartitions.merge(partitions, 2, 2)));
+        assertEquals(List.of(6L), ids(BookPartitions.merge(partitions, 5, 10)));
+        assertEquals(List.of(), ids(BookPartitions.merge(partitions, 6, 10)));
+        assertEquals(List.of(), ids(BookPartitions.merge(List.of(), 0, 10)));
+    }
+
+    @Test
+    void codePointOrderMatchesCCollation() {
+        // Upper case before lower case, and accented letters after z
+        assertTrue(BookPartitions.compareCodePoints("Zebra", "apple") < 0);
+        assertTrue(BookPartitions.compareCodePoints("zebra", "éclair") < 0);
+        // A prefix comes first
+        assertTrue(BookPartitions.compareCodePoints("Dune", "Dune Messiah") < 0);
+        assertEquals(0, BookPartitions.compareCodePoints("Dune", "Dune"));
+    }
+
+    @Test
+    void supplementaryCharactersSortAfterTheBasicPlane() {
+        // String.compareTo compares UTF-16 units, which puts the surrogate pair of U+1F4DA first
+        String books = "📚";
+        String replacement = "�";
+        assertTrue(books.compareTo(replacement) < 0);
+        assertTrue(BookPartitions.compareCodePoints(books, replacement) > 0);
+        assertTrue(BookPartitions.compareCodePoints(replacement, books) < 0);
+    }
+
+    private static Book book(long id, String title) {
+        Book book = new Book(title, "Author", 2001, "978000000000" + id % 10);
+        book.setId(id);
+        return book;
+    }
+
+    private static List<Long> ids(List<Book> books) {
+        return books.stream().map(Book::getId).collect(Collectors.toList());
+    }
+}
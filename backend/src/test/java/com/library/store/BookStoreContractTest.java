@@ -0,0 +1,276 @@
+package com.library.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.library.entity.Book;
+import com.library.exception.DuplicateIsbnException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Behaviour every BookStore shares, run against each implementation by a subclass that
+ * sets up the store and drives its transactions
+ */
+abstract class BookStoreContractTest {
+
+    protected BookStore store;
+
+    /**
+     * Start a transaction for the next store calls
+     */
+    protected abstract void begin();
+
+    protected abstract void commit();
+
+    protected abstract void rollback();
+
+    /**
+     * Drop everything the store keeps in memory and read it back, as after a restart
+     */
+    protected abstract void reopen() throws Exception;
+
+    @Test
+    void insertAssignsIdAndTimestamps() {
+        Book book = insert("Dune", "Frank Herbert", "9780441013593");
+
+        assertNotNull(book.getId());
+        assertNotNull(book.getCreatedAt());
+        assertNotNull(book.getUpdatedAt());
+        Book found = store.findById(book.getId());
+        assertEquals("Dune", found.getTitle());
+        assertEquals("9780441013593", found.getIsbn());
+        assertTrue(store.existsByIsbn("9780441013593"));
+    }
+
+    @Test
+    void missingBookIsNotFound() {
+        assertNull(store.findById(12345L));
+        assertFalse(store.existsByIsbn("9780441013593"));
+
+        begin();
+        assertNull(store.update(book(12345L, "Dune", "Frank Herbert", "9780441013593")));
+        assertNull(store.updateFields(12345L, Map.of("title", "Dune")));
+        assertNull(store.delete(12345L));
+        commit();
+    }
+
+    @Test
+    void updateReplacesBookAndKeepsCreationTime() throws Exception {
+        Book book = insert("Dune", "Frank Herbert", "9780441013593");
+
+        begin();
+        Book changed = book(book.getId(), "Dune Messiah", "Frank Herbert", "9780593098233");
+        changed.setPublicationYear(1969);
+        assertNotNull(store.update(changed));
+        commit();
+        reopen();
+
+        Book found = store.findById(book.getId());
+        assertEquals("Dune Messiah", found.getTitle());
+        assertEquals(1969, found.getPublicationYear());
+        assertEquals(book.getCreatedAt().withNano(0), found.getCreatedAt().withNano(0));
+        assertTrue(store.existsByIsbn("9780593098233"));
+        assertFalse(store.existsByIsbn("9780441013593"));
+    }
+
+    @Test
+    void updateFieldsChangesOnlyTheGivenProperties() {
+        Book book = insert("Dune", "Frank Herbert", "9780441013593");
+
+        begin();
+        Book updated = store.updateFields(book.getId(), Map.of("title", "Dune (Deluxe Edition)"));
+        commit();
+
+        assertEquals("Dune (Deluxe Edition)", updated.getTitle());
+        Book found = store.findById(book.getId());
+        assertEquals("Dune (Deluxe Edition)", found.getTitle());
+        assertEquals("Frank Herbert", found.getAuthor());
+        assertEquals("9780441013593", found.getIsbn());
+    }
+
+    @Test
+    void updateFieldsRejectsOtherProperties() {
+        Book book = insert("Dune", "Frank Herbert", "9780441013593");
+
+        begin();
+        assertThrows(IllegalArgumentException.class, () -> store.updateFields(book.getId(), Map.of("createdAt", "x")));
+        rollback();
+    }
+
+    @Test
+    void deleteRemovesBookAndFreesIsbn() {
+        Book book = insert("Dune", "Frank Herbert", "9780441013593");
+
+        begin();
+        assertEquals("Dune", store.delete(book.getId()).getTitle());
+        commit();
+
+        assertNull(store.findById(book.getId()));
+        assertFalse(store.existsByIsbn("9780441013593"));
+        Book again = insert("Dune", "Frank Herbert", "9780441013593");
+        assertTrue(again.getId() > book.getId());
+    }
+
+    @Test
+    void duplicateIsbnIsRejectedOnInsert() {
+        insert("Dune", "Frank Herbert", "9780441013593");
+
+        begin();
+        assertThrows(DuplicateIsbnException.class,
+                     () -> store.insert(new Book("Dune, again", "Frank Herbert", 1965, "9780441013593")));
+        rollback();
+
+        assertEquals(1, store.count());
+    }
+
+    @Test
+    void duplicateIsbnIsRejectedOnUpdate() {
+        insert("Dune", "Frank Herbert", "9780441013593");
+        Book other = insert("Emma", "Jane Austen", "9780141439587");
+
+        begin();
+        assertThrows(DuplicateIsbnException.class,
+                     () -> store.updateFields(other.getId(), Map.of("isbn", "9780441013593")));
+        rollback();
+
+        assertEquals("9780141439587", store.findById(other.getId()).getIsbn());
+    }
+
+    @Test
+    void rollbackDiscardsInsert() throws Exception {
+        begin();
+        Book book = store.insert(new Book("Dune", "Frank Herbert", 1965, "9780441013593"));
+        rollback();
+        reopen();
+
+        assertNull(store.findById(book.getId()));
+        assertFalse(store.existsByIsbn("9780441013593"));
+        assertEquals(0, store.count());
+        insert("Dune", "Frank Herbert", "9780441013593");
+    }
+
+    @Test
+    void rollbackDiscardsUpdatesAndDeletes() throws Exception {
+        Book dune = insert("Dune", "Frank Herbert", "9780441013593");
+        Book emma = insert("Emma", "Jane Austen", "9780141439587");
+
+        begin();
+        store.updateFields(dune.getId(), Map.of("title", "Dune Messiah", "isbn", "9780593098233"));
+        store.update(book(dune.getId(), "Children of Dune", "Frank Herbert", "9780593098240"));
+        store.delete(emma.getId());
+        rollback();
+        reopen();
+
+        assertEquals("Dune", store.findById(dune.getId()).getTitle());
+        assertEquals("9780441013593", store.findById(dune.getId()).getIsbn());
+        assertEquals("Emma", store.findById(emma.getId()).getTitle());
+        assertFalse(store.existsByIsbn("9780593098233"));
+        assertFalse(store.existsByIsbn("9780593098240"));
+    }
+
+    @Test
+    void transactionSeesItsOwnWrites() {
+        Book emma = insert("Emma", "Jane Austen", "9780141439587");
+
+        begin();
+        Book dune = store.insert(new Book("Dune", "Frank Herbert", 1965, "9780441013593"));
+        store.delete(emma.getId());
+        assertEquals("Dune", store.findById(dune.getId()).getTitle());
+        assertNull(store.findById(emma.getId()));
+        assertTrue(store.existsByIsbn("9780441013593"));
+        assertFalse(store.existsByIsbn("9780141439587"));
+        assertEquals(List.of("Dune"), titles(store.findAll(null, null)));
+        assertEquals(1, store.count());
+        assertEquals(0, store.countByAuthor("austen"));
+        commit();
+    }
+
+    @Test
+    void listsAreOrderedByTitleAndPaged() {
+        insert("Persuasion", "Jane Austen", "9780141439686");
+        insert("Dune", "Frank Herbert", "9780441013593");
+        insert("Emma", "Jane Austen", "9780141439587");
+        insert("Mansfield Park", "Jane Austen", "9780141439808");
+
+        assertEquals(List.of("Dune", "Emma", "Mansfield Park", "Persuasion"), titles(store.findAll(null, null)));
+        assertEquals(List.of("Emma", "Mansfield Park"), titles(store.findAll(1, 2)));
+        assertEquals(List.of("Persuasion"), titles(store.findAll(3, 10)));
+        assertEquals(List.of(), titles(store.findAll(10, 10)));
+        assertEquals(4, store.count());
+    }
+
+    @Test
+    void authorSearchIgnoresCase() {
+        insert("Persuasion", "Jane Austen", "9780141439686");
+        insert("Dune", "Frank Herbert", "9780441013593");
+        insert("Emma", "Jane Austen", "9780141439587");
+
+        assertEquals(List.of("Emma", "Persuasion"), titles(store.findByAuthor(" AUSTEN ", null, null)));
+        assertEquals(List.of("Persuasion"), titles(store.findByAuthor("austen", 1, 5)));
+        assertEquals(2, store.countByAuthor("austen"));
+        assertEquals(0, store.countByAuthor("Tolkien"));
+    }
+
+    @Test
+    void coverHashesAreFoundOnlyWhileReferenced() {
+        begin();
+        Book dune = new Book("Dune", "Frank Herbert", 1965, "9780441013593");
+        dune.setCoverHash("aaaa");
+        store.insert(dune);
+        Book emma = new Book("Emma", "Jane Austen", 1815, "9780141439587");
+        emma.setCoverHash("aaaa");
+        store.insert(emma);
+        commit();
+
+        assertEquals(Set.of("aaaa"), store.findCoverHashes(List.of("aaaa", "bbbb")));
+
+        begin();
+        store.delete(dune.getId());
+        store.delete(emma.getId());
+        commit();
+
+        assertEquals(Set.of(), store.findCoverHashes(List.of("aaaa", "bbbb")));
+    }
+
+    @Test
+    void booksSurviveReopen() throws Exception {
+        Book dune = insert("Dune", "Frank Herbert", "9780441013593");
+        Book emma = insert("Emma", "Jane Austen", "9780141439587");
+        begin();
+        store.delete(emma.getId());
+        commit();
+
+        reopen();
+
+        assertEquals("Dune", store.findById(dune.getId()).getTitle());
+        assertNull(store.findById(emma.getId()));
+        assertEquals(1, store.count());
+        Book next = insert("Persuasion", "Jane Austen", "9780141439686");
+        assertTrue(next.getId() > emma.getId());
+    }
+
+    protected Book insert(String title, String author, String isbn) {
+        begin();
+        Book book = store.insert(new Book(title, author, 2001, isbn));
+        commit();
+        return book;
+    }
+
+    protected static Book book(Long id, String title, String author, String isbn) {
+        Book book = new Book(title, author, 2001, isbn);
+        book.setId(id);
+        return book;
+    }
+
+    protected static List<String> titles(List<Book> books) {
+        return books.stream().map(Book::getTitle).collect(Collectors.toList());
+    }
+}
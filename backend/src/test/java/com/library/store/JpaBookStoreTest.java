@@ -0,0 +1,125 @@
+package com.library.store;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.library.entity.Book;
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The BookStore contract against JpaBookStore on an in-memory H2 database (bookStoreTestPU),
+ * with resource-local transactions in place of the container's
+ */
+class JpaBookStoreTest extends BookStoreContractTest {
+
+    private static EntityManagerFactory factory;
+
+    private JpaBookStore jpaStore;
+    private BookPartitions partitions;
+    private EntityManager entityManager;
+
+    @BeforeAll
+    static void createFactory() {
+        factory = Persistence.createEntityManagerFactory("bookStoreTestPU");
+    }
+
+    @AfterAll
+    static void closeFactory() {
+        factory.close();
+    }
+
+    @BeforeEach
+    void open() throws Exception {
+        jpaStore = new JpaBookStore();
+        // Never fans out: its worker pool only starts in the container
+        partitions = new BookPartitions();
+        inject(jpaStore, "partitions", partitions);
+        reopen();
+        store = jpaStore;
+    }
+
+    @AfterEach
+    void clear() {
+        entityManager.getTransaction().begin();
+        entityManager.createQuery("DELETE FROM Book").executeUpdate();
+        entityManager.getTransaction().commit();
+        entityManager.close();
+    }
+
+    @Test
+    void partitionedTableLooksIsbnsUpInSideTable() throws Exception {
+        insert("Dune", "Frank Herbert", "9780441013593");
+        // Deliberately out of step with books, to show which table answers
+        begin();
+        entityManager.createNativeQuery("CREATE TABLE book_isbns (isbn VARCHAR(17) PRIMARY KEY, book_id BIGINT NOT NULL)")
+                     .executeUpdate();
+        entityManager.createNativeQuery("INSERT INTO book_isbns VALUES ('9780141439587', 2)").executeUpdate();
+        commit();
+        try {
+            inject(partitions, "partitions", List.of("books_p0", "books_p1"));
+
+            assertTrue(store.existsByIsbn("9780141439587"));
+            assertFalse(store.existsByIsbn("9780441013593"));
+        } finally {
+            begin();
+            entityManager.createNativeQuery("DROP TABLE book_isbns").executeUpdate();
+            commit();
+        }
+    }
+
+    @Test
+    void updateFieldsRefreshesBookAlreadyLoadedInTheTransaction() {
+        Book book = insert("Dune", "Frank Herbert", "9780441013593");
+
+        begin();
+        Book loaded = store.findById(book.getId());
+        Book updated = store.updateFields(book.getId(), Map.of("title", "Dune (Deluxe Edition)"));
+        assertSame(loaded, updated);
+        assertEquals("Dune (Deluxe Edition)", loaded.getTitle());
+        commit();
+    }
+
+    @Override
+    protected void begin() {
+        entityManager.getTransaction().begin();
+    }
+
+    @Override
+    protected void commit() {
+        entityManager.getTransaction().commit();
+        entityManager.clear();
+    }
+
+    @Override
+    protected void rollback() {
+        entityManager.getTransaction().rollback();
+        entityManager.clear();
+    }
+
+    @Override
+    protected void reopen() throws Exception {
+        if (entityManager != null) {
+            entityManager.close();
+        }
+        entityManager = factory.createEntityManager();
+        inject(jpaStore, "entityManager", entityManager);
+    }
+
+    private static void inject(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
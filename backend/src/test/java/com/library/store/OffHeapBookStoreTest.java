@@ -0,0 +1,195 @@
+package com.library.store;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.library.entity.Book;
+import com.library.exception.BookNotFoundException;
+import com.library.exception.DuplicateIsbnException;
+import jakarta.ejb.TimerService;
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OffHeapBookStoreTest extends BookStoreContractTest {
+
+    @TempDir
+    Path dir;
+
+    private final TestTransactionRegistry transactions = new TestTransactionRegistry();
+    private OffHeapBookStore offHeapStore;
+
+    @BeforeEach
+    void open() throws Exception {
+        System.setProperty("library.storage.dir", dir.toString());
+        System.setProperty("library.storage.sync", "false");
+        offHeapStore = new OffHeapBookStore();
+        inject(offHeapStore, "transactionRegistry", transactions);
+        inject(offHeapStore, "timerService", mock(TimerService.class));
+        offHeapStore.start();
+        store = offHeapStore;
+    }
+
+    @AfterEach
+    void close() {
+        offHeapStore.stop();
+        System.clearProperty("library.storage.dir");
+        System.clearProperty("library.storage.sync");
+    }
+
+    @Override
+    protected void begin() {
+        transactions.begin();
+    }
+
+    @Override
+    protected void commit() {
+        transactions.commit();
+    }
+
+    @Override
+    protected void rollback() {
+        transactions.rollback();
+    }
+
+    @Override
+    protected void reopen() {
+        offHeapStore.stop();
+        offHeapStore.start();
+    }
+
+    @Test
+    void uncommittedWritesAreInvisibleToOthers() {
+        Book emma = insert("Emma", "Jane Austen", "9780141439587");
+
+        begin();
+        Book dune = store.insert(new Book("Dune", "Frank Herbert", 1965, "9780441013593"));
+        store.updateFields(emma.getId(), Map.of("title", "Emma (Annotated)"));
+        TestTransactionRegistry.Transaction writer = transactions.suspend();
+
+        assertNull(store.findById(dune.getId()));
+        assertFalse(store.existsByIsbn("9780441013593"));
+        assertEquals("Emma", store.findById(emma.getId()).getTitle());
+        assertEquals(List.of("Emma"), titles(store.findAll(null, null)));
+        assertEquals(1, store.count());
+
+        transactions.resume(writer);
+        commit();
+
+        assertEquals("Dune", store.findById(dune.getId()).getTitle());
+        assertEquals("Emma (Annotated)", store.findById(emma.getId()).getTitle());
+    }
+
+    @Test
+    void pendingIsbnIsReservedUntilTransactionEnds() {
+        begin();
+        store.insert(new Book("Dune", "Frank Herbert", 1965, "9780441013593"));
+        TestTransactionRegistry.Transaction first = transactions.suspend();
+
+        begin();
+        assertThrows(DuplicateIsbnException.class,
+                     () -> store.insert(new Book("Dune, again", "Frank Herbert", 1965, "9780441013593")));
+        rollback();
+
+        transactions.resume(first);
+        rollback();
+
+        // Released by the rollback
+        insert("Dune, again", "Frank Herbert", "9780441013593");
+    }
+
+    @Test
+    void isbnsCanMoveBetweenBooksInOneTransaction() {
+        Book dune = insert("Dune", "Frank Herbert", "9780441013593");
+        Book emma = insert("Emma", "Jane Austen", "9780141439587");
+
+        begin();
+        store.updateFields(dune.getId(), Map.of("isbn", "9780593098233"));
+        store.updateFields(emma.getId(), Map.of("isbn", "9780441013593"));
+        assertThrows(DuplicateIsbnException.class,
+                     () -> store.insert(new Book("Dune Messiah", "Frank Herbert", 1969, "9780593098233")));
+        commit();
+
+        assertEquals("9780593098233", store.findById(dune.getId()).getIsbn());
+        assertEquals("9780441013593", store.findById(emma.getId()).getIsbn());
+    }
+
+    @Test
+    void fieldUpdatesKeepChangesCommittedMeanwhile() {
+        Book dune = insert("Dune", "Frank Herbert", "9780441013593");
+
+        begin();
+        store.updateFields(dune.getId(), Map.of("title", "Dune (Deluxe Edition)"));
+        TestTransactionRegistry.Transaction first = transactions.suspend();
+
+        begin();
+        store.updateFields(dune.getId(), Map.of("author", "F. Herbert"));
+        commit();
+
+        transactions.resume(first);
+        commit();
+
+        Book found = store.findById(dune.getId());
+        assertEquals("Dune (Deluxe Edition)", found.getTitle());
+        assertEquals("F. Herbert", found.getAuthor());
+    }
+
+    @Test
+    void updateOfBookDeletedMeanwhileFailsTheCommit() {
+        Book dune = insert("Dune", "Frank Herbert", "9780441013593");
+        Book emma = insert("Emma", "Jane Austen", "9780141439587");
+
+        begin();
+        store.updateFields(emma.getId(), Map.of("title", "Emma (Annotated)"));
+        store.updateFields(dune.getId(), Map.of("title", "Dune (Deluxe Edition)"));
+        TestTransactionRegistry.Transaction first = transactions.suspend();
+
+        begin();
+        store.delete(dune.getId());
+        commit();
+
+        transactions.resume(first);
+        assertThrows(BookNotFoundException.class, this::commit);
+
+        assertNull(store.findById(dune.getId()));
+        assertEquals("Emma", store.findById(emma.getId()).getTitle());
+    }
+
+    @Test
+    void failedAppendFailsTheCommitAndKeepsNothing() throws Exception {
+        begin();
+        store.insert(new Book("Dune", "Frank Herbert", 1965, "9780441013593"));
+        store.insert(new Book("x".repeat(70_000), "Frank Herbert", 1965, "9780593098233"));
+        assertThrows(IllegalArgumentException.class, this::commit);
+        reopen();
+
+        assertEquals(0, store.count());
+        assertFalse(store.existsByIsbn("9780441013593"));
+        insert("Dune", "Frank Herbert", "9780441013593");
+    }
+
+    @Test
+    void writesOutsideTransactionsApplyAtOnce() {
+        Book dune = store.insert(new Book("Dune", "Frank Herbert", 1965, "9780441013593"));
+
+        assertTrue(store.existsByIsbn("9780441013593"));
+        assertEquals("Dune Messiah", store.updateFields(dune.getId(), Map.of("title", "Dune Messiah")).getTitle());
+        assertEquals("Dune Messiah", store.delete(dune.getId()).getTitle());
+        assertEquals(0, store.count());
+    }
+
+    private static void inject(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+}
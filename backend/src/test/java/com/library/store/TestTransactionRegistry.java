@@ -0,0 +1,118 @@
+package com.library.store;
+
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TransactionSynchronizationRegistry standing in for the container's in tests. One
+ * transaction is current at a time; suspend() and resume() switch between several.
+ */
+final class TestTransactionRegistry implements TransactionSynchronizationRegistry {
+
+    private Transaction current;
+
+    void begin() {
+        if (current != null) {
+            throw new IllegalStateException("A transaction is already active");
+        }
+        current = new Transaction();
+    }
+
+    void commit() {
+        complete(Status.STATUS_COMMITTED);
+    }
+
+    void rollback() {
+        complete(Status.STATUS_ROLLEDBACK);
+    }
+
+    Transaction suspend() {
+        Transaction suspended = current;
+        current = null;
+        return suspended;
+    }
+
+    void resume(Transaction transaction) {
+        current = transaction;
+    }
+
+    /**
+     * End the transaction; a commit whose beforeCompletion() throws rolls back and rethrows,
+     * as the container's commit does
+     */
+    private void complete(int status) {
+        Transaction transaction = active();
+        RuntimeException failure = null;
+        if (status == Status.STATUS_COMMITTED) {
+            try {
+                for (Synchronization synchronization : transaction.synchronizations) {
+                    synchronization.beforeCompletion();
+                }
+            } catch (RuntimeException e) {
+                failure = e;
+                status = Status.STATUS_ROLLEDBACK;
+            }
+        }
+        transaction.status = status;
+        for (Synchronization synchronization : transaction.synchronizations) {
+            synchronization.afterCompletion(status);
+        }
+        current = null;
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private Transaction active() {
+        if (current == null) {
+            throw new IllegalStateException("No active transaction");
+        }
+        return current;
+    }
+
+    @Override
+    public Object getTransactionKey() {
+        return current;
+    }
+
+    @Override
+    public void putResource(Object key, Object value) {
+        active().resources.put(key, value);
+    }
+
+    @Override
+    public Object getResource(Object key) {
+        return active().resources.get(key);
+    }
+
+    @Override
+    public void registerInterposedSynchronization(Synchronization sync) {
+        active().synchronizations.add(sync);
+    }
+
+    @Override
+    public int getTransactionStatus() {
+        return current != null ? current.status : Status.STATUS_NO_TRANSACTION;
+    }
+
+    @Override
+    public void setRollbackOnly() {
+        active().status = Status.STATUS_MARKED_ROLLBACK;
+    }
+
+    @Override
+    public boolean getRollbackOnly() {
+        return active().status == Status.STATUS_MARKED_ROLLBACK;
+    }
+
+    static final class Transaction {
+        private final Map<Object, Object> resources = new HashMap<>();
+        private final List<Synchronization> synchronizations = new ArrayList<>();
+        private int status = Status.STATUS_ACTIVE;
+    }
+}
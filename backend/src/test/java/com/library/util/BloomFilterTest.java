@@ -0,0 +1,48 @@
+package com.library.util;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+    private static final int ELEMENTS = 100_000;
+
+    @Test
+    void addedValuesAreAlwaysFound() {
+        BloomFilter filter = BloomFilter.create(ELEMENTS, 0.01);
+        for (long i = 0; i < ELEMENTS; i++) {
+            filter.put(BloomFilter.hash(i));
+        }
+        for (long i = 0; i < ELEMENTS; i++) {
+            assertTrue(filter.mightContain(BloomFilter.hash(i)), "false negative for " + i);
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTheConfiguredRate() {
+        BloomFilter filter = BloomFilter.create(ELEMENTS, 0.01);
+        for (int i = 0; i < ELEMENTS; i++) {
+            filter.put(BloomFilter.hash("978" + i));
+        }
+        int falsePositives = 0;
+        for (int i = ELEMENTS; i < 2 * ELEMENTS; i++) {
+            if (filter.mightContain(BloomFilter.hash("978" + i))) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / ELEMENTS;
+        assertTrue(rate < 0.015, "false positive rate " + rate);
+    }
+
+    @Test
+    void overfilledFilterStillNeverMissesValues() {
+        BloomFilter filter = BloomFilter.create(1_000, 0.01);
+        for (long i = 0; i < 10_000; i++) {
+            filter.put(BloomFilter.hash(i));
+        }
+        for (long i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(BloomFilter.hash(i)));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.library.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+class ByteRangeTest {
+
+    private static final long LENGTH = 1000;
+
+    @Test
+    void closedRange() {
+        ByteRange range = ByteRange.parse("bytes=0-99", LENGTH);
+        assertEquals(0, range.getStart());
+        assertEquals(99, range.getEnd());
+        assertEquals(100, range.getLength());
+        assertEquals("bytes 0-99/1000", range.toContentRange(LENGTH));
+    }
+
+    @Test
+    void closedRangePastTheEndIsCut() {
+        ByteRange range = ByteRange.parse("bytes=900-5000", LENGTH);
+        assertEquals(900, range.getStart());
+        assertEquals(999, range.getEnd());
+    }
+
+    @Test
+    void openRangeRunsToTheEnd() {
+        ByteRange range = ByteRange.parse("Bytes=500-", LENGTH);
+        assertEquals(500, range.getStart());
+        assertEquals(999, range.getEnd());
+        assertEquals(500, range.getLength());
+    }
+
+    @Test
+    void suffixRangeIsTheLastBytes() {
+        ByteRange range = ByteRange.parse("bytes=-200", LENGTH);
+        assertEquals(800, range.getStart());
+        assertEquals(999, range.getEnd());
+
+        ByteRange whole = ByteRange.parse("bytes=-5000", LENGTH);
+        assertEquals(0, whole.getStart());
+        assertEquals(999, whole.getEnd());
+    }
+
+    @Test
+    void rangesOutsideTheFileAreUnsatisfiable() {
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=1000-", LENGTH));
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=2000-3000", LENGTH));
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=-0", LENGTH));
+        assertSame(ByteRange.UNSATISFIABLE, ByteRange.parse("bytes=-10", 0));
+        assertEquals("bytes */1000", ByteRange.UNSATISFIABLE.toContentRange(LENGTH));
+    }
+
+    @Test
+    void unsupportedOrInvalidHeadersSendTheWholeFile() {
+        assertNull(ByteRange.parse(null, LENGTH));
+        assertNull(ByteRange.parse("items=0-1", LENGTH));
+        assertNull(ByteRange.parse("bytes=0-1,5-9", LENGTH));
+        assertNull(ByteRange.parse("bytes=9-5", LENGTH));
+        assertNull(ByteRange.parse("bytes=abc-", LENGTH));
+        assertNull(ByteRange.parse("bytes=100", LENGTH));
+    }
+}
@@ -0,0 +1,200 @@
+package com.library.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CoverStoreTest {
+
+    private static final byte[] JPEG = image(new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}, "one");
+    private static final byte[] PNG = image(new byte[] {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'}, "two");
+
+    @TempDir
+    Path root;
+
+    private CoverStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        store = new CoverStore(root);
+    }
+
+    @Test
+    void supportedImagesAreRecognizedByTheirFirstBytes() {
+        assertEquals("image/jpeg", sniff(JPEG));
+        assertEquals("image/png", sniff(PNG));
+        assertEquals("image/gif", sniff("GIF87a".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals("image/gif", sniff("GIF89a....".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals("image/webp", sniff("RIFF\0\0\0\0WEBPVP8 ".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void otherContentIsNotAnImage() {
+        assertNull(sniff("%PDF-1.7".getBytes(StandardCharsets.US_ASCII)));
+        assertNull(sniff("RIFF\0\0\0\0WAVEfmt ".getBytes(StandardCharsets.US_ASCII)));
+        assertNull(sniff("GIF90a".getBytes(StandardCharsets.US_ASCII)));
+        // Too short to hold the whole signature
+        assertNull(sniff(new byte[] {(byte) 0xFF, (byte) 0xD8}));
+        assertNull(sniff("RIFF\0\0\0\0WEB".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void identicalUploadsShareOneFile() throws IOException {
+        CoverStore.StoredImage first = store(JPEG);
+        CoverStore.StoredImage second = store(JPEG);
+        CoverStore.StoredImage other = store(PNG);
+
+        assertEquals(first.getHash(), second.getHash());
+        assertFalse(first.getHash().equals(other.getHash()));
+        assertEquals("image/jpeg", first.getContentType());
+        assertEquals("image/png", other.getContentType());
+        assertEquals(JPEG.length, first.getSize());
+        assertArrayEquals(JPEG, Files.readAllBytes(store.getOriginal(first.getHash())));
+        assertEquals(2, originals().size());
+        assertTrue(uploads().isEmpty());
+    }
+
+    @Test
+    void rejectedUploadsLeaveNothingBehind() throws IOException {
+        assertInvalid(new byte[0], 100, "Cover image cannot be empty");
+        assertInvalid(JPEG, JPEG.length - 1, "Cover image cannot exceed " + (JPEG.length - 1) + " bytes");
+        assertInvalid("%PDF-1.7 not a cover".getBytes(StandardCharsets.US_ASCII), 100,
+                      "Cover must be a JPEG, PNG, GIF or WebP image");
+
+        assertTrue(originals().isEmpty());
+        assertTrue(uploads().isEmpty());
+    }
+
+    @Test
+    void sweepDeletesOnlyUnreferencedImagesPastTheGracePeriod() throws IOException {
+        String kept = store(JPEG).getHash();
+        String unreferenced = store(PNG).getHash();
+        String recent = store(image(JPEG, "three")).getHash();
+        Path thumbnail = store.getThumbnail(unreferenced, 200);
+        Files.createDirectories(thumbnail.getParent());
+        Files.write(thumbnail, JPEG);
+        Instant cutoff = Instant.now().minus(Duration.ofHours(1));
+        age(store.getOriginal(kept), cutoff);
+        age(store.getOriginal(unreferenced), cutoff);
+
+        List<List<String>> asked = new ArrayList<>();
+        List<String> deleted = store.sweep(cutoff, hashes -> {
+            asked.add(hashes);
+            return Set.of(kept);
+        });
+
+        assertEquals(List.of(unreferenced), deleted);
+        assertEquals(Set.of(kept, unreferenced), new HashSet<>(asked.get(0)));
+        assertFalse(Files.exists(store.getOriginal(unreferenced)));
+        assertFalse(Files.exists(thumbnail));
+        assertTrue(Files.exists(store.getOriginal(kept)));
+        assertTrue(Files.exists(store.getOriginal(recent)));
+    }
+
+    @Test
+    void storingAnImageAgainRestartsItsGracePeriod() throws IOException {
+        String hash = store(JPEG).getHash();
+        Instant cutoff = Instant.now().minus(Duration.ofHours(1));
+        age(store.getOriginal(hash), cutoff);
+
+        // Uploaded again before its new book is saved: nothing references it yet
+        store(JPEG);
+
+        assertTrue(store.sweep(cutoff, hashes -> Set.of()).isEmpty());
+        assertTrue(Files.exists(store.getOriginal(hash)));
+    }
+
+    @Test
+    void imageStoredAgainWhileTheSweepRunsIsKept() throws IOException {
+        String hash = store(JPEG).getHash();
+        Instant cutoff = Instant.now().minus(Duration.ofHours(1));
+        age(store.getOriginal(hash), cutoff);
+
+        List<String> deleted = store.sweep(cutoff, hashes -> {
+            try {
+                // Listed as old, then uploaded again before the sweep deletes it
+                store(JPEG);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return Set.of();
+        });
+
+        assertTrue(deleted.isEmpty());
+        assertTrue(Files.exists(store.getOriginal(hash)));
+    }
+
+    @Test
+    void sweepRemovesAbandonedUploads() throws IOException {
+        Path abandoned = Files.write(root.resolve("tmp").resolve("upload-1.part"), JPEG);
+        Path inProgress = Files.write(root.resolve("tmp").resolve("upload-2.part"), JPEG);
+        Instant cutoff = Instant.now().minus(Duration.ofHours(1));
+        age(abandoned, cutoff);
+
+        store.sweep(cutoff, hashes -> Set.of());
+
+        assertFalse(Files.exists(abandoned));
+        assertTrue(Files.exists(inProgress));
+    }
+
+    private CoverStore.StoredImage store(byte[] bytes) throws IOException {
+        return store.store(new ByteArrayInputStream(bytes), 1024);
+    }
+
+    private void assertInvalid(byte[] bytes, long maxBytes, String message) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                                                  () -> store.store(new ByteArrayInputStream(bytes), maxBytes));
+        assertEquals(message, e.getMessage());
+    }
+
+    private List<Path> originals() throws IOException {
+        try (Stream<Path> files = Files.walk(root.resolve("originals"))) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+
+    private List<Path> uploads() throws IOException {
+        try (Stream<Path> files = Files.list(root.resolve("tmp"))) {
+            return files.toList();
+        }
+    }
+
+    private static String sniff(byte[] head) {
+        return CoverStore.sniffContentType(head, head.length);
+    }
+
+    /**
+     * Make a file look last written a minute before the cutoff
+     */
+    private static void age(Path file, Instant cutoff) throws IOException {
+        Files.setLastModifiedTime(file, FileTime.from(cutoff.minus(Duration.ofMinutes(1))));
+    }
+
+    private static byte[] image(byte[] signature, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.US_ASCII);
+        byte[] image = new byte[signature.length + bytes.length];
+        System.arraycopy(signature, 0, image, 0, signature.length);
+        System.arraycopy(bytes, 0, image, signature.length, bytes.length);
+        return image;
+    }
+}
@@ -0,0 +1,41 @@
+package com.library.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class StringSimilarityTest {
+
+    @Test
+    void jaroWinklerOfKnownPairs() {
+        // Reference values from Winkler's paper
+        assertEquals(0.9611, StringSimilarity.jaroWinkler("martha", "marhta"), 1e-4);
+        assertEquals(0.8400, StringSimilarity.jaroWinkler("dwayne", "duane"), 1e-4);
+        assertEquals(0.8133, StringSimilarity.jaroWinkler("dixon", "dicksonx"), 1e-4);
+    }
+
+    @Test
+    void jaroWinklerBounds() {
+        assertEquals(1.0, StringSimilarity.jaroWinkler("dune", "dune"));
+        assertEquals(0.0, StringSimilarity.jaroWinkler("abc", "xyz"));
+        assertEquals(0.0, StringSimilarity.jaroWinkler("", "dune"));
+        assertEquals(StringSimilarity.jaroWinkler("dwayne", "duane"), StringSimilarity.jaroWinkler("duane", "dwayne"), 1e-12);
+    }
+
+    @Test
+    void normalizeKeepsLowerCaseLettersAndDigits() {
+        assertEquals("jrrtolkien", StringSimilarity.normalize("J. R. R. Tolkien"));
+        assertEquals("catch22", StringSimilarity.normalize("Catch-22"));
+        assertEquals("", StringSimilarity.normalize(null));
+    }
+
+    @Test
+    void isbnCoreIsSharedByIsbn10AndIsbn13() {
+        assertEquals("044101359", StringSimilarity.isbnCore("978-0-441-01359-3"));
+        assertEquals("044101359", StringSimilarity.isbnCore("0-441-01359-7"));
+        assertEquals("080442957", StringSimilarity.isbnCore("080442957x"));
+        // 979 ISBNs have no ISBN-10 form
+        assertEquals("9798886450055", StringSimilarity.isbnCore("979-8-88645-005-5"));
+        assertEquals("", StringSimilarity.isbnCore(null));
+    }
+}
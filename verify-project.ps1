@@ -19,7 +19,7 @@ if (Test-Path "backend/src/main/java/com/library/entity/Book.java") { Write-Host
 if (Test-Path "backend/src/main/java/com/library/service/BookService.java") { Write-Host "✅ Book service (EJB)" -ForegroundColor Green } else { Write-Host "❌ Book service missing" -ForegroundColor Red }
 if (Test-Path "backend/src/main/java/com/library/rest/BookController.java") { Write-Host "✅ REST controller" -ForegroundColor Green } else { Write-Host "❌ REST controller missing" -ForegroundColor Red }
 if (Test-Path "backend/src/main/resources/META-INF/persistence.xml") { Write-Host "✅ JPA configuration" -ForegroundColor Green } else { Write-Host "❌ JPA configuration missing" -ForegroundColor Red }
-if (Test-Path "backend/src/main/resources/db/init.sql") { Write-Host "✅ Database initialization script" -ForegroundColor Green } else { Write-Host "❌ Database script missing" -ForegroundColor Red }
+if (Test-Path "backend/src/main/resources/db/migration/index.txt") { Write-Host "✅ Database migration scripts" -ForegroundColor Green } else { Write-Host "❌ Database migrations missing" -ForegroundColor Red }
 
 Write-Host ""
 
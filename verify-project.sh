@@ -20,7 +20,7 @@ echo "Backend files:"
 [ -f "backend/src/main/java/com/library/service/BookService.java" ] && echo "✅ Book service (EJB)" || echo "❌ Book service missing"
 [ -f "backend/src/main/java/com/library/rest/BookController.java" ] && echo "✅ REST controller" || echo "❌ REST controller missing"
 [ -f "backend/src/main/resources/META-INF/persistence.xml" ] && echo "✅ JPA configuration" || echo "❌ JPA configuration missing"
-[ -f "backend/src/main/resources/db/init.sql" ] && echo "✅ Database initialization script" || echo "❌ Database script missing"
+[ -f "backend/src/main/resources/db/migration/index.txt" ] && echo "✅ Database migration scripts" || echo "❌ Database migrations missing"
 
 echo ""
 